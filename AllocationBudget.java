@@ -0,0 +1,159 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Comprueba que el escáner, el parser y el informe no superan un presupuesto de memoria asignada
+ * por línea, por token y por diagnóstico.
+ *
+ * Mide con los contadores de bytes asignados por hilo de ThreadMXBean, sobre documentos generados
+ * con una semilla fija (uno con errores y otro sin ellos) y sobre los archivos indicados:
+ * VBScriptScanner.tokenize(), VBScriptParser.parse() y ReportWriter.write(). Cada fase se repite
+ * tras calentarse y se toma la medida mínima, para descontar la compilación JIT. El presupuesto
+ * de cada fase es un coste fijo más un coste por línea o token y otro por diagnóstico, porque
+ * solo las líneas con errores necesitan construir mensajes; el parser tiene además un coste por
+ * sentencia Dim, la única que guarda algo (su símbolo). Un println de depuración, una lista de
+ * tokens recorrida con stream() o un mensaje concatenado en el camino caliente lo rompe y el
+ * proceso termina con código 1.
+ * Uso: java AllocationBudget [--lines=N] archivo1.vb archivo2.vb ...
+ */
+public class AllocationBudget {
+    // Presupuestos en bytes asignados: fijo, por línea o token y por diagnóstico
+    static final long TOKENIZE_FIXED = 1024;
+    static final long TOKENIZE_PER_LINE = 16;
+    static final long PARSE_FIXED = 2048;
+    static final long PARSE_PER_TOKEN = 24;
+    static final long PARSE_PER_DIAGNOSTIC = 128;
+    // Símbolo, nombre y crecimiento amortizado de la tabla de SymbolTable por cada Dim
+    static final long PARSE_PER_DECLARATION = 96;
+    // Incluye el buffer de salida de 64 KB de ReportWriter
+    static final long REPORT_FIXED = 96 * 1024;
+    static final long REPORT_PER_LINE = 8;
+    static final long REPORT_PER_DIAGNOSTIC = 512;
+
+    private static final int WARMUP_RUNS = 10;
+    private static final int MEASURED_RUNS = 5;
+
+    // Líneas de los documentos generados: código correcto y comentarios ("{n}" es el número de
+    // línea, para que cada Dim declare una variable distinta)
+    static final String[] VALID_LINES = {
+        "    Dim contador{n} As Integer", "    ' comentario", "    x = x + 1", "    Console.WriteLine(\"Valor: \" & x)", ""
+    };
+
+    // Código correcto, comentarios y líneas con errores
+    static final String[] LINES = {
+        "    Dim contador As Integer", "    Dim 1a As Integer", "    ' comentario", "    x = x + 1",
+        "    While x < 10", "    End While", "    Try", "    Catch ex As Exception", "    Catch", "    End Try",
+        "    Console.WriteLine(\"Valor: \" & x)", "", "    End While",
+        "    Dim linea As String = \"una línea bastante larga que supera los noventa caracteres del límite de formato\""
+    };
+
+    private interface Phase {
+        void run() throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            System.err.println("La JVM no permite medir la memoria asignada por hilo.");
+            System.exit(2);
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        int lineCount = 20000;
+        List<String> files = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--lines=")) {
+                lineCount = Integer.parseInt(arg.substring("--lines=".length()));
+            } else {
+                files.add(arg);
+            }
+        }
+
+        Path directory = Files.createTempDirectory("errorhunter-alloc");
+        int failures = 0;
+        try {
+            failures += check(threads, "generado", generate(LINES, lineCount, 42).getBytes(StandardCharsets.UTF_8), directory);
+            failures += check(threads, "sin errores", generate(VALID_LINES, lineCount, 42).getBytes(StandardCharsets.UTF_8), directory);
+            for (String file : files) {
+                failures += check(threads, file, Files.readAllBytes(Paths.get(file)), directory);
+            }
+        } finally {
+            Files.deleteIfExists(directory.resolve("informe-Errores.txt"));
+            Files.deleteIfExists(directory);
+        }
+
+        if (failures > 0) {
+            System.out.println("Se superaron " + failures + " presupuestos de memoria asignada.");
+            System.exit(1);
+        }
+        System.out.println("El escáner, el parser y el informe están dentro del presupuesto de memoria asignada.");
+    }
+
+    // Devuelve el número de fases que superan su presupuesto para un documento
+    static int check(com.sun.management.ThreadMXBean threads, String name, byte[] content, Path directory) throws IOException {
+        SourceText source = SourceText.decode(content, SourceText.AUTO);
+        TokenBuffer tokens = VBScriptScanner.tokenize(source);
+        ErrorReporter parsed = new ErrorReporter("");
+        VBScriptParser parser = new VBScriptParser(tokens.cursor(), parsed);
+        parser.parse();
+        String basePath = directory.resolve("informe").toString();
+
+        int lines = source.lineCount();
+        int diagnostics = parsed.getDiagnostics().size();
+        int declarations = 0;
+        for (TokenCursor token = tokens.cursor(); token.next(); ) {
+            if (token.getType() == Token.Type.DIM_STATEMENT) {
+                declarations++;
+            }
+        }
+
+        int failures = 0;
+        failures += report(name, "tokenize", measure(threads, () -> VBScriptScanner.tokenize(source)),
+            TOKENIZE_FIXED + TOKENIZE_PER_LINE * lines, lines, "línea");
+        failures += report(name, "parse", measure(threads, () -> new VBScriptParser(tokens.cursor(), new ErrorReporter("")).parse()),
+            PARSE_FIXED + PARSE_PER_TOKEN * tokens.size() + PARSE_PER_DIAGNOSTIC * diagnostics
+                + PARSE_PER_DECLARATION * declarations, tokens.size(), "token");
+        failures += report(name, "report", measure(threads, () -> new ReportWriter(basePath, true)
+                .write(name, source, parser.stats, parsed.getDiagnostics())),
+            REPORT_FIXED + REPORT_PER_LINE * lines + REPORT_PER_DIAGNOSTIC * diagnostics, lines, "línea");
+        return failures;
+    }
+
+    // Bytes asignados por el hilo actual en la ejecución más barata de la fase
+    private static long measure(com.sun.management.ThreadMXBean threads, Phase phase) throws IOException {
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            phase.run();
+        }
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            phase.run();
+            min = Math.min(min, threads.getThreadAllocatedBytes(threadId) - before);
+        }
+        return min;
+    }
+
+    private static int report(String name, String phase, long bytes, long budget, int units, String unit) {
+        boolean exceeded = bytes > budget;
+        System.out.println(String.format("%s %-8s %10d bytes (presupuesto %d) | %7.1f bytes/%s%s",
+            name, phase, bytes, budget, (double) bytes / Math.max(units, 1), unit, exceeded ? " SUPERADO" : ""));
+        return exceeded ? 1 : 0;
+    }
+
+    static String generate(String[] palette, int lineCount, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder("Imports System\nModule Program\n    Sub Main()\n    Dim x As Integer\n");
+        for (int i = 0; i < lineCount; i++) {
+            text.append(palette[random.nextInt(palette.length)].replace("{n}", Integer.toString(i))).append('\n');
+        }
+        return text.append("    End Sub\nEnd Module\n").toString();
+    }
+}
@@ -0,0 +1,144 @@
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Archivos fuente dentro de archivos zip o jar.
+ *
+ * Una entrada se identifica como "<archivo>!/<ruta de la entrada>", como en las URL jar:. Cada
+ * archivo comprimido se abre una sola vez como sistema de archivos zip de NIO y sus entradas se
+ * leen y descomprimen directamente de él, sin extraerlas a disco; varios hilos pueden leer
+ * entradas distintas a la vez. Si el archivo cambia en disco (por ejemplo, entre dos lotes del
+ * demonio) se vuelve a abrir; el sistema de archivos anterior no se cierra hasta closeAll(),
+ * porque otros hilos pueden estar leyendo todavía de él.
+ */
+public final class ArchiveSources {
+    public static final String SEPARATOR = "!/";
+
+    private static final ConcurrentHashMap<Path, Archive> OPEN = new ConcurrentHashMap<>();
+    // Sistemas de archivos sustituidos por una versión más reciente del archivo; protegido por OPEN
+    private static final List<FileSystem> REPLACED = new ArrayList<>();
+
+    // Sistema de archivos zip abierto y fecha de modificación del archivo al abrirlo
+    private static final class Archive {
+        final FileSystem fileSystem;
+        final FileTime modified;
+
+        Archive(FileSystem fileSystem, FileTime modified) {
+            this.fileSystem = fileSystem;
+            this.modified = modified;
+        }
+    }
+
+    private ArchiveSources() {
+    }
+
+    // Archivo .zip o .jar existente, cuyas entradas .vb se validan
+    public static boolean isArchive(String input) {
+        return isArchiveName(input) && Files.isRegularFile(Paths.get(input));
+    }
+
+    // Ruta de una entrada dentro de un archivo comprimido ("archivo.zip!/ruta/modulo.vb")
+    public static boolean isEntry(String path) {
+        int separator = path.indexOf(SEPARATOR);
+        return separator > 0 && isArchiveName(path.substring(0, separator));
+    }
+
+    private static boolean isArchiveName(String name) {
+        String lower = name.toLowerCase();
+        return lower.endsWith(".zip") || lower.endsWith(".jar");
+    }
+
+    /**
+     * resolve() - Path con el que leer el archivo: el de la entrada en el sistema de archivos zip,
+     * o Paths.get(path) si no es una entrada de un archivo comprimido.
+     */
+    public static Path resolve(String path) throws IOException {
+        if (!isEntry(path)) {
+            return Paths.get(path);
+        }
+        int separator = path.indexOf(SEPARATOR);
+        return open(Paths.get(path.substring(0, separator))).getPath(path.substring(separator + 1));
+    }
+
+    /**
+     * entries() - Entradas .vb del archivo comprimido, ordenadas, como "archivo!/ruta".
+     */
+    public static List<String> entries(String archive) throws IOException {
+        FileSystem fileSystem = open(Paths.get(archive));
+        List<String> entries = new ArrayList<>();
+        for (Path root : fileSystem.getRootDirectories()) {
+            try (Stream<Path> walk = Files.walk(root)) {
+                walk.filter(path -> Files.isRegularFile(path) && path.toString().toLowerCase().endsWith(".vb"))
+                    .map(path -> root.relativize(path).toString())
+                    .sorted()
+                    .forEach(entry -> entries.add(archive + SEPARATOR + entry));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * localPath() - Ruta equivalente en disco de una entrada, como si el archivo comprimido se
+     * hubiera extraído en un directorio con su nombre sin extensión ("src.zip!/a/b.vb" ->
+     * "src/a/b.vb"). Sirve para decidir dónde se escribe su informe.
+     */
+    public static String localPath(String path) {
+        if (!isEntry(path)) {
+            return path;
+        }
+        int separator = path.indexOf(SEPARATOR);
+        String archive = path.substring(0, separator);
+        return archive.substring(0, archive.length() - ".zip".length()) + "/" + path.substring(separator + SEPARATOR.length());
+    }
+
+    private static FileSystem open(Path archive) throws IOException {
+        Path key = archive.toAbsolutePath().normalize();
+        FileTime modified = Files.getLastModifiedTime(key);
+        Archive open = OPEN.get(key);
+        if (open != null && open.modified.equals(modified)) {
+            return open.fileSystem;
+        }
+        synchronized (OPEN) {
+            open = OPEN.get(key);
+            if (open != null && open.modified.equals(modified)) {
+                return open.fileSystem;
+            }
+            if (open != null) {
+                REPLACED.add(open.fileSystem);
+            }
+            FileSystem fileSystem = FileSystems.newFileSystem(key, (ClassLoader) null);
+            OPEN.put(key, new Archive(fileSystem, modified));
+            return fileSystem;
+        }
+    }
+
+    /**
+     * closeAll() - Cierra los archivos comprimidos abiertos al terminar la ejecución, también
+     * los sustituidos por una versión más reciente.
+     */
+    public static void closeAll() {
+        synchronized (OPEN) {
+            for (Archive archive : OPEN.values()) {
+                REPLACED.add(archive.fileSystem);
+            }
+            for (FileSystem fileSystem : REPLACED) {
+                try {
+                    fileSystem.close();
+                } catch (IOException e) {
+                    // Solo se leyó del archivo: no hay cambios que se puedan perder
+                }
+            }
+            OPEN.clear();
+            REPLACED.clear();
+        }
+    }
+}
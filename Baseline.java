@@ -0,0 +1,351 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Línea base de diagnósticos conocidos: los que coinciden con ella no se reportan.
+ *
+ * Cada diagnóstico se identifica por una huella de 64 bits del archivo (su ruta relativa al
+ * directorio de la línea base, ver relativePath()), del contenido de su línea (sin los espacios
+ * de los extremos y con cada secuencia de espacios reducida a uno) y de la regla (código y
+ * argumento, o el texto de un mensaje libre). No incluye el número de línea,
+ * así que un error conocido sigue suprimido aunque se añadan o eliminen líneas por encima.
+ * Si un archivo tiene más diagnósticos iguales que la línea base, se reportan los que sobran.
+ *
+ * El archivo guarda las huellas ordenadas, que se leen de una vez a un long[] sin construir
+ * ninguna tabla: con millones de entradas se carga en milisegundos y ocupa 8 bytes por huella
+ * más un índice de cubetas por los bits altos de la huella (unos 4 bytes por huella). Una
+ * consulta lee su cubeta y busca la huella exacta en ella, sin falsos positivos como los de un
+ * filtro de Bloom.
+ * Uso: Baseline.load(ruta) para suprimir y new Baseline.Recorder(ruta) para generar la línea base.
+ */
+public final class Baseline {
+    private static final int MAGIC = 0x45485642; // "EHVB"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 12;
+
+    // Huellas ordenadas con el bit de signo invertido, para que el orden con signo de long[]
+    // coincida con el orden sin signo de los bits altos que eligen la cubeta
+    private final long[] keys;
+    private final int bucketBits;
+    // keys[offsets[b], offsets[b + 1]) son las huellas de la cubeta b
+    private final int[] offsets;
+    // Directorio respecto al que se identifican los archivos
+    private final Path root;
+    private final AtomicLong suppressed = new AtomicLong();
+
+    private Baseline(long[] keys, Path root) {
+        this.keys = keys;
+        this.root = root;
+        // Del orden de una huella por cubeta
+        this.bucketBits = Math.max(1, Math.min(24, 31 - Integer.numberOfLeadingZeros(Math.max(keys.length, 1))));
+        this.offsets = new int[(1 << bucketBits) + 1];
+        int key = 0;
+        for (int bucket = 0; bucket < offsets.length - 1; bucket++) {
+            offsets[bucket] = key;
+            while (key < keys.length && bucket(keys[key]) == bucket) {
+                key++;
+            }
+        }
+        offsets[offsets.length - 1] = keys.length;
+    }
+
+    /**
+     * load() - Lee una línea base escrita por Recorder.write().
+     */
+    public static Baseline load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(channel, header, file);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+                throw new IOException("El archivo " + file + " no es una línea base de esta versión");
+            }
+            int count = header.getInt();
+            if (count < 0 || (long) count * Long.BYTES != channel.size() - HEADER_BYTES) {
+                throw new IOException("Línea base incompleta: " + file);
+            }
+            // Proyectado en memoria: una única copia de la caché de páginas al long[]
+            long[] keys = new long[count];
+            channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, (long) count * Long.BYTES).asLongBuffer().get(keys);
+            for (int i = 1; i < count; i++) {
+                if (keys[i - 1] > keys[i]) {
+                    // Escrita a mano o por otra herramienta: se ordena una vez
+                    Arrays.sort(keys);
+                    break;
+                }
+            }
+            return new Baseline(keys, root(file));
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, Path file) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Línea base incompleta: " + file);
+            }
+        }
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    // Diagnósticos suprimidos desde que se cargó
+    public long suppressed() {
+        return suppressed.get();
+    }
+
+    /**
+     * filter() - Elimina de diagnostics los que están en la línea base para el archivo path, cuyas
+     * líneas son lines. Devuelve el número de diagnósticos eliminados.
+     */
+    public int filter(String path, List<? extends CharSequence> lines, DiagnosticStore diagnostics) {
+        int size = diagnostics.size();
+        if (size == 0 || keys.length == 0) {
+            return 0;
+        }
+        long fileHash = fileHash(relativePath(root, path));
+        long[] fingerprints = new long[size];
+        for (int i = 0; i < size; i++) {
+            fingerprints[i] = fingerprint(fileHash, lines, diagnostics, i);
+        }
+        // Huellas repetidas en el archivo: used[primera posición de la huella en sorted] cuenta las
+        // ya suprimidas, hasta las que hay en la línea base
+        long[] sorted = fingerprints.clone();
+        Arrays.sort(sorted);
+        int[] used = new int[size];
+        boolean[] removed = new boolean[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int known = count(fingerprints[i]);
+            if (known == 0) {
+                continue;
+            }
+            int first = lowerBound(sorted, 0, size, fingerprints[i]);
+            if (used[first] < known) {
+                used[first]++;
+                removed[i] = true;
+                count++;
+            }
+        }
+        if (count > 0) {
+            diagnostics.remove(removed);
+            suppressed.addAndGet(count);
+        }
+        return count;
+    }
+
+    // Veces que aparece la huella en la línea base
+    int count(long fingerprint) {
+        long key = fingerprint ^ Long.MIN_VALUE;
+        int bucket = bucket(key);
+        int end = offsets[bucket + 1];
+        int count = 0;
+        for (int i = lowerBound(keys, offsets[bucket], end, key); i < end && keys[i] == key; i++) {
+            count++;
+        }
+        return count;
+    }
+
+    private int bucket(long key) {
+        return (int) ((key ^ Long.MIN_VALUE) >>> (64 - bucketBits));
+    }
+
+    private static int lowerBound(long[] values, int from, int to, long value) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Huellas de los diagnósticos de una ejecución, de uno o varios hilos, para escribir una
+     * línea base nueva con write().
+     */
+    public static final class Recorder {
+        private final Path root;
+        private long[] keys = new long[1024];
+        private int size;
+
+        // file es la línea base que se escribirá: los archivos se identifican respecto a su directorio
+        public Recorder(Path file) {
+            this.root = root(file);
+        }
+
+        public void record(String path, List<? extends CharSequence> lines, DiagnosticStore diagnostics) {
+            int count = diagnostics.size();
+            if (count == 0) {
+                return;
+            }
+            long fileHash = fileHash(relativePath(root, path));
+            long[] recorded = new long[count];
+            for (int i = 0; i < count; i++) {
+                recorded[i] = fingerprint(fileHash, lines, diagnostics, i) ^ Long.MIN_VALUE;
+            }
+            synchronized (this) {
+                if (size + count > keys.length) {
+                    keys = Arrays.copyOf(keys, Math.max(size + count, keys.length * 2));
+                }
+                System.arraycopy(recorded, 0, keys, size, count);
+                size += count;
+            }
+        }
+
+        public synchronized int size() {
+            return size;
+        }
+
+        /**
+         * write() - Escribe la línea base ordenada en un temporal y la publica con un movimiento
+         * atómico, para que una ejecución concurrente no lea un archivo a medias.
+         */
+        public synchronized void write(Path file) throws IOException {
+            long[] sorted = Arrays.copyOf(keys, size);
+            Arrays.sort(sorted);
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            // Junto al destino y con los permisos por defecto (createTempFile solo daría acceso al propietario)
+            Path temp = parent.resolve(file.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+            try {
+                try (OutputStream stream = Files.newOutputStream(temp);
+                     DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 64 * 1024))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(FORMAT_VERSION);
+                    out.writeInt(sorted.length);
+                    for (long key : sorted) {
+                        out.writeLong(key);
+                    }
+                }
+                try {
+                    Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    // Huella del diagnóstico i: archivo, contenido normalizado de su línea y regla
+    static long fingerprint(long fileHash, List<? extends CharSequence> lines, DiagnosticStore diagnostics, int i) {
+        long hash = fileHash;
+        int line = diagnostics.line(i);
+        if (line >= 1 && line <= lines.size()) {
+            hash = hashLine(hash, lines.get(line - 1));
+        }
+        hash = mix(hash, 0);
+        ErrorCode code = diagnostics.code(i);
+        hash = hash(hash, code.name());
+        if (code == ErrorCode.CUSTOM) {
+            hash = hash(mix(hash, 0), diagnostics.message(i));
+        } else {
+            hash = mix(hash, diagnostics.argument(i));
+        }
+        return finish(hash);
+    }
+
+    // Directorio de la línea base file, sin enlaces simbólicos
+    static Path root(Path file) {
+        return realPath(file.toAbsolutePath().normalize().getParent());
+    }
+
+    /**
+     * relativePath() - Ruta del archivo path respecto a root, con '/' como separador, sea cual sea
+     * el directorio de trabajo o la forma en que se escribió ("d/a.vb", "./d/a.vb", "/tmp/z/d/a.vb"
+     * o "a.vb" desde d/ son la misma). Las entradas de un archivo comprimido conservan su ruta
+     * interior tras "!/", y los archivos fuera de root quedan con su ruta absoluta.
+     */
+    static String relativePath(Path root, String path) {
+        if (path.equals("-")) {
+            return path;
+        }
+        String entry = "";
+        if (ArchiveSources.isEntry(path)) {
+            int separator = path.indexOf(ArchiveSources.SEPARATOR);
+            entry = path.substring(separator);
+            path = path.substring(0, separator);
+        }
+        Path file = realPath(Paths.get(path).toAbsolutePath().normalize());
+        String relative = file.startsWith(root) ? root.relativize(file).toString() : file.toString();
+        return relative.replace('\\', '/') + entry;
+    }
+
+    // Ruta real del antepasado más cercano que existe, seguida del resto de la ruta
+    private static Path realPath(Path path) {
+        for (Path existing = path; existing != null; existing = existing.getParent()) {
+            try {
+                return existing.toRealPath().resolve(existing.relativize(path));
+            } catch (IOException e) {
+                // Todavía no existe: se prueba con el directorio que lo contiene
+            }
+        }
+        return path;
+    }
+
+    static long fileHash(String path) {
+        return mix(hash(0xCBF29CE484222325L, path), 0);
+    }
+
+    // Contenido de la línea sin espacios en los extremos y con cada secuencia de espacios como uno
+    private static long hashLine(long hash, CharSequence line) {
+        boolean space = false;
+        boolean started = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (VBScriptScanner.isSpace(c)) {
+                space = started;
+            } else {
+                if (space) {
+                    hash = mix(hash, ' ');
+                    space = false;
+                }
+                hash = mix(hash, c);
+                started = true;
+            }
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            hash = mix(hash, text.charAt(i));
+        }
+        return hash;
+    }
+
+    // FNV-1a sobre valores de 32 bits; estable entre ejecuciones y versiones de Java (el archivo
+    // depende de ella: cambiarla exige subir FORMAT_VERSION)
+    private static long mix(long hash, int value) {
+        return (hash ^ (value & 0xFFFFFFFFL)) * 0x100000001B3L;
+    }
+
+    // Mezcla final (la de MurmurHash3) para repartir las huellas entre las cubetas
+    private static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB93FE1A85A53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,146 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Valida varios archivos en paralelo sobre un ForkJoinPool (con robo de trabajo) del tamaño
+ * indicado en las opciones. Al terminar imprime un resumen con el rendimiento de la ejecución.
+ * Con un CorpusStatistics, cada hilo registra en él el resultado de sus archivos.
+ */
+public class BatchValidator {
+    // Códigos de salida agregados
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_ERRORS_FOUND = 1;
+    public static final int EXIT_IO_ERROR = 2;
+
+    private final Options options;
+    private final FileValidator fileValidator;
+    private final CorpusStatistics corpus;
+
+    public BatchValidator(Options options, FileValidator fileValidator) {
+        this(options, fileValidator, null);
+    }
+
+    public BatchValidator(Options options, FileValidator fileValidator, CorpusStatistics corpus) {
+        this.options = options;
+        this.fileValidator = fileValidator;
+        this.corpus = corpus;
+    }
+
+    /**
+     * run() - Valida todos los archivos y devuelve el código de salida agregado:
+     * 0 sin errores, 1 si algún archivo tiene errores, 2 si algún archivo no pudo leerse.
+     */
+    public int run(List<String> files) throws InterruptedException {
+        return run(files, null);
+    }
+
+    /**
+     * run() - Con contents, cada archivo se valida con el contenido indicado (por ejemplo, leído de
+     * git) en lugar de leerlo del disco.
+     */
+    public int run(List<String> files, Map<String, byte[]> contents) throws InterruptedException {
+        long start = System.nanoTime();
+        List<Callable<ValidationResult>> tasks = new ArrayList<>();
+        for (String file : files) {
+            byte[] content = contents != null ? contents.get(file) : null;
+            tasks.add(() -> validate(file, content));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(options.effectiveThreads());
+        List<Future<ValidationResult>> futures;
+        try {
+            futures = pool.invokeAll(tasks);
+        } finally {
+            pool.shutdown();
+        }
+
+        int filesWithErrors = 0;
+        int failedFiles = 0;
+        long totalBytes = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                ValidationResult result = futures.get(i).get();
+                totalBytes += result.getBytes();
+                if (result.hasErrors()) {
+                    filesWithErrors++;
+                    if (options.machineOutput()) {
+                        System.out.println("Errores en " + result.getPath());
+                    } else {
+                        printFileWithErrors(result.getPath(), options.reportDir);
+                    }
+                }
+            } catch (ExecutionException e) {
+                failedFiles++;
+                if (corpus != null) {
+                    corpus.recordFailure();
+                }
+                System.err.println("Error al leer el archivo " + files.get(i) + ": " + failureMessage(e));
+                writeFailure(files.get(i), failureMessage(e));
+            }
+        }
+
+        printSummary(files.size(), filesWithErrors, failedFiles, totalBytes, start, options.effectiveThreads());
+        return exitCode(filesWithErrors, failedFiles);
+    }
+
+    private ValidationResult validate(String file, byte[] content) throws IOException {
+        ValidationResult result = content != null ? fileValidator.validate(file, content) : fileValidator.validate(file);
+        if (corpus != null) {
+            corpus.record(result);
+        }
+        return result;
+    }
+
+    // Los archivos no validados también se registran en la salida JSON Lines o SARIF
+    private void writeFailure(String file, String message) {
+        DiagnosticWriter diagnosticWriter = fileValidator.getDiagnosticWriter();
+        if (diagnosticWriter == null) {
+            return;
+        }
+        try {
+            diagnosticWriter.writeFailure(file, message);
+        } catch (IOException e) {
+            System.err.println("Error al escribir la salida " + options.outputPath() + ": " + e.getMessage());
+        }
+    }
+
+    static void printFileWithErrors(String path) {
+        printFileWithErrors(path, null);
+    }
+
+    static void printFileWithErrors(String path, String reportDir) {
+        System.out.println("Errores en " + path + ". Revise el archivo " + FileValidator.basePath(path, reportDir) + "-Errores.txt");
+    }
+
+    // Mensaje de la excepción que impidió validar un archivo
+    static String failureMessage(ExecutionException e) {
+        // ForkJoinPool envuelve las excepciones comprobadas en RuntimeException
+        Throwable cause = e.getCause();
+        while (cause instanceof RuntimeException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof IOException ? cause.getMessage() : cause.toString();
+    }
+
+    // Resumen de rendimiento de una ejecución que empezó en startNanos
+    static void printSummary(int files, int filesWithErrors, int failedFiles, long totalBytes, long startNanos, int threads) {
+        double seconds = Math.max((System.nanoTime() - startNanos) / 1e9, 1e-9);
+        System.out.println("------------------------------------");
+        System.out.printf("Archivos analizados: %d (con errores: %d, fallidos: %d)%n", files, filesWithErrors, failedFiles);
+        System.out.printf("Tiempo: %.3f s | %.1f archivos/s | %.2f MB/s | %d hilos%n",
+            seconds, files / seconds, totalBytes / (1024.0 * 1024.0) / seconds, threads);
+    }
+
+    static int exitCode(int filesWithErrors, int failedFiles) {
+        if (failedFiles > 0) {
+            return EXIT_IO_ERROR;
+        }
+        return filesWithErrors > 0 ? EXIT_ERRORS_FOUND : EXIT_OK;
+    }
+}
@@ -0,0 +1,115 @@
+import java.util.Arrays;
+
+/**
+ * Pila de bloques abiertos (Sub Main, Try/Catch, While). Guarda el tipo, la línea y la columna
+ * del token de apertura en arrays primitivos, sin conservar el token.
+ */
+public class BlockStack {
+    private static final Token.Type[] TYPES = Token.Type.values();
+
+    private int[] types = new int[8];
+    private int[] lines = new int[8];
+    private int[] columns = new int[8];
+    private int size = 0;
+
+    public void push(Token.Type type, int line, int column) {
+        if (size == types.length) {
+            types = Arrays.copyOf(types, size * 2);
+            lines = Arrays.copyOf(lines, size * 2);
+            columns = Arrays.copyOf(columns, size * 2);
+        }
+        types[size] = type.ordinal();
+        lines[size] = line;
+        columns[size] = column;
+        size++;
+    }
+
+    public void pop() {
+        size--;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public Token.Type peekType() {
+        return TYPES[types[size - 1]];
+    }
+
+    public int peekLine() {
+        return lines[size - 1];
+    }
+
+    public int peekColumn() {
+        return columns[size - 1];
+    }
+
+    // Acceso por posición, desde el fondo (0) hasta la cima (size() - 1)
+    public int size() {
+        return size;
+    }
+
+    public Token.Type type(int index) {
+        return TYPES[types[index]];
+    }
+
+    public int line(int index) {
+        return lines[index];
+    }
+
+    public int column(int index) {
+        return columns[index];
+    }
+
+    public BlockStack copy() {
+        BlockStack copy = new BlockStack();
+        copy.types = Arrays.copyOf(types, Math.max(size, 8));
+        copy.lines = Arrays.copyOf(lines, Math.max(size, 8));
+        copy.columns = Arrays.copyOf(columns, Math.max(size, 8));
+        copy.size = size;
+        return copy;
+    }
+
+    // Mismos bloques abiertos, en el mismo orden y en las mismas posiciones
+    public boolean sameAs(BlockStack other) {
+        if (size != other.size) {
+            return false;
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            if (types[i] != other.types[i] || lines[i] != other.lines[i] || columns[i] != other.columns[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * depthAfter() - Profundidad de anidamiento tras un token: cada apertura de Sub Main, Try o
+     * While la aumenta y cada End Sub, End Try o End While la reduce, sin bajar de 0, aunque no
+     * cierre el bloque de la cima (es un contador, no la pila). Solo depende de la secuencia de
+     * tipos de token, así que es la misma en todos los modos de análisis.
+     */
+    public static int depthAfter(int depth, Token.Type type) {
+        switch (type) {
+            case SUB_MAIN:
+            case TRY:
+            case WHILE:
+                return depth + 1;
+            case END_SUB:
+            case END_TRY:
+            case END_WHILE:
+                return Math.max(depth - 1, 0);
+            default:
+                return depth;
+        }
+    }
+
+    // Desplaza las líneas de los bloques abiertos en fromLine o después (líneas insertadas o eliminadas)
+    public void shiftLines(int fromLine, int delta) {
+        for (int i = 0; i < size; i++) {
+            if (lines[i] >= fromLine) {
+                lines[i] += delta;
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estadísticas agregadas de todos los archivos de una ejecución (--corpus-report).
+ *
+ * Los hilos de validación llaman a record() con el resultado de cada archivo sin bloqueos: los
+ * contadores son LongAdder y los histogramas (tamaño en bytes, tokens, profundidad de anidamiento
+ * máxima y tiempo de validación en microsegundos) son Histogram. Los totales no dependen del
+ * orden de los archivos ni del número de hilos.
+ */
+public class CorpusStatistics {
+    private final LongAdder files = new LongAdder();
+    private final LongAdder filesWithErrors = new LongAdder();
+    private final LongAdder failedFiles = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    // Un contador por cada uno de ParserStatistics.COUNTER_NAMES
+    private final LongAdder[] counters = new LongAdder[ParserStatistics.COUNTER_NAMES.length];
+
+    public final Histogram fileBytes = new Histogram();
+    public final Histogram tokens = new Histogram();
+    public final Histogram nestingDepth = new Histogram();
+    public final Histogram validationMicros = new Histogram();
+
+    public CorpusStatistics() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * record() - Añade el resultado de un archivo. Los resultados sin contadores (los del
+     * demonio) solo cuentan como archivo.
+     */
+    public void record(ValidationResult result) {
+        files.increment();
+        if (result.hasErrors()) {
+            filesWithErrors.increment();
+        }
+        errors.add(result.getErrorCount());
+        if (result.getStats() == null) {
+            return;
+        }
+        long[] values = result.getStats().toArray();
+        for (int i = 0; i < values.length; i++) {
+            counters[i].add(values[i]);
+        }
+        fileBytes.record(result.getBytes());
+        tokens.record(result.getTokens());
+        nestingDepth.record(result.getMaxNestingDepth());
+        validationMicros.record(result.getNanos() / 1000);
+    }
+
+    // Archivo que no pudo validarse
+    public void recordFailure() {
+        failedFiles.increment();
+    }
+
+    /**
+     * merge() - Añade a estas estadísticas las de other y devuelve this.
+     */
+    public CorpusStatistics merge(CorpusStatistics other) {
+        files.add(other.files.sum());
+        filesWithErrors.add(other.filesWithErrors.sum());
+        failedFiles.add(other.failedFiles.sum());
+        errors.add(other.errors.sum());
+        for (int i = 0; i < counters.length; i++) {
+            counters[i].add(other.counters[i].sum());
+        }
+        fileBytes.merge(other.fileBytes);
+        tokens.merge(other.tokens);
+        nestingDepth.merge(other.nestingDepth);
+        validationMicros.merge(other.validationMicros);
+        return this;
+    }
+
+    // Suma de los contadores de todos los archivos
+    public ParserStatistics totals() {
+        long[] values = new long[counters.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = counters[i].sum();
+        }
+        return ParserStatistics.fromArray(values);
+    }
+
+    public long files() {
+        return files.sum();
+    }
+
+    /**
+     * toText() - Informe legible: totales, contadores agregados y un resumen de cada histograma.
+     */
+    public String toText() {
+        StringBuilder text = new StringBuilder();
+        text.append("------------------------------------\n");
+        text.append("Informe del corpus\n");
+        text.append(String.format("Archivos: %d (con errores: %d, fallidos: %d) | Errores: %d%n",
+            files.sum(), filesWithErrors.sum(), failedFiles.sum(), errors.sum()));
+        text.append(totals().getStatistics());
+        appendHistogram(text, "Tamaño (bytes)", fileBytes);
+        appendHistogram(text, "Tokens", tokens);
+        appendHistogram(text, "Profundidad de anidamiento", nestingDepth);
+        appendHistogram(text, "Tiempo de validación (µs)", validationMicros);
+        return text.toString();
+    }
+
+    private static void appendHistogram(StringBuilder text, String name, Histogram histogram) {
+        text.append(String.format("%s: mín %d | media %.1f | p50 %d | p90 %d | p99 %d | máx %d%n", name,
+            histogram.min(), histogram.mean(), histogram.percentile(0.50), histogram.percentile(0.90),
+            histogram.percentile(0.99), histogram.max()));
+    }
+
+    /**
+     * toJson() - Informe como objeto JSON con las secciones "files", "counters" y "histograms".
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"files\": {")
+            .append("\"total\": ").append(files.sum())
+            .append(", \"withErrors\": ").append(filesWithErrors.sum())
+            .append(", \"failed\": ").append(failedFiles.sum())
+            .append(", \"errors\": ").append(errors.sum())
+            .append('}');
+        json.append(",\n  \"counters\": {");
+        String separator = "\n";
+        for (int i = 0; i < counters.length; i++) {
+            json.append(separator).append("    ").append(Metrics.quote(ParserStatistics.COUNTER_NAMES[i]))
+                .append(": ").append(counters[i].sum());
+            separator = ",\n";
+        }
+        json.append("\n  },\n  \"histograms\": {")
+            .append("\n    \"fileBytes\": ").append(fileBytes.toJson())
+            .append(",\n    \"tokens\": ").append(tokens.toJson())
+            .append(",\n    \"nestingDepth\": ").append(nestingDepth.toJson())
+            .append(",\n    \"validationMicros\": ").append(validationMicros.toJson())
+            .append("\n  }\n}\n");
+        return json.toString();
+    }
+}
@@ -0,0 +1,180 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cliente ligero del demonio de validación (--client).
+ *
+ * Envía al demonio los archivos de la línea de comandos (o el código leído de la entrada
+ * estándar) y muestra el resultado con los mismos mensajes y códigos de salida que la
+ * validación en el propio proceso. Cada conexión se autentica con el testigo del demonio
+ * (ValidationDaemon.tokenFile()). Si no hay ningún demonio escuchando, run() devuelve
+ * NOT_RUNNING y Main valida localmente.
+ */
+public class DaemonClient {
+    public static final int NOT_RUNNING = -1;
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+
+    /**
+     * run() - Valida a través del demonio y devuelve el código de salida, o NOT_RUNNING.
+     * stdinLines no es null cuando la entrada es "-".
+     */
+    public static int run(Options options, List<String> stdinLines) throws IOException {
+        Socket socket = connect(options.port);
+        if (socket == null) {
+            return NOT_RUNNING;
+        }
+        try (Socket connection = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8))) {
+            long start = System.nanoTime();
+            boolean singleFile = stdinLines == null && Main.isSingleFile(options.inputs);
+            List<String> files = stdinLines != null ? new ArrayList<>()
+                : singleFile ? options.inputs : InputCollector.collect(options.inputs);
+
+            if (stdinLines != null) {
+                writeLine(out, "SOURCE " + stdinLines.size() + " -");
+                for (String line : stdinLines) {
+                    writeLine(out, line);
+                }
+            }
+            for (String file : files) {
+                // El demonio puede tener otro directorio de trabajo
+                writeLine(out, "FILE " + Paths.get(file).toAbsolutePath());
+            }
+            writeLine(out, "RUN");
+            out.flush();
+
+            List<ValidationResult> results = new ArrayList<>();
+            List<String> failures = new ArrayList<>();
+            int threads = readResults(in, results, failures);
+
+            if (stdinLines != null) {
+                return Main.printDiagnostics(results.get(0).getDiagnostics());
+            }
+            if (singleFile) {
+                if (failures.get(0) != null) {
+                    System.err.println("Error al leer el archivo: " + failures.get(0));
+                    return BatchValidator.EXIT_IO_ERROR;
+                }
+                Main.printResult(results.get(0).hasErrors(), FileValidator.basePath(files.get(0)));
+                return BatchValidator.EXIT_OK;
+            }
+
+            int filesWithErrors = 0;
+            int failedFiles = 0;
+            long totalBytes = 0;
+            for (int i = 0; i < files.size(); i++) {
+                if (failures.get(i) != null) {
+                    failedFiles++;
+                    System.err.println("Error al leer el archivo " + files.get(i) + ": " + failures.get(i));
+                    continue;
+                }
+                totalBytes += results.get(i).getBytes();
+                if (results.get(i).hasErrors()) {
+                    filesWithErrors++;
+                    BatchValidator.printFileWithErrors(files.get(i));
+                }
+            }
+            BatchValidator.printSummary(files.size(), filesWithErrors, failedFiles, totalBytes, start, threads);
+            return BatchValidator.exitCode(filesWithErrors, failedFiles);
+        }
+    }
+
+    /**
+     * shutdown() - Pide al demonio que se detenga. Devuelve false si no había ninguno.
+     */
+    public static boolean shutdown(int port) throws IOException {
+        Socket socket = connect(port);
+        if (socket == null) {
+            return false;
+        }
+        try (Socket connection = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8))) {
+            writeLine(out, "SHUTDOWN");
+            out.flush();
+            return "BYE".equals(in.readLine());
+        }
+    }
+
+    // Conexión autenticada con el demonio, o null si este usuario no tiene ninguno escuchando en el puerto
+    private static Socket connect(int port) throws IOException {
+        String token = ValidationDaemon.readToken(port);
+        if (token == null) {
+            return null;
+        }
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT_MILLIS);
+            socket.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+            OutputStream out = socket.getOutputStream();
+            out.write(("AUTH " + token + "\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            if (!"OK".equals(readLine(socket.getInputStream()))) {
+                // Testigo de un demonio que ya terminó, y otro proceso en el puerto
+                System.err.println("El proceso del puerto " + port + " no aceptó el testigo de " + ValidationDaemon.tokenFile(port));
+                socket.close();
+                return null;
+            }
+            socket.setSoTimeout(0);
+            return socket;
+        } catch (IOException e) {
+            socket.close();
+            return null;
+        }
+    }
+
+    // Lee la respuesta a AUTH byte a byte, sin adelantar la lectura de las respuestas siguientes
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) >= 0 && c != '\n') {
+            line.append((char) c);
+        }
+        return c < 0 ? null : line.toString();
+    }
+
+    // Lee la respuesta a RUN; failures tiene un elemento por resultado (null si se validó)
+    private static int readResults(BufferedReader in, List<ValidationResult> results, List<String> failures) throws IOException {
+        DiagnosticStore diagnostics = null;
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.startsWith("RESULT ")) {
+                String[] parts = line.split(" ", 4);
+                diagnostics = new DiagnosticStore();
+                results.add(new ValidationResult(parts[3], parts[1].equals("ERRORS"), Long.parseLong(parts[2]), diagnostics));
+                failures.add(null);
+            } else if (line.startsWith("DIAG ")) {
+                String[] parts = line.split(" ", 4);
+                diagnostics.add(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), parts[3]);
+            } else if (line.startsWith("FAILURE ")) {
+                String message = line.substring("FAILURE ".length());
+                if (failures.isEmpty()) {
+                    throw new IOException(message);
+                }
+                failures.set(failures.size() - 1, message);
+            } else if (line.startsWith("DONE")) {
+                String[] parts = line.split(" ");
+                return parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+            }
+        }
+        throw new IOException("El demonio cerró la conexión antes de terminar el lote");
+    }
+
+    private static void writeLine(BufferedWriter out, String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+    }
+}
@@ -0,0 +1,204 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Almacén compacto de diagnósticos.
+ *
+ * Guarda cada diagnóstico como (línea, columna, código, argumento) en arrays primitivos que
+ * crecen según se necesita, sin objetos por diagnóstico ni claves Integer. Admite varios
+ * diagnósticos por línea y se recorre ordenado por línea (conservando el orden de reporte
+ * dentro de la misma línea). Los mensajes se generan al escribir el informe.
+ */
+public class DiagnosticStore {
+    private int[] lines = new int[16];
+    private int[] columns = new int[16];
+    private int[] codes = new int[16];
+    private int[] arguments = new int[16];
+    private int size = 0;
+    private boolean sorted = true;
+
+    // Textos libres de los diagnósticos ErrorCode.CUSTOM (el argumento es su índice)
+    private final List<String> messages = new ArrayList<>();
+
+    private static final ErrorCode[] CODES = ErrorCode.values();
+
+    public void add(int line, int column, ErrorCode code, int argument) {
+        if (size == lines.length) {
+            int capacity = size * 2;
+            lines = Arrays.copyOf(lines, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+            codes = Arrays.copyOf(codes, capacity);
+            arguments = Arrays.copyOf(arguments, capacity);
+        }
+        if (size > 0 && line < lines[size - 1]) {
+            sorted = false;
+        }
+        lines[size] = line;
+        columns[size] = column;
+        codes[size] = code.ordinal();
+        arguments[size] = argument;
+        size++;
+    }
+
+    public void add(int line, int column, String message) {
+        messages.add(message);
+        add(line, column, ErrorCode.CUSTOM, messages.size() - 1);
+    }
+
+    // Copia un diagnóstico de otro almacén
+    public void add(DiagnosticStore other, int index) {
+        if (other.code(index) == ErrorCode.CUSTOM) {
+            add(other.line(index), other.column(index), other.message(index));
+        } else {
+            add(other.line(index), other.column(index), other.code(index), other.argument(index));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+        sorted = true;
+        messages.clear();
+    }
+
+    // Elimina los diagnósticos i con removed[i], conservando el orden de los demás
+    public void remove(boolean[] removed) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!removed[i]) {
+                lines[kept] = lines[i];
+                columns[kept] = columns[i];
+                codes[kept] = codes[i];
+                arguments[kept] = arguments[i];
+                kept++;
+            }
+        }
+        size = kept;
+    }
+
+    public int line(int index) {
+        return lines[index];
+    }
+
+    public int column(int index) {
+        return columns[index];
+    }
+
+    public ErrorCode code(int index) {
+        return CODES[codes[index]];
+    }
+
+    public int argument(int index) {
+        return arguments[index];
+    }
+
+    // Mensaje del diagnóstico, tal y como aparece en el informe (sin el prefijo "Error: ")
+    public String message(int index) {
+        if (codes[index] == ErrorCode.CUSTOM.ordinal()) {
+            return messages.get(arguments[index]);
+        }
+        return CODES[codes[index]].format(arguments[index]);
+    }
+
+    /**
+     * replaceLines() - Sustituye los diagnósticos de las líneas [fromLine, toLine) por los de
+     * replacement (que solo debe contener líneas de [fromLine, toLine + lineDelta)) y desplaza
+     * lineDelta las líneas posteriores.
+     */
+    public void replaceLines(int fromLine, int toLine, int lineDelta, DiagnosticStore replacement) {
+        sort();
+        replacement.sort();
+        int from = firstAtOrAfter(fromLine);
+        int to = firstAtOrAfter(toLine);
+        int tail = size - to;
+        int target = from + replacement.size();
+        int newSize = target + tail;
+
+        if (newSize > lines.length) {
+            int capacity = Math.max(newSize, lines.length * 2);
+            lines = Arrays.copyOf(lines, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+            codes = Arrays.copyOf(codes, capacity);
+            arguments = Arrays.copyOf(arguments, capacity);
+        }
+        if (target != to) {
+            System.arraycopy(lines, to, lines, target, tail);
+            System.arraycopy(columns, to, columns, target, tail);
+            System.arraycopy(codes, to, codes, target, tail);
+            System.arraycopy(arguments, to, arguments, target, tail);
+        }
+        if (lineDelta != 0) {
+            for (int i = target; i < newSize; i++) {
+                lines[i] += lineDelta;
+            }
+        }
+
+        for (int i = 0, j = from; i < replacement.size(); i++, j++) {
+            lines[j] = replacement.lines[i];
+            columns[j] = replacement.columns[i];
+            if (replacement.codes[i] == ErrorCode.CUSTOM.ordinal()) {
+                messages.add(replacement.message(i));
+                codes[j] = ErrorCode.CUSTOM.ordinal();
+                arguments[j] = messages.size() - 1;
+            } else {
+                codes[j] = replacement.codes[i];
+                arguments[j] = replacement.arguments[i];
+            }
+        }
+        size = newSize;
+    }
+
+    // Índice del primer diagnóstico con línea >= line (búsqueda binaria sobre el almacén ordenado)
+    private int firstAtOrAfter(int line) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (lines[middle] < line) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * sort() - Ordena por línea de forma estable. No hace nada si ya se reportaron en orden.
+     */
+    public void sort() {
+        if (sorted) {
+            return;
+        }
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((long) lines[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        int[] sortedLines = new int[lines.length];
+        int[] sortedColumns = new int[lines.length];
+        int[] sortedCodes = new int[lines.length];
+        int[] sortedArguments = new int[lines.length];
+        for (int i = 0; i < size; i++) {
+            int from = (int) keys[i];
+            sortedLines[i] = lines[from];
+            sortedColumns[i] = columns[from];
+            sortedCodes[i] = codes[from];
+            sortedArguments[i] = arguments[from];
+        }
+        lines = sortedLines;
+        columns = sortedColumns;
+        codes = sortedCodes;
+        arguments = sortedArguments;
+        sorted = true;
+    }
+}
@@ -0,0 +1,144 @@
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Salida de diagnósticos legible por máquina (--format=jsonl o --format=sarif), sin el código
+ * fuente.
+ *
+ * Hay una única salida para toda la ejecución, compartida por los hilos de validación. Los
+ * registros se escriben a medida que termina cada archivo (o cada línea, en modo streaming) a
+ * través de un buffer de tamaño fijo, así que la memoria no crece con el número de archivos.
+ * Los registros de un archivo validado de una vez se escriben juntos y ordenados por línea.
+ */
+public abstract class DiagnosticWriter implements Closeable {
+    // Códigos de los errores que no proceden del parser
+    public static final String LINE_TOO_LONG = "LINE_TOO_LONG";
+    public static final String SUMMARY = "SUMMARY";
+    static final String LINE_TOO_LONG_MESSAGE = "la línea excede los 90 caracteres.";
+    static final int MAX_LINE_LENGTH = 90;
+
+    protected final Writer out;
+
+    protected DiagnosticWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * open() - Abre la salida del formato indicado ("jsonl" o "sarif") en la ruta dada, o en la
+     * salida estándar con "-".
+     */
+    public static DiagnosticWriter open(String format, String output) throws IOException {
+        Writer out = output.equals("-")
+            ? new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8))
+            : Files.newBufferedWriter(Paths.get(output));
+        switch (format) {
+            case "jsonl":
+                return new JsonLinesWriter(out);
+            case "sarif":
+                return new SarifWriter(out);
+            default:
+                out.close();
+                throw new IllegalArgumentException("Formato de salida desconocido: " + format);
+        }
+    }
+
+    /**
+     * writeFile() - Diagnósticos y resumen de un archivo validado de una vez. Las líneas de más
+     * de 90 caracteres se detectan sobre el contenido en bytes.
+     */
+    public synchronized void writeFile(String file, SourceText source, DiagnosticStore diagnostics, ParserStatistics stats) throws IOException {
+        diagnostics.sort();
+        LineIndex index = source.index();
+        int next = 0;
+        int count = diagnostics.size();
+        for (int i = 0; i < index.count(); i++) {
+            if (index.end(i) - index.start(i) > MAX_LINE_LENGTH && source.charLength(i) > MAX_LINE_LENGTH) {
+                // En el informe, el error de longitud precede a los demás errores de la línea
+                next = writeDiagnostics(file, diagnostics, next, i + 1);
+                diagnostic(file, i + 1, 0, LINE_TOO_LONG, LINE_TOO_LONG_MESSAGE);
+                count++;
+            }
+        }
+        writeDiagnostics(file, diagnostics, next, Integer.MAX_VALUE);
+        summary(file, stats, count);
+    }
+
+    /**
+     * writeLine() - Errores de una línea en modo streaming: el de longitud y los del parser.
+     */
+    public synchronized int writeLine(String file, int lineNumber, String lineText, DiagnosticStore lineDiagnostics) throws IOException {
+        int count = lineDiagnostics.size();
+        if (lineText.length() > MAX_LINE_LENGTH) {
+            diagnostic(file, lineNumber, 0, LINE_TOO_LONG, LINE_TOO_LONG_MESSAGE);
+            count++;
+        }
+        writeDiagnostics(file, lineDiagnostics, 0, Integer.MAX_VALUE);
+        return count;
+    }
+
+    // Errores reportados al final del análisis en modo streaming (estructuras sin cerrar)
+    public synchronized void writeDiagnostics(String file, DiagnosticStore diagnostics) throws IOException {
+        writeDiagnostics(file, diagnostics, 0, Integer.MAX_VALUE);
+    }
+
+    // Resumen de un archivo; errorCount cuenta los errores ya escritos de ese archivo
+    public synchronized void writeSummary(String file, ParserStatistics stats, int errorCount) throws IOException {
+        summary(file, stats, errorCount);
+    }
+
+    // Archivo que no pudo validarse
+    public synchronized void writeFailure(String file, String message) throws IOException {
+        failure(file, message);
+    }
+
+    // Escribe los diagnósticos desde next hasta el primero de la línea beforeLine o posterior
+    private int writeDiagnostics(String file, DiagnosticStore diagnostics, int next, int beforeLine) throws IOException {
+        while (next < diagnostics.size() && diagnostics.line(next) < beforeLine) {
+            diagnostic(file, diagnostics.line(next), diagnostics.column(next), diagnostics.code(next).name(),
+                diagnostics.message(next));
+            next++;
+        }
+        return next;
+    }
+
+    // Un diagnóstico; column empieza en 0
+    protected abstract void diagnostic(String file, int line, int column, String code, String message) throws IOException;
+
+    // Contadores y descuadres del resumen; errorCount no incluye los descuadres
+    protected abstract void summary(String file, ParserStatistics stats, int errorCount) throws IOException;
+
+    protected abstract void failure(String file, String message) throws IOException;
+
+    // Contadores como objeto JSON
+    static String statsJson(ParserStatistics stats) {
+        long[] counters = stats.toArray();
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < counters.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('"').append(ParserStatistics.COUNTER_NAMES[i]).append("\":").append(counters[i]);
+        }
+        return json.append('}').toString();
+    }
+
+    static String jsonArray(List<String> values) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(Metrics.quote(values.get(i)));
+        }
+        return json.append(']').toString();
+    }
+}
@@ -0,0 +1,238 @@
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Modo --watch: vigila árboles de directorios y vuelve a validar los archivos .vb que cambian.
+ *
+ * Al arrancar se validan todos los archivos vigilados. Después, los eventos que llegan seguidos
+ * (un editor suele generar varios por guardado) se agrupan hasta que pasan debounceMillis sin
+ * cambios, y solo se validan los archivos afectados cuyo tamaño o fecha de modificación difieren
+ * de la última validación. Si se pierden eventos (OVERFLOW), se revisan los tamaños y fechas de
+ * todos los archivos del directorio. El FileValidator y el ForkJoinPool se mantienen durante toda la
+ * sesión, así que el código ya está compilado por el JIT cuando llegan los cambios.
+ */
+public class DirectoryWatcher {
+    private final Options options;
+    private final FileValidator fileValidator;
+    private final ForkJoinPool pool;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    // Archivos indicados explícitamente; si está vacío se vigilan todos los .vb
+    private final Set<Path> files = new HashSet<>();
+    // Tamaño y fecha de modificación de cada archivo en su última validación
+    private final Map<Path, String> lastValidated = new HashMap<>();
+
+    public DirectoryWatcher(Options options, FileValidator fileValidator) throws IOException {
+        this.options = options;
+        this.fileValidator = fileValidator;
+        this.pool = new ForkJoinPool(options.effectiveThreads());
+        this.watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    /**
+     * run() - Registra las entradas y valida los cambios hasta que se interrumpe el proceso.
+     */
+    public void run(List<String> inputs) throws IOException, InterruptedException {
+        for (String input : inputs) {
+            Path path = Paths.get(input).toAbsolutePath().normalize();
+            if (Files.isDirectory(path)) {
+                registerTree(path);
+            } else {
+                files.add(path);
+                register(path.getParent());
+            }
+        }
+        // Validación inicial: muestra el estado de partida, registra las fechas de modificación
+        // y deja compilado por el JIT el código de lexer, parser e informe
+        Set<Path> initial = new LinkedHashSet<>(files);
+        if (files.isEmpty()) {
+            for (Path directory : directories.values()) {
+                try (Stream<Path> list = Files.list(directory)) {
+                    list.filter(this::isWatched).forEach(initial::add);
+                }
+            }
+        }
+        validate(initial);
+        System.out.println("Vigilando " + directories.size() + " directorios. Pulse Ctrl+C para terminar.");
+
+        try {
+            while (true) {
+                Set<Path> changed = new LinkedHashSet<>();
+                collect(watchService.take(), changed);
+                // Agrupar la ráfaga de eventos: esperar a que pase debounceMillis sin cambios
+                WatchKey key;
+                while ((key = watchService.poll(options.debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    collect(key, changed);
+                }
+                validate(changed);
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Servicio cerrado: fin de la sesión
+        } finally {
+            pool.shutdown();
+            watchService.close();
+        }
+    }
+
+    private void collect(WatchKey key, Set<Path> changed) throws IOException {
+        Path directory = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (directory == null) {
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Se han perdido eventos del directorio: se revisa entero
+                rescan(directory, changed);
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && files.isEmpty()
+                    && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                // Directorio nuevo: vigilarlo y validar los .vb que ya contenga
+                registerTree(path);
+                try (Stream<Path> walk = Files.walk(path)) {
+                    walk.filter(this::isWatched).forEach(changed::add);
+                }
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                lastValidated.remove(path);
+            } else if (isWatched(path)) {
+                changed.add(path);
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+    }
+
+    // Tras un OVERFLOW: añade los archivos vigilados del directorio (validate() descarta los que
+    // no han cambiado desde su última validación), olvida los eliminados y vigila los
+    // subdirectorios nuevos
+    private void rescan(Path directory, Set<Path> changed) throws IOException {
+        lastValidated.keySet().removeIf(path -> directory.equals(path.getParent()) && !Files.exists(path));
+        Set<Path> registered = new HashSet<>(directories.values());
+        List<Path> entries = new ArrayList<>();
+        try (Stream<Path> list = Files.list(directory)) {
+            list.forEach(entries::add);
+        } catch (IOException e) {
+            // Directorio eliminado: su clave deja de ser válida
+            return;
+        }
+        for (Path path : entries) {
+            if (files.isEmpty() && !registered.contains(path) && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                registerTree(path);
+                try (Stream<Path> walk = Files.walk(path)) {
+                    walk.filter(this::isWatched).forEach(changed::add);
+                }
+            } else if (isWatched(path)) {
+                changed.add(path);
+            }
+        }
+    }
+
+    private boolean isWatched(Path path) {
+        if (!files.isEmpty()) {
+            return files.contains(path);
+        }
+        return path.getFileName().toString().toLowerCase().endsWith(".vb");
+    }
+
+    // Valida en paralelo los archivos que siguen existiendo y han cambiado desde su última validación
+    private void validate(Set<Path> changed) throws InterruptedException {
+        long start = System.nanoTime();
+        List<String> paths = new ArrayList<>();
+        List<String> stamps = new ArrayList<>();
+        for (Path path : changed) {
+            String stamp = stamp(path);
+            if (stamp != null && !stamp.equals(lastValidated.get(path))) {
+                paths.add(path.toString());
+                stamps.add(stamp);
+            }
+        }
+        if (paths.isEmpty()) {
+            return;
+        }
+        NamespaceIndex index = fileValidator.getNamespaceIndex();
+        if (index != null) {
+            // Los espacios de nombres declarados por los archivos cambiados resuelven ya sus Imports
+            // (la primera vez se recorre además el proyecto)
+            try {
+                index.update(paths, pool);
+                index.save(Paths.get(options.importsIndex));
+            } catch (IOException e) {
+                System.err.println("No se pudo actualizar el índice de Imports: " + e.getMessage());
+            }
+        }
+
+        List<Callable<ValidationResult>> tasks = new ArrayList<>();
+        for (String path : paths) {
+            tasks.add(() -> fileValidator.validate(path));
+        }
+        List<Future<ValidationResult>> futures = pool.invokeAll(tasks);
+        double millis = (System.nanoTime() - start) / 1e6;
+
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                ValidationResult result = futures.get(i).get();
+                lastValidated.put(Paths.get(paths.get(i)), stamps.get(i));
+                if (result.hasErrors()) {
+                    BatchValidator.printFileWithErrors(result.getPath(), options.reportDir);
+                } else {
+                    System.out.println("Sin errores en " + result.getPath());
+                }
+            } catch (ExecutionException e) {
+                System.err.println("Error al leer el archivo " + paths.get(i) + ": " + BatchValidator.failureMessage(e));
+            }
+        }
+        System.out.printf("Validados %d archivos en %.1f ms%n", paths.size(), millis);
+    }
+
+    // Tamaño y fecha de modificación, o null si el archivo ya no existe
+    private static String stamp(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+            return attributes.size() + ":" + attributes.lastModifiedTime().to(TimeUnit.MICROSECONDS);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void registerTree(Path root) throws IOException {
+        try (Stream<Path> walk = Files.walk(root)) {
+            for (Path directory : (Iterable<Path>) walk.filter(Files::isDirectory)::iterator) {
+                register(directory);
+            }
+        }
+    }
+
+    private void register(Path directory) throws IOException {
+        WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        directories.put(key, directory);
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Códigos de error del validador con su plantilla de mensaje.
+ *
+ * Los diagnósticos se guardan como (línea, columna, código, argumento) y el mensaje solo se
+ * construye al escribir el informe. En las plantillas, "{0}" se sustituye por el nombre del
+ * tipo de token indicado en el argumento (su ordinal en Token.Type).
+ */
+public enum ErrorCode {
+    // Estructura del módulo
+    TOKEN_BEFORE_MODULE("Token invalido encontrado antes de 'Module Program'. Solo 'Imports' y comentarios son permitidos."),
+    TOKEN_AFTER_END_MODULE("Token invalido encontrado despues de 'End Module'. Solo comentarios son permitidos"),
+    DUPLICATE_MODULE_PROGRAM("'Module Program' duplicado."),
+    DUPLICATE_END_MODULE("'End Module' duplicado."),
+    END_MODULE_BEFORE_MODULE("Declaración 'End Module' encontrada antes de 'Module Program'."),
+    DIM_BEFORE_MODULE("Declaración DIM encontrada antes de 'Module Program'."),
+    IMPORTS_AFTER_MODULE("'Imports' debe ser declarado antes de Module Program."),
+
+    // Emparejamiento de bloques
+    END_SUB_WITHOUT_SUB_MAIN("END SUB sin un SUB MAIN correspondiente."),
+    CATCH_WITHOUT_TRY("CATCH sin un TRY previo."),
+    END_TRY_WITHOUT_TRY_CATCH("END TRY sin TRY o CATCH."),
+    END_WHILE_WITHOUT_WHILE("END WHILE sin un WHILE correspondiente."),
+    UNCLOSED_SUB_MAIN("SUB MAIN sin cerrar."),
+    UNCLOSED_TRY_CATCH("Estructura {0} sin cerrar. Revise si existe End Try y Catch correspondientes."),
+    UNCLOSED_WHILE("Estructura {0} sin cerrar."),
+
+    // Formato de sentencias
+    INVALID_SUB_MAIN("Formato incorrecto en SUB MAIN."),
+    INVALID_CATCH("Formato incorrecto en CATCH."),
+    INVALID_DIM("Formato incorrecto en DIM."),
+
+    // Declaraciones de variables (SymbolTable)
+    DUPLICATE_DIM("Variable declarada con DIM más de una vez en el mismo ámbito."),
+    UNDECLARED_VARIABLE("Asignación a una variable no declarada con DIM."),
+
+    // Resolución de Imports (NamespaceIndex)
+    UNRESOLVED_IMPORT("Imports de un espacio de nombres o módulo que no se declara en el proyecto."),
+
+    // Mensaje libre reportado con ErrorReporter.report(int, String)
+    CUSTOM("{0}");
+
+    private static final Token.Type[] TOKEN_TYPES = Token.Type.values();
+
+    private final String prefix;
+    private final String suffix;
+    private final boolean hasArgument;
+
+    ErrorCode(String template) {
+        int placeholder = template.indexOf("{0}");
+        this.hasArgument = placeholder >= 0;
+        this.prefix = hasArgument ? template.substring(0, placeholder) : template;
+        this.suffix = hasArgument ? template.substring(placeholder + 3) : "";
+    }
+
+    // Plantilla del mensaje, con "{0}" en lugar del argumento
+    public String template() {
+        return hasArgument ? prefix + "{0}" + suffix : prefix;
+    }
+
+    // Mensaje del error para el argumento dado
+    public String format(int argument) {
+        if (!hasArgument) {
+            return prefix;
+        }
+        return prefix + TOKEN_TYPES[argument] + suffix;
+    }
+}
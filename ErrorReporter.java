@@ -5,13 +5,12 @@ import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.LinkedHashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 // ErrorReporter.java
 public class ErrorReporter {
-    private final Map<Integer, String> errors = new LinkedHashMap<>();
+    private final DiagnosticStore diagnostics = new DiagnosticStore();
     private final String basePath;
 
     public ErrorReporter(String basePath) {
@@ -19,35 +18,63 @@ public class ErrorReporter {
     }
 
     public void report(int lineNumber, String errorMessage) {
-        errors.put(lineNumber, "Error: " + errorMessage);
+        diagnostics.add(lineNumber, 0, errorMessage);
+    }
+
+    public void report(TokenCursor token, ErrorCode code) {
+        report(token.getLineNumber(), token.getCharPosition(), code, 0);
+    }
+
+    // Una misma línea puede acumular varios errores; se escriben en el orden en que se reportaron
+    public void report(int lineNumber, int column, ErrorCode code, int argument) {
+        diagnostics.add(lineNumber, column, code, argument);
+    }
+
+    // Diagnósticos registrados
+    public DiagnosticStore getDiagnostics() {
+        return diagnostics;
     }
 
     public void writeErrorsToFile(List<String> originalLines) throws IOException {
         String errorFilePath = basePath + "-Errores.txt";
+        diagnostics.sort();
         try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(errorFilePath), StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            int next = 0;
             for (int i = 0; i < originalLines.size(); i++) {
-                int lineNumber = i + 1;
-                String lineText = originalLines.get(i);
-                writer.write(String.format("%04d %s", lineNumber, lineText));
-                writer.newLine();
-                
-            // Verificar si la línea excede los 90 caracteres
-            if (lineText.length() > 90) {
-                String lengthError = String.format("Error en línea %04d: la línea excede los 90 caracteres.", lineNumber);
-                writer.write(lengthError);
-                writer.newLine();
+                next = writeAnnotatedLine(writer, i + 1, originalLines.get(i), diagnostics, next);
             }
+        }
+    }
 
-                if (errors.containsKey(lineNumber)) {
-                    writer.write(errors.get(lineNumber));
-                    writer.newLine();
-                }
-            }
+    /**
+     * Escribe una línea del código fuente numerada, seguida de sus errores. Los diagnósticos
+     * (ordenados por línea) se recorren a partir de 'next'; devuelve el índice del primer
+     * diagnóstico de una línea posterior.
+     */
+    static int writeAnnotatedLine(BufferedWriter writer, int lineNumber, String lineText, DiagnosticStore diagnostics, int next) throws IOException {
+        writer.write(String.format("%04d %s", lineNumber, lineText));
+        writer.newLine();
+
+        // Verificar si la línea excede los 90 caracteres
+        if (lineText.length() > 90) {
+            String lengthError = String.format("Error en línea %04d: la línea excede los 90 caracteres.", lineNumber);
+            writer.write(lengthError);
+            writer.newLine();
+        }
+
+        while (next < diagnostics.size() && diagnostics.line(next) < lineNumber) {
+            next++;
+        }
+        while (next < diagnostics.size() && diagnostics.line(next) == lineNumber) {
+            writer.write("Error: " + diagnostics.message(next));
+            writer.newLine();
+            next++;
         }
+        return next;
     }
 
     public boolean hasErrors() {
-        return !errors.isEmpty();
+        return !diagnostics.isEmpty();
     }
 
 
@@ -55,93 +82,114 @@ public class ErrorReporter {
     public void writeHeader(String filename) throws IOException {
         String errorFilePath = basePath + "-Errores.txt";
         try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(errorFilePath))) {
-            LocalDateTime now = LocalDateTime.now();
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            writer.write("Informe de Análisis de " + filename);
-            writer.newLine();
-            writer.write("Fecha de Análisis: " + now.format(formatter));
-            writer.newLine();
-            writer.write("------------------------------------");
-            writer.newLine();
+            writeHeader(writer, filename);
         }
     }
 
+    // Cabecera del informe: archivo analizado y fecha
+    static void writeHeader(BufferedWriter writer, String filename) throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        writer.write("Informe de Análisis de " + filename);
+        writer.newLine();
+        writer.write("Fecha de Análisis: " + now.format(formatter));
+        writer.newLine();
+        writer.write("------------------------------------");
+        writer.newLine();
+    }
+
     public void reportSummary(ParserStatistics stats) throws IOException {
         String errorFilePath = basePath + "-Errores.txt";
         try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(errorFilePath), StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
-            writer.write("Resumen del Análisis:");
-            writer.newLine();
-            writer.write("Número de Comentarios: " + stats.getCommentCount());
-            writer.newLine();
-            writer.write("Número de Declaraciones DIM: " + stats.getDimStatementCount());
-            
-            writer.newLine();
-            writer.write("------------------------------------");
-            writer.newLine();
-
-            //
-            //Analiza si hay tokens mismatches y los reporta
+            writeSummary(writer, stats);
+        } catch (Exception e) {
+            System.out.println("Error al escribir el archivo de errores: " + e.getMessage());
+        }
+    }
 
-            if (stats.getModuleProgramCount() != stats.getEndModuleCount()) {
-                writer.write("Error: Mismatch en el número de declaraciones de Module y End Module.\n");
+    // Resumen del informe: contadores y descuadres entre aperturas y cierres de bloques
+    static void writeSummary(BufferedWriter writer, ParserStatistics stats) throws IOException {
+        writer.write("Resumen del Análisis:");
+        writer.newLine();
+        writer.write("Número de Comentarios: " + stats.getCommentCount());
+        writer.newLine();
+        writer.write("Número de Declaraciones DIM: " + stats.getDimStatementCount());
+        
+        writer.newLine();
+        writer.write("------------------------------------");
+        writer.newLine();
+
+        List<String> errors = summaryErrors(stats);
+        for (String error : errors) {
+            writer.write("Error: " + error);
+            // El aviso de While, siempre el último, se escribe sin salto de línea (formato histórico del informe)
+            if (!error.endsWith("While'.")) {
+                writer.write("\n");
             }
+        }
 
-            if (stats.getModuleProgramCount() == 0) {
-                writer.write("Error: 'Module Program' inexistente.\n");
-            } else if (stats.getModuleProgramCount() > 1) {
-                writer.write("Error: Múltiples declaraciones de Module Program.\n");
-            } 
-            
-            if (stats.getEndModuleCount() == 0) {
-                writer.write("Error: 'End Module' inexistente.\n");
-            } else if (stats.getEndModuleCount() > 1) {
-                writer.write("Error: Múltiples declaraciones de End Module.\n");
-            }
-            
-            if (stats.getSubMainCount() != stats.getEndSubCount()) {
-                writer.write("Error: Mismatch en el número de declaraciones de Sub Main y End Sub.\n");
-            }
+        writer.write("------------------------------------");
+        writer.newLine();
+    }
 
-            if (stats.getSubMainCount() > 1) {
-                writer.write("Error: Múltiples declaraciones de Sub Main.\n");
-            } else if (stats.getSubMainCount() == 0) {
-                writer.write("Error: 'Sub Main' inexistente.\n");
-            }
+    /**
+     * summaryErrors() - Descuadres entre aperturas y cierres de bloques según los contadores,
+     * en el orden en que aparecen en el resumen del informe.
+     */
+    static List<String> summaryErrors(ParserStatistics stats) {
+        List<String> errors = new ArrayList<>();
+        if (stats.getModuleProgramCount() != stats.getEndModuleCount()) {
+            errors.add("Mismatch en el número de declaraciones de Module y End Module.");
+        }
 
-            if (stats.getEndSubCount() > 1) {
-                writer.write("Error: Múltiples declaraciones de End Sub.\n");
-            } else if (stats.getEndSubCount() == 0) {
-                writer.write("Error: 'End Sub' inexistente.\n");
-            }
+        if (stats.getModuleProgramCount() == 0) {
+            errors.add("'Module Program' inexistente.");
+        } else if (stats.getModuleProgramCount() > 1) {
+            errors.add("Múltiples declaraciones de Module Program.");
+        }
 
-            
- 
+        if (stats.getEndModuleCount() == 0) {
+            errors.add("'End Module' inexistente.");
+        } else if (stats.getEndModuleCount() > 1) {
+            errors.add("Múltiples declaraciones de End Module.");
+        }
 
-            if (stats.getTryCount() != stats.getEndTryCount()) {
-                writer.write("Error: Mismatch en el número de declaraciones de Try y End Try.\n");
-            }
-            
-            if (stats.getTryCount() > stats.getEndTryCount()) {
-                writer.write("Error: Falta declaración de 'End Try'.\n");
-            } else if ((stats.getCatchCount() > stats.getTryCount()) || (stats.getTryCount() < stats.getEndTryCount())) {
-                writer.write("Error: Falta declaración de 'Try'.\n");
-            }
+        if (stats.getSubMainCount() != stats.getEndSubCount()) {
+            errors.add("Mismatch en el número de declaraciones de Sub Main y End Sub.");
+        }
 
-            if (stats.getWhileCount() != stats.getEndWhileCount()) {
-                writer.write("Error: Mismatch en el número de declaraciones de While y End While.\n");
-            }          
+        if (stats.getSubMainCount() > 1) {
+            errors.add("Múltiples declaraciones de Sub Main.");
+        } else if (stats.getSubMainCount() == 0) {
+            errors.add("'Sub Main' inexistente.");
+        }
 
-            if (stats.getWhileCount() > stats.getEndWhileCount()) {
-                writer.write("Error: Falta declaración de 'End While'.");
-            } else if (stats.getWhileCount() < stats.getEndWhileCount()) {
-                writer.write("Error: Falta declaración de 'While'.");
-            }
+        if (stats.getEndSubCount() > 1) {
+            errors.add("Múltiples declaraciones de End Sub.");
+        } else if (stats.getEndSubCount() == 0) {
+            errors.add("'End Sub' inexistente.");
+        }
 
-            writer.write("------------------------------------");
-            writer.newLine();
-        } catch (Exception e) {
-            System.out.println("Error al escribir el archivo de errores: " + e.getMessage());
+        if (stats.getTryCount() != stats.getEndTryCount()) {
+            errors.add("Mismatch en el número de declaraciones de Try y End Try.");
+        }
+
+        if (stats.getTryCount() > stats.getEndTryCount()) {
+            errors.add("Falta declaración de 'End Try'.");
+        } else if ((stats.getCatchCount() > stats.getTryCount()) || (stats.getTryCount() < stats.getEndTryCount())) {
+            errors.add("Falta declaración de 'Try'.");
+        }
+
+        if (stats.getWhileCount() != stats.getEndWhileCount()) {
+            errors.add("Mismatch en el número de declaraciones de While y End While.");
+        }
+
+        if (stats.getWhileCount() > stats.getEndWhileCount()) {
+            errors.add("Falta declaración de 'End While'.");
+        } else if (stats.getWhileCount() < stats.getEndWhileCount()) {
+            errors.add("Falta declaración de 'While'.");
         }
+        return errors;
     }
 }
 // Path: ErrorReporter.java
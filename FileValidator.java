@@ -0,0 +1,295 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ejecuta el análisis completo de un archivo: lectura, análisis léxico, análisis sintáctico e informe.
+ * Cada llamada a validate() usa su propio ErrorReporter y VBScriptParser, por lo que una misma
+ * instancia puede usarse desde varios hilos.
+ */
+public class FileValidator {
+    private final Options options;
+    private final ResultCache cache;
+    private final DiagnosticWriter diagnosticWriter;
+    // Línea base con la que se suprimen los diagnósticos conocidos, y registro de los de esta
+    // ejecución para escribir una nueva (null = sin línea base)
+    private Baseline baseline;
+    private Baseline.Recorder baselineRecorder;
+    // Índice con el que se resuelven los Imports (null = no se resuelven)
+    private NamespaceIndex namespaceIndex;
+
+    public FileValidator(Options options) {
+        this(options, null);
+    }
+
+    public FileValidator(Options options, ResultCache cache) {
+        this(options, cache, null);
+    }
+
+    /**
+     * Con una caché de resultados, los archivos cuyo contenido ya se validó con la misma versión
+     * de las reglas regeneran el informe sin ejecutar lexer ni parser. Con una salida JSON Lines
+     * o SARIF, los diagnósticos se escriben en ella en lugar de en el informe <archivo>-Errores.txt.
+     */
+    public FileValidator(Options options, ResultCache cache, DiagnosticWriter diagnosticWriter) {
+        this.options = options;
+        this.cache = cache;
+        this.diagnosticWriter = diagnosticWriter;
+    }
+
+    /**
+     * setBaseline() - Los diagnósticos que estén en baseline no se reportan; los de todos los
+     * archivos validados se registran además en recorder, antes de filtrarlos.
+     */
+    public void setBaseline(Baseline baseline, Baseline.Recorder recorder) {
+        this.baseline = baseline;
+        this.baselineRecorder = recorder;
+    }
+
+    /**
+     * setNamespaceIndex() - Los Imports que no nombran un espacio de nombres o módulo del índice
+     * se reportan como UNRESOLVED_IMPORT. La comprobación no se guarda en la caché de resultados,
+     * porque depende del resto del proyecto y no solo del contenido del archivo.
+     */
+    public void setNamespaceIndex(NamespaceIndex namespaceIndex) {
+        this.namespaceIndex = namespaceIndex;
+    }
+
+    NamespaceIndex getNamespaceIndex() {
+        return namespaceIndex;
+    }
+
+    // Salida JSON Lines o SARIF, o null si se escribe un informe por archivo
+    DiagnosticWriter getDiagnosticWriter() {
+        return diagnosticWriter;
+    }
+
+    public ValidationResult validate(String vbFilePath) throws IOException {
+        long start = System.nanoTime();
+        String basePath = basePath(vbFilePath, options.reportDir);
+        Path sourcePath = ArchiveSources.resolve(vbFilePath);
+        if (diagnosticWriter == null) {
+            createReportDirectory(basePath);
+        }
+
+        Metrics.increment(Metrics.FILES);
+
+        if (options.streaming) {
+            // El modo streaming no usa la caché: calcular el hash exigiría leer el archivo completo
+            long bytes = Files.size(sourcePath);
+            Metrics.Phase phase = Metrics.startPhase("stream", vbFilePath);
+            StreamingValidator validator = new StreamingValidator(vbFilePath, basePath, options.rules, options.errorsOnly,
+                diagnosticWriter, options.encoding);
+            boolean errorsFound = validator.validate();
+            phase.end(bytes);
+            Metrics.add(Metrics.BYTES_READ, bytes);
+            if (diagnosticWriter == null) {
+                recordBytesWritten(basePath);
+            }
+            return new ValidationResult(vbFilePath, errorsFound, bytes, null, validator.getStats(), validator.getErrorCount(),
+                validator.getTokenCount(), validator.getMaxNestingDepth(), System.nanoTime() - start);
+        }
+
+        Metrics.Phase phase = Metrics.startPhase("read", vbFilePath);
+        byte[] content = Files.readAllBytes(sourcePath);
+        return validateContent(vbFilePath, basePath, content, !ArchiveSources.isEntry(vbFilePath), phase, start);
+    }
+
+    /**
+     * validate() - Valida un contenido que no está en disco con ese nombre (por ejemplo, el blob de
+     * otra revisión leído de git) y escribe su informe donde iría el de vbFilePath.
+     */
+    public ValidationResult validate(String vbFilePath, byte[] content) throws IOException {
+        long start = System.nanoTime();
+        String basePath = basePath(vbFilePath, options.reportDir);
+        if (diagnosticWriter == null) {
+            createReportDirectory(basePath);
+        }
+        Metrics.increment(Metrics.FILES);
+        return validateContent(vbFilePath, basePath, content, false, Metrics.startPhase("read", vbFilePath), start);
+    }
+
+    // Análisis e informe de un contenido ya leído; con sourceOnDisk, el informe puede copiar las
+    // líneas sin errores directamente de vbFilePath
+    private ValidationResult validateContent(String vbFilePath, String basePath, byte[] content, boolean sourceOnDisk,
+                                             Metrics.Phase phase, long start) throws IOException {
+        // Solo se detecta la codificación y se indexan las líneas: el texto no se decodifica aquí
+        SourceText source = SourceText.decode(content, options.encoding);
+        phase.end(source.lineCount());
+        Metrics.add(Metrics.BYTES_READ, content.length);
+        Metrics.add(Metrics.LINES, source.lineCount());
+
+        ErrorReporter errorReporter = new ErrorReporter(basePath);
+        ResultCache.Entry result;
+
+        String key = cache != null ? ResultCache.key(content, options.rules.id() + ";" + options.encoding) : null;
+        ResultCache.Entry cached = cache != null ? cache.get(key) : null;
+        if (cached != null) {
+            Metrics.increment(Metrics.CACHE_HITS);
+            DiagnosticStore diagnostics = errorReporter.getDiagnostics();
+            for (int i = 0; i < cached.diagnostics.size(); i++) {
+                diagnostics.add(cached.diagnostics, i);
+            }
+            result = cached;
+        } else {
+            if (cache != null) {
+                Metrics.increment(Metrics.CACHE_MISSES);
+            }
+            result = analyze(vbFilePath, source, errorReporter);
+
+            if (cache != null) {
+                cache.put(key, result);
+            }
+        }
+        ParserStatistics stats = result.stats;
+        // Después de guardar en la caché, que conserva todos los diagnósticos
+        if (namespaceIndex != null) {
+            namespaceIndex.check(source.lines(), errorReporter.getDiagnostics());
+        }
+        applyBaseline(vbFilePath, source.lines(), errorReporter.getDiagnostics());
+        Metrics.add(Metrics.ERRORS, errorReporter.getDiagnostics().size());
+
+        phase = Metrics.startPhase("report", vbFilePath);
+        if (diagnosticWriter != null) {
+            diagnosticWriter.writeFile(vbFilePath, source, errorReporter.getDiagnostics(), stats);
+            phase.end(errorReporter.getDiagnostics().size());
+        } else {
+            long written = new ReportWriter(basePath, options.lineNumbers, options.errorsOnly)
+                .write(vbFilePath, source, stats, errorReporter.getDiagnostics(), sourceOnDisk);
+            phase.end(written);
+            Metrics.add(Metrics.BYTES_WRITTEN, written);
+        }
+
+        DiagnosticStore diagnostics = errorReporter.getDiagnostics();
+        return new ValidationResult(vbFilePath, errorReporter.hasErrors(), content.length, diagnostics, stats, diagnostics.size(),
+            result.tokens, result.maxNestingDepth, System.nanoTime() - start);
+    }
+
+    /**
+     * validateSource() - Valida código recibido en memoria (por ejemplo, por la entrada estándar
+     * o desde el demonio) sin leer ni escribir archivos. Devuelve los diagnósticos por línea.
+     */
+    public DiagnosticStore validateSource(String name, List<String> lines) {
+        Metrics.increment(Metrics.FILES);
+        Metrics.add(Metrics.LINES, lines.size());
+        ErrorReporter errorReporter = new ErrorReporter(name);
+        analyze(name, lines, errorReporter);
+        DiagnosticStore diagnostics = errorReporter.getDiagnostics();
+        if (namespaceIndex != null) {
+            namespaceIndex.check(lines, diagnostics);
+        }
+        diagnostics.sort();
+        applyBaseline(name, lines, diagnostics);
+        Metrics.add(Metrics.ERRORS, diagnostics.size());
+        return diagnostics;
+    }
+
+    private void applyBaseline(String name, List<? extends CharSequence> lines, DiagnosticStore diagnostics) {
+        if (baselineRecorder != null) {
+            baselineRecorder.record(name, lines, diagnostics);
+        }
+        if (baseline != null) {
+            Metrics.add(Metrics.BASELINE_SUPPRESSED, baseline.filter(name, lines, diagnostics));
+        }
+    }
+
+    // Análisis léxico y sintáctico de las líneas; los errores quedan en errorReporter. Devuelve
+    // los contadores, los diagnósticos, el número de tokens y la profundidad de anidamiento máxima
+    private ResultCache.Entry analyze(String name, List<String> lines, ErrorReporter errorReporter) {
+        Metrics.Phase phase = Metrics.startPhase("lex", name);
+        if (options.useRegexLexer) {
+            return parse(name, phase, new VBScriptLexer(lines).tokenize(), errorReporter);
+        }
+        // El escáner llena un TokenBuffer: sin un objeto Token por línea reconocida
+        return parse(name, phase, new VBScriptScanner(lines).tokenizeToBuffer(), errorReporter);
+    }
+
+    // Igual, sobre el contenido en bytes: el escáner lo recorre sin decodificarlo
+    private ResultCache.Entry analyze(String name, SourceText source, ErrorReporter errorReporter) {
+        Metrics.Phase phase = Metrics.startPhase("lex", name);
+        if (options.useRegexLexer) {
+            return parse(name, phase, new VBScriptLexer(source.decodeLines()).tokenize(), errorReporter);
+        }
+        return parse(name, phase, VBScriptScanner.tokenize(source), errorReporter);
+    }
+
+    private ResultCache.Entry parse(String name, Metrics.Phase lexPhase, ArrayList<Token> tokenList, ErrorReporter errorReporter) {
+        Metrics.countTokens(tokenList);
+        int depth = 0;
+        int maxDepth = 0;
+        for (Token token : tokenList) {
+            depth = BlockStack.depthAfter(depth, token.getType());
+            maxDepth = Math.max(maxDepth, depth);
+        }
+        return parse(name, lexPhase, new TokenListCursor(tokenList), null, tokenList.size(), maxDepth, errorReporter);
+    }
+
+    private ResultCache.Entry parse(String name, Metrics.Phase lexPhase, TokenBuffer buffer, ErrorReporter errorReporter) {
+        Metrics.countTokens(buffer);
+        return parse(name, lexPhase, buffer.cursor(), buffer, buffer.size(), buffer.maxNestingDepth(), errorReporter);
+    }
+
+    private ResultCache.Entry parse(String name, Metrics.Phase lexPhase, TokenCursor tokens, TokenBuffer buffer, int tokenCount,
+                                    int maxNestingDepth, ErrorReporter errorReporter) {
+        lexPhase.end(tokenCount);
+
+        Metrics.Phase phase = Metrics.startPhase("parse", name);
+        ParserStatistics stats;
+        if (buffer != null && options.parseChunkSize > 0 && tokenCount > options.parseChunkSize) {
+            // Archivos con más de un tramo: emparejamiento de bloques por tramos en paralelo
+            stats = ParallelParser.parse(buffer, errorReporter, options.parseChunkSize, options.rules);
+        } else {
+            VBScriptParser parser = new VBScriptParser(tokens, errorReporter);
+            parser.setRules(options.rules);
+            parser.parse();
+            stats = parser.stats;
+        }
+        phase.end(tokenCount);
+        return new ResultCache.Entry(stats, errorReporter.getDiagnostics(), tokenCount, maxNestingDepth);
+    }
+
+    private static void recordBytesWritten(String basePath) throws IOException {
+        if (Metrics.isEnabled()) {
+            Metrics.add(Metrics.BYTES_WRITTEN, Files.size(Paths.get(basePath + "-Errores.txt")));
+        }
+    }
+
+    // Con --report-dir o para las entradas de un archivo comprimido, el directorio del informe puede no existir
+    private static void createReportDirectory(String basePath) throws IOException {
+        Path parent = Paths.get(basePath).toAbsolutePath().getParent();
+        if (parent != null && !Files.isDirectory(parent)) {
+            Files.createDirectories(parent);
+        }
+    }
+
+    // Ruta del archivo sin extensión; el informe se escribe en <basePath>-Errores.txt
+    public static String basePath(String vbFilePath) {
+        return basePath(vbFilePath, null);
+    }
+
+    /**
+     * basePath() - Igual, con los informes en reportDir (null = junto a cada archivo). Las
+     * entradas de un archivo comprimido usan su ruta como si se hubiera extraído (ver
+     * ArchiveSources.localPath()), y bajo reportDir se conserva la ruta relativa del archivo.
+     */
+    public static String basePath(String vbFilePath, String reportDir) {
+        String path = ArchiveSources.localPath(vbFilePath);
+        if (reportDir != null) {
+            Path relative = Paths.get(path).normalize();
+            if (relative.isAbsolute()) {
+                relative = relative.getRoot().relativize(relative);
+            }
+            // Sin componentes ".." iniciales, para no salir de reportDir
+            while (relative.getNameCount() > 1 && relative.getName(0).toString().equals("..")) {
+                relative = relative.subpath(1, relative.getNameCount());
+            }
+            path = Paths.get(reportDir).resolve(relative).toString();
+        }
+        int dot = path.lastIndexOf('.');
+        int separator = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        return dot > separator ? path.substring(0, dot) : path;
+    }
+}
@@ -0,0 +1,175 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Archivos .vb cambiados entre dos revisiones del repositorio git local, con su contenido en la
+ * revisión final.
+ *
+ * La lista sale de "git diff --name-only" (archivos añadidos, copiados, modificados o renombrados;
+ * los eliminados no se validan) y los blobs se leen todos con un único proceso
+ * "git cat-file --batch", sin extraer la revisión ni tocar el directorio de trabajo. El coste
+ * depende del tamaño del diff y no del del repositorio.
+ * Uso: GitChangeSet.load("main..HEAD", rutas) o GitChangeSet.load("v1.2", rutas) (hasta HEAD).
+ */
+public final class GitChangeSet {
+    private final String from;
+    private final String to;
+    // Contenido de cada archivo en la revisión final, por su ruta relativa al directorio actual
+    private final Map<String, byte[]> contents;
+
+    private GitChangeSet(String from, String to, Map<String, byte[]> contents) {
+        this.from = from;
+        this.to = to;
+        this.contents = contents;
+    }
+
+    /**
+     * load() - Lee los archivos .vb cambiados en range ("A..B", "A...B" desde la base común, o "A"
+     * hasta HEAD), limitados a las rutas indicadas si las hay.
+     */
+    public static GitChangeSet load(String range, List<String> paths) throws IOException {
+        int dots = range.indexOf("..");
+        String from = dots < 0 ? range : range.substring(0, dots);
+        String to = dots < 0 ? "" : range.substring(range.startsWith("...", dots) ? dots + 3 : dots + 2);
+        if (from.isEmpty()) {
+            from = "HEAD";
+        }
+        if (to.isEmpty()) {
+            to = "HEAD";
+        }
+        String diffRange = dots < 0 ? from + "..HEAD" : range;
+
+        Path cwd = Paths.get("").toAbsolutePath().toRealPath();
+        Path topLevel = Paths.get(text(run("rev-parse", "--show-toplevel")).trim()).toRealPath();
+        // Commit fijo: los blobs se leen de la misma revisión que se comparó
+        String commit = text(run("rev-parse", "--verify", to + "^{commit}")).trim();
+
+        List<String> command = new ArrayList<>(Arrays.asList("diff", "--name-only", "-z", "--no-ext-diff",
+            "--diff-filter=ACMR", diffRange, "--"));
+        command.addAll(paths);
+        List<String> names = new ArrayList<>();
+        for (String name : text(run(command.toArray(new String[0]))).split("\0")) {
+            if (name.toLowerCase().endsWith(".vb")) {
+                names.add(name);
+            }
+        }
+
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        List<byte[]> blobs = readBlobs(commit, names);
+        for (int i = 0; i < names.size(); i++) {
+            Path file = topLevel.resolve(names.get(i));
+            String path = file.startsWith(cwd) ? cwd.relativize(file).toString() : file.toString();
+            contents.put(path, blobs.get(i));
+        }
+        return new GitChangeSet(from, to, contents);
+    }
+
+    public String from() {
+        return from;
+    }
+
+    public String to() {
+        return to;
+    }
+
+    // Rutas de los archivos cambiados, en el orden de git diff
+    public List<String> files() {
+        return new ArrayList<>(contents.keySet());
+    }
+
+    public Map<String, byte[]> contents() {
+        return contents;
+    }
+
+    // Contenido de "<commit>:<ruta>" para cada ruta, con un solo proceso git cat-file
+    private static List<byte[]> readBlobs(String commit, List<String> names) throws IOException {
+        List<byte[]> blobs = new ArrayList<>();
+        if (names.isEmpty()) {
+            return blobs;
+        }
+        Process process = new ProcessBuilder("git", "cat-file", "--batch")
+            .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        // Las peticiones se escriben en otro hilo: si no, con muchas rutas ambas tuberías se llenan
+        Thread requests = new Thread(() -> {
+            try (OutputStream in = process.getOutputStream()) {
+                for (String name : names) {
+                    in.write((commit + ":" + name + "\n").getBytes(StandardCharsets.UTF_8));
+                }
+            } catch (IOException e) {
+                // El proceso terminó antes de tiempo; el error aparece al leer su salida
+            }
+        }, "git-cat-file");
+        requests.setDaemon(true);
+        requests.start();
+
+        try (InputStream out = new BufferedInputStream(process.getInputStream())) {
+            for (String name : names) {
+                // Cabecera "<id> blob <tamaño>", o "<objeto> missing"
+                String[] header = readLine(out).split(" ");
+                if (header.length != 3 || !header[1].equals("blob")) {
+                    throw new IOException("git cat-file no devolvió el contenido de " + commit + ":" + name);
+                }
+                int size = Integer.parseInt(header[2]);
+                byte[] blob = out.readNBytes(size);
+                if (blob.length != size || out.read() != '\n') {
+                    throw new IOException("Salida de git cat-file incompleta para " + name);
+                }
+                blobs.add(blob);
+            }
+        } finally {
+            process.destroy();
+        }
+        return blobs;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c < 0) {
+                throw new IOException("Salida de git cat-file incompleta");
+            }
+            line.write(c);
+        }
+        return new String(line.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    // Ejecuta git en el directorio actual y devuelve su salida; un código distinto de 0 es un error
+    private static byte[] run(String... args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(args));
+        Process process = new ProcessBuilder(command).start();
+        byte[] output;
+        byte[] errors;
+        try (InputStream out = process.getInputStream(); InputStream err = process.getErrorStream()) {
+            output = out.readAllBytes();
+            errors = err.readAllBytes();
+        }
+        try {
+            if (process.waitFor() != 0) {
+                String message = text(errors).trim();
+                throw new IOException("git " + args[0] + " falló" + (message.isEmpty() ? "" : ": " + message));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("git " + args[0] + " interrumpido");
+        }
+        return output;
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
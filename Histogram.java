@@ -0,0 +1,121 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de valores no negativos con cubetas de potencias de dos.
+ *
+ * La cubeta 0 cuenta los ceros y la cubeta i, los valores de [2^(i-1), 2^i). record() no usa
+ * bloqueos (un incremento atómico por cubeta y acumuladores LongAdder), así que varios hilos
+ * pueden registrar valores a la vez. merge() es asociativa y conmutativa. Los percentiles se
+ * estiman con el límite superior de la cubeta, acotado por el máximo registrado.
+ */
+public class Histogram {
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Valor negativo en el histograma: " + value);
+        }
+        buckets.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+        min.accumulate(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * merge() - Añade a este histograma los valores de other y devuelve this.
+     */
+    public Histogram merge(Histogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long n = other.buckets.get(i);
+            if (n > 0) {
+                buckets.addAndGet(i, n);
+            }
+        }
+        count.add(other.count.sum());
+        sum.add(other.sum.sum());
+        min.accumulate(other.min.get());
+        max.accumulate(other.max.get());
+        return this;
+    }
+
+    private static int bucket(long value) {
+        return 64 - Long.numberOfLeadingZeros(value);
+    }
+
+    // Mayor valor que cae en la cubeta
+    private static long upperBound(int bucket) {
+        return bucket == 0 ? 0 : bucket == 63 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long sum() {
+        return sum.sum();
+    }
+
+    public long min() {
+        return count() == 0 ? 0 : min.get();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public double mean() {
+        long n = count();
+        return n == 0 ? 0 : (double) sum() / n;
+    }
+
+    // Estimación del percentil q (entre 0 y 1)
+    public long percentile(double q) {
+        long n = count();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max());
+            }
+        }
+        return max();
+    }
+
+    /**
+     * toJson() - Resumen y cubetas no vacías como objeto JSON; cada cubeta se identifica por su
+     * límite superior.
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"count\": ").append(count())
+            .append(", \"sum\": ").append(sum())
+            .append(", \"min\": ").append(min())
+            .append(", \"max\": ").append(max())
+            .append(", \"p50\": ").append(percentile(0.50))
+            .append(", \"p90\": ").append(percentile(0.90))
+            .append(", \"p99\": ").append(percentile(0.99))
+            .append(", \"buckets\": {");
+        String separator = "";
+        for (int i = 0; i < BUCKETS; i++) {
+            long n = buckets.get(i);
+            if (n > 0) {
+                json.append(separator).append('"').append(upperBound(i)).append("\": ").append(n);
+                separator = ", ";
+            }
+        }
+        return json.append("}}").toString();
+    }
+}
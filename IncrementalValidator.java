@@ -0,0 +1,264 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Validación incremental de un documento en memoria.
+ *
+ * Conserva las líneas, el resultado de VBScriptScanner.scan() para cada línea, los diagnósticos
+ * y puntos de control del estado del parser (indicadores de módulo, pilas de bloques abiertos y
+ * contadores) cada CHECKPOINT_INTERVAL líneas. Una edición solo vuelve a escanear las líneas
+ * nuevas y reanuda el análisis desde el último punto de control anterior a la edición. El
+ * análisis se detiene en cuanto el estado coincide con el de un punto de control posterior de la
+ * ejecución anterior, porque a partir de ahí los diagnósticos son los mismos (desplazados si la
+ * edición cambió el número de líneas).
+ *
+ * Los diagnósticos y contadores coinciden con los de analizar el documento completo con
+ * VBScriptParser.parse().
+ */
+public class IncrementalValidator {
+    static final int CHECKPOINT_INTERVAL = 64;
+
+    private final List<String> lines;
+    private final RuleRegistry rules;
+    private long[] scanned;
+    // Diagnósticos por token; los de estructuras sin cerrar se calculan a partir de finalState
+    private final DiagnosticStore diagnostics = new DiagnosticStore();
+    private final List<Checkpoint> checkpoints = new ArrayList<>();
+    private VBScriptParser.State finalState;
+    private int lastReparsedLines;
+
+    // Estado del parser antes de procesar la línea 'line'
+    private static final class Checkpoint {
+        int line;
+        final VBScriptParser.State state;
+
+        Checkpoint(int line, VBScriptParser.State state) {
+            this.line = line;
+            this.state = state;
+        }
+    }
+
+    public IncrementalValidator(List<String> lines) {
+        this(lines, RuleRegistry.defaults());
+    }
+
+    public IncrementalValidator(List<String> lines, RuleRegistry rules) {
+        this.lines = new ArrayList<>(lines);
+        this.rules = rules;
+        this.scanned = new long[Math.max(lines.size(), 16)];
+        for (int i = 0; i < lines.size(); i++) {
+            scanned[i] = VBScriptScanner.scan(lines.get(i));
+        }
+        checkpoints.add(new Checkpoint(1, new VBScriptParser(new ErrorReporter("")).saveState()));
+        resume(0, 0, 0);
+    }
+
+    /**
+     * edit() - Sustituye removedLines líneas a partir de startLine (1 = primera línea) por
+     * newLines y actualiza los diagnósticos. Con removedLines = 0 inserta antes de startLine.
+     */
+    public void edit(int startLine, int removedLines, List<String> newLines) {
+        if (startLine < 1 || removedLines < 0 || startLine - 1 + removedLines > lines.size()) {
+            throw new IllegalArgumentException("Edición fuera del documento: línea " + startLine
+                + ", " + removedLines + " líneas de " + lines.size());
+        }
+        int oldEnd = startLine + removedLines;
+        int delta = newLines.size() - removedLines;
+
+        // Solo se escanean las líneas nuevas
+        lines.subList(startLine - 1, oldEnd - 1).clear();
+        lines.addAll(startLine - 1, newLines);
+        replaceScanned(startLine - 1, removedLines, newLines);
+
+        // Se conservan los puntos de control hasta la edición; los que caen dentro de las líneas
+        // eliminadas se descartan y los posteriores se desplazan y sirven para detectar la convergencia
+        int base = lastCheckpointAtOrBefore(startLine);
+        int firstCandidate = base + 1;
+        while (firstCandidate < checkpoints.size() && checkpoints.get(firstCandidate).line < oldEnd) {
+            firstCandidate++;
+        }
+        checkpoints.subList(base + 1, firstCandidate).clear();
+        if (delta != 0) {
+            for (int i = base + 1; i < checkpoints.size(); i++) {
+                Checkpoint checkpoint = checkpoints.get(i);
+                checkpoint.line += delta;
+                checkpoint.state.shiftLines(oldEnd, delta);
+            }
+            finalState.shiftLines(oldEnd, delta);
+        }
+
+        resume(base, startLine + newLines.size(), delta);
+    }
+
+    /**
+     * resume() - Analiza desde el punto de control checkpoints[base]. Los puntos de control
+     * siguientes son los de la ejecución anterior (ya en la numeración actual): a partir de la
+     * línea convergeFrom se compara el estado con ellos y el análisis se detiene en el primero
+     * que coincide. lineDelta es el número de líneas añadidas (o eliminadas, si es negativo).
+     */
+    private void resume(int base, int convergeFrom, int lineDelta) {
+        Checkpoint start = checkpoints.get(base);
+        ErrorReporter errorReporter = new ErrorReporter("");
+        VBScriptParser parser = new VBScriptParser(errorReporter);
+        parser.setRules(rules);
+        parser.restoreState(start.state);
+        LineCursor cursor = new LineCursor();
+        List<Checkpoint> created = new ArrayList<>();
+
+        int total = lines.size();
+        int next = base + 1;
+        int lastCheckpoint = start.line;
+        int line = start.line;
+        int converged = -1;
+        VBScriptParser.State state = null;
+        for (; line <= total; line++) {
+            while (next < checkpoints.size() && checkpoints.get(next).line < line) {
+                next++;
+            }
+            if (line >= convergeFrom && next < checkpoints.size() && checkpoints.get(next).line == line) {
+                state = parser.saveState();
+                if (state.sameStructure(checkpoints.get(next).state)) {
+                    converged = next;
+                    break;
+                }
+                // Punto de control obsoleto: se sustituye por el estado nuevo
+                created.add(new Checkpoint(line, state));
+                lastCheckpoint = line;
+                next++;
+            } else if (line - lastCheckpoint >= CHECKPOINT_INTERVAL) {
+                created.add(new Checkpoint(line, parser.saveState()));
+                lastCheckpoint = line;
+            }
+            if (scanned[line - 1] != VBScriptScanner.NO_TOKEN) {
+                cursor.line = line;
+                parser.accept(cursor);
+            }
+        }
+
+        if (converged >= 0) {
+            // Lo posterior no cambia salvo por los contadores, que varían en la misma cantidad
+            long[] statsDelta = state.statsMinus(checkpoints.get(converged).state);
+            if (!isZero(statsDelta)) {
+                for (int i = converged; i < checkpoints.size(); i++) {
+                    checkpoints.get(i).state.addStats(statsDelta);
+                }
+                finalState.addStats(statsDelta);
+            }
+            checkpoints.subList(base + 1, converged).clear();
+        } else {
+            finalState = parser.saveState();
+            checkpoints.subList(base + 1, checkpoints.size()).clear();
+        }
+        checkpoints.addAll(base + 1, created);
+
+        // Los diagnósticos de las líneas analizadas de nuevo sustituyen a los anteriores; los
+        // posteriores al punto de convergencia solo se desplazan
+        diagnostics.replaceLines(start.line, line - lineDelta, lineDelta, errorReporter.getDiagnostics());
+        lastReparsedLines = line - start.line;
+    }
+
+    // Búsqueda binaria del último punto de control con line <= line (el primero siempre es la línea 1)
+    private int lastCheckpointAtOrBefore(int line) {
+        int low = 0;
+        int high = checkpoints.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (checkpoints.get(middle).line <= line) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    private static boolean isZero(long[] values) {
+        for (long value : values) {
+            if (value != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void replaceScanned(int from, int removed, List<String> newLines) {
+        int oldSize = lines.size() - newLines.size() + removed;
+        int newSize = lines.size();
+        if (newSize > scanned.length) {
+            scanned = Arrays.copyOf(scanned, Math.max(newSize, scanned.length * 2));
+        }
+        System.arraycopy(scanned, from + removed, scanned, from + newLines.size(), oldSize - from - removed);
+        for (int i = 0; i < newLines.size(); i++) {
+            scanned[from + i] = VBScriptScanner.scan(newLines.get(i));
+        }
+    }
+
+    /**
+     * diagnostics() - Diagnósticos del documento actual, ordenados por línea, incluidos los de
+     * estructuras sin cerrar.
+     */
+    public DiagnosticStore diagnostics() {
+        DiagnosticStore all = new DiagnosticStore();
+        for (int i = 0; i < diagnostics.size(); i++) {
+            all.add(diagnostics, i);
+        }
+        ErrorReporter errorReporter = new ErrorReporter("");
+        VBScriptParser parser = new VBScriptParser(errorReporter);
+        parser.restoreState(finalState);
+        parser.finish();
+        DiagnosticStore unclosed = errorReporter.getDiagnostics();
+        for (int i = 0; i < unclosed.size(); i++) {
+            all.add(unclosed, i);
+        }
+        all.sort();
+        return all;
+    }
+
+    public ParserStatistics stats() {
+        return finalState.stats();
+    }
+
+    public List<String> lines() {
+        return Collections.unmodifiableList(lines);
+    }
+
+    // Líneas analizadas de nuevo en la última edición
+    public int lastReparsedLines() {
+        return lastReparsedLines;
+    }
+
+    /**
+     * TokenCursor sobre la línea indicada, con el texto extraído solo si se pide.
+     */
+    private final class LineCursor implements TokenCursor {
+        int line;
+
+        @Override
+        public boolean next() {
+            do {
+                line++;
+            } while (line <= lines.size() && scanned[line - 1] == VBScriptScanner.NO_TOKEN);
+            return line <= lines.size();
+        }
+
+        @Override
+        public Token.Type getType() { return VBScriptScanner.typeOf(scanned[line - 1]); }
+
+        @Override
+        public int getLineNumber() { return line; }
+
+        @Override
+        public int getCharPosition() { return 0; }
+
+        @Override
+        public String getText() { return lines.get(line - 1).substring(0, VBScriptScanner.endOf(scanned[line - 1])); }
+
+        @Override
+        public CharSequence getSource() { return lines.get(line - 1); }
+
+        @Override
+        public int getTextEnd() { return VBScriptScanner.endOf(scanned[line - 1]); }
+    }
+}
@@ -0,0 +1,95 @@
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Expande las entradas de la línea de comandos en la lista de archivos a validar.
+ *
+ * Cada entrada puede ser un archivo, un directorio (se recorre buscando archivos .vb),
+ * un patrón glob (por ejemplo "src/**.vb"), una lista de rutas, una por línea, con "@lista.txt",
+ * o un archivo .zip o .jar, cuyas entradas .vb se validan sin extraerlas (ver ArchiveSources).
+ */
+public class InputCollector {
+
+    public static List<String> collect(List<String> inputs) throws IOException {
+        Set<String> files = new LinkedHashSet<>();
+        for (String input : inputs) {
+            collect(input, files);
+        }
+        return new ArrayList<>(files);
+    }
+
+    private static void collect(String input, Set<String> files) throws IOException {
+        if (input.startsWith("@")) {
+            for (String line : Files.readAllLines(Paths.get(input.substring(1)))) {
+                String entry = line.trim();
+                if (!entry.isEmpty()) {
+                    collect(entry, files);
+                }
+            }
+        } else if (isGlob(input)) {
+            collectGlob(input, files);
+        } else if (ArchiveSources.isArchive(input)) {
+            files.addAll(ArchiveSources.entries(input));
+        } else if (Files.isDirectory(Paths.get(input))) {
+            try (Stream<Path> walk = Files.walk(Paths.get(input))) {
+                walk.filter(path -> Files.isRegularFile(path) && isVbFile(path))
+                    .sorted()
+                    .forEach(path -> files.add(path.toString()));
+            }
+        } else {
+            files.add(input);
+        }
+    }
+
+    // Entrada que no es lista, patrón glob, directorio ni archivo comprimido
+    public static boolean isPlainFile(String input) {
+        return !input.startsWith("@") && !isGlob(input) && !ArchiveSources.isArchive(input) && !Files.isDirectory(Paths.get(input));
+    }
+
+    // Recorre el directorio fijo más largo del patrón y filtra con el PathMatcher de glob
+    private static void collectGlob(String pattern, Set<String> files) throws IOException {
+        String normalized = pattern.replace('\\', '/');
+        int firstMeta = firstMetaIndex(normalized);
+        int separator = normalized.lastIndexOf('/', firstMeta);
+        Path root = separator < 0 ? Paths.get(".") : Paths.get(normalized.substring(0, Math.max(separator, 1)));
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + normalized);
+
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(root)) {
+            walk.filter(Files::isRegularFile)
+                .map(path -> separator < 0 ? root.relativize(path) : path)
+                .filter(matcher::matches)
+                .sorted()
+                .forEach(path -> files.add(path.toString()));
+        }
+    }
+
+    private static boolean isGlob(String input) {
+        return firstMetaIndex(input) >= 0;
+    }
+
+    private static int firstMetaIndex(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isVbFile(Path path) {
+        return path.getFileName().toString().toLowerCase().endsWith(".vb");
+    }
+}
@@ -0,0 +1,220 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lector de JSON mínimo para los mensajes del servidor LSP.
+ *
+ * Devuelve Map (objetos, con el orden de las claves), List, String, Long o Double, Boolean y null.
+ * Los mensajes se escriben a mano, como en JsonLinesWriter, con Metrics.quote() para las cadenas.
+ */
+public final class Json {
+    private final String text;
+    private int position;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    public static Object parse(String text) {
+        Json json = new Json(text);
+        Object value = json.value();
+        json.skipSpaces();
+        if (json.position != text.length()) {
+            throw json.error("contenido tras el valor");
+        }
+        return value;
+    }
+
+    // Valor como texto JSON (para devolver el id de una petición tal como llegó)
+    public static String write(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof String) {
+            return Metrics.quote((String) value);
+        }
+        return value.toString();
+    }
+
+    // Campo de un objeto, o null si value no es un objeto o no tiene ese campo
+    public static Object get(Object value, String key) {
+        return value instanceof Map ? ((Map<?, ?>) value).get(key) : null;
+    }
+
+    public static int getInt(Object value, String key, int defaultValue) {
+        Object field = get(value, key);
+        return field instanceof Number ? ((Number) field).intValue() : defaultValue;
+    }
+
+    private Object value() {
+        skipSpaces();
+        if (position >= text.length()) {
+            throw error("fin inesperado");
+        }
+        char c = text.charAt(position);
+        switch (c) {
+            case '{':
+                return object();
+            case '[':
+                return array();
+            case '"':
+                return string();
+            case 't':
+                return literal("true", Boolean.TRUE);
+            case 'f':
+                return literal("false", Boolean.FALSE);
+            case 'n':
+                return literal("null", null);
+            default:
+                return number();
+        }
+    }
+
+    private Map<String, Object> object() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        position++;
+        skipSpaces();
+        if (peek() == '}') {
+            position++;
+            return object;
+        }
+        while (true) {
+            skipSpaces();
+            if (peek() != '"') {
+                throw error("se esperaba una clave");
+            }
+            String key = string();
+            skipSpaces();
+            expect(':');
+            object.put(key, value());
+            skipSpaces();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect('}');
+                return object;
+            }
+        }
+    }
+
+    private List<Object> array() {
+        List<Object> array = new ArrayList<>();
+        position++;
+        skipSpaces();
+        if (peek() == ']') {
+            position++;
+            return array;
+        }
+        while (true) {
+            array.add(value());
+            skipSpaces();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect(']');
+                return array;
+            }
+        }
+    }
+
+    private String string() {
+        position++;
+        StringBuilder value = null;
+        int start = position;
+        while (true) {
+            if (position >= text.length()) {
+                throw error("cadena sin cerrar");
+            }
+            char c = text.charAt(position);
+            if (c == '"') {
+                String tail = text.substring(start, position++);
+                return value == null ? tail : value.append(tail).toString();
+            }
+            if (c != '\\') {
+                position++;
+                continue;
+            }
+            // Secuencia de escape: se copia lo anterior y se sigue acumulando
+            if (value == null) {
+                value = new StringBuilder();
+            }
+            value.append(text, start, position);
+            if (position + 1 >= text.length()) {
+                throw error("escape incompleto");
+            }
+            char escaped = text.charAt(position + 1);
+            position += 2;
+            switch (escaped) {
+                case '"': value.append('"'); break;
+                case '\\': value.append('\\'); break;
+                case '/': value.append('/'); break;
+                case 'b': value.append('\b'); break;
+                case 'f': value.append('\f'); break;
+                case 'n': value.append('\n'); break;
+                case 'r': value.append('\r'); break;
+                case 't': value.append('\t'); break;
+                case 'u':
+                    if (position + 4 > text.length()) {
+                        throw error("escape \\u incompleto");
+                    }
+                    value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    position += 4;
+                    break;
+                default:
+                    throw error("escape no válido");
+            }
+            start = position;
+        }
+    }
+
+    private Object number() {
+        int start = position;
+        boolean decimal = false;
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (c == '.' || c == 'e' || c == 'E') {
+                decimal = true;
+            } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                break;
+            }
+            position++;
+        }
+        String number = text.substring(start, position);
+        try {
+            return decimal ? (Object) Double.parseDouble(number) : (Object) Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            throw error("valor no válido");
+        }
+    }
+
+    private Object literal(String word, Object value) {
+        if (!text.startsWith(word, position)) {
+            throw error("valor no válido");
+        }
+        position += word.length();
+        return value;
+    }
+
+    private void skipSpaces() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private char peek() {
+        return position < text.length() ? text.charAt(position) : '\0';
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw error("se esperaba '" + c + "'");
+        }
+        position++;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("JSON no válido en la posición " + position + ": " + message);
+    }
+}
@@ -0,0 +1,43 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Salida JSON Lines: un objeto JSON por línea.
+ *
+ *   {"type":"diagnostic","file":...,"line":12,"column":0,"code":"INVALID_DIM","message":...}
+ *   {"type":"summary","file":...,"errors":3,"summaryErrors":[...],"stats":{"comments":4,...}}
+ *   {"type":"failure","file":...,"message":...}
+ *
+ * Con varios hilos, los registros de distintos archivos validados en streaming pueden
+ * intercalarse; cada registro indica su archivo.
+ */
+public class JsonLinesWriter extends DiagnosticWriter {
+
+    public JsonLinesWriter(Writer out) {
+        super(out);
+    }
+
+    @Override
+    protected void diagnostic(String file, int line, int column, String code, String message) throws IOException {
+        out.write("{\"type\":\"diagnostic\",\"file\":" + Metrics.quote(file) + ",\"line\":" + line
+            + ",\"column\":" + column + ",\"code\":\"" + code + "\",\"message\":" + Metrics.quote(message) + "}\n");
+    }
+
+    @Override
+    protected void summary(String file, ParserStatistics stats, int errorCount) throws IOException {
+        List<String> summaryErrors = ErrorReporter.summaryErrors(stats);
+        out.write("{\"type\":\"summary\",\"file\":" + Metrics.quote(file) + ",\"errors\":" + errorCount
+            + ",\"summaryErrors\":" + jsonArray(summaryErrors) + ",\"stats\":" + statsJson(stats) + "}\n");
+    }
+
+    @Override
+    protected void failure(String file, String message) throws IOException {
+        out.write("{\"type\":\"failure\",\"file\":" + Metrics.quote(file) + ",\"message\":" + Metrics.quote(message) + "}\n");
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,376 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servidor Language Server Protocol sobre la entrada y salida estándar (--lsp).
+ *
+ * Cada documento abierto se mantiene en un IncrementalValidator, de modo que un cambio solo vuelve
+ * a escanear las líneas editadas y a analizar desde el punto de control anterior. El hilo que lee
+ * los mensajes solo encola los cambios: la validación se hace en un hilo aparte, debounceMillis
+ * después del último cambio de una ráfaga, y un resultado se descarta en cuanto llega un texto
+ * más nuevo del mismo documento (se comprueba tras aplicar los cambios, tras calcular los
+ * diagnósticos y mientras se serializan), así que escribir nunca espera a una validación.
+ *
+ * Los diagnósticos se publican con textDocument/publishDiagnostics: la línea y la columna son las
+ * del diagnóstico (Token.getCharPosition(), desde el primer carácter no blanco) y el rango llega
+ * hasta el final de la línea. Las líneas de más de 90 caracteres también se publican.
+ */
+public class LanguageServer {
+    private static final String SOURCE = "errorHunterVB";
+    // Cada cuántos diagnósticos serializados se comprueba si el resultado ya es antiguo
+    private static final int CANCEL_CHECK_INTERVAL = 256;
+
+    private final RuleRegistry rules;
+    private final long debounceMillis;
+    private final ConcurrentHashMap<String, Document> documents = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "errorhunter-lsp");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private OutputStream out;
+    private boolean shutdownRequested;
+
+    // Cambio de texto recibido: range null sustituye el documento completo
+    private static final class Change {
+        final Object range;
+        final String text;
+
+        Change(Object range, String text) {
+            this.range = range;
+            this.text = text;
+        }
+    }
+
+    // Documento abierto. pending y version se comparten con el hilo lector; validator solo lo usa el trabajador
+    private static final class Document {
+        final String uri;
+        final List<Change> pending = new ArrayList<>();
+        volatile long version;
+        volatile boolean closed;
+        int lspVersion;
+        ScheduledFuture<?> scheduled;
+        IncrementalValidator validator;
+
+        Document(String uri) {
+            this.uri = uri;
+        }
+    }
+
+    public LanguageServer(Options options) {
+        this.rules = options.rules;
+        this.debounceMillis = options.debounceMillis;
+    }
+
+    /**
+     * run() - Atiende mensajes hasta recibir exit o el final de la entrada. Devuelve el código de
+     * salida: 0 si antes se recibió shutdown, 1 en otro caso.
+     */
+    public int run(InputStream in, OutputStream out) throws IOException {
+        this.out = out;
+        try {
+            String body;
+            while ((body = readMessage(in)) != null) {
+                Object message;
+                try {
+                    message = Json.parse(body);
+                } catch (IllegalArgumentException e) {
+                    sendError(null, -32700, e.getMessage());
+                    continue;
+                }
+                if ("exit".equals(Json.get(message, "method"))) {
+                    break;
+                }
+                handle(message);
+            }
+        } finally {
+            worker.shutdownNow();
+        }
+        return shutdownRequested ? 0 : 1;
+    }
+
+    private void handle(Object message) throws IOException {
+        Object method = Json.get(message, "method");
+        Object id = Json.get(message, "id");
+        Object params = Json.get(message, "params");
+        boolean request = message instanceof Map && ((Map<?, ?>) message).containsKey("id");
+        if (!(method instanceof String)) {
+            // Respuestas del cliente a peticiones del servidor: no se envía ninguna
+            return;
+        }
+        try {
+            switch ((String) method) {
+                case "initialize":
+                    sendResult(id, "{\"capabilities\":{\"textDocumentSync\":{\"openClose\":true,\"change\":2}},"
+                        + "\"serverInfo\":{\"name\":\"" + SOURCE + "\"}}");
+                    return;
+                case "shutdown":
+                    shutdownRequested = true;
+                    sendResult(id, "null");
+                    return;
+                case "textDocument/didOpen":
+                    didOpen(Json.get(params, "textDocument"));
+                    return;
+                case "textDocument/didChange":
+                    didChange(Json.get(params, "textDocument"), Json.get(params, "contentChanges"));
+                    return;
+                case "textDocument/didClose":
+                    didClose(Json.get(params, "textDocument"));
+                    return;
+                default:
+                    if (request) {
+                        sendError(id, -32601, "Método no soportado: " + method);
+                    }
+            }
+        } catch (RuntimeException e) {
+            if (request) {
+                sendError(id, -32602, e.toString());
+            } else {
+                System.err.println("Mensaje " + method + " no válido: " + e);
+            }
+        }
+    }
+
+    private void didOpen(Object textDocument) {
+        String uri = (String) Json.get(textDocument, "uri");
+        Document document = new Document(uri);
+        Document previous = documents.put(uri, document);
+        if (previous != null) {
+            previous.closed = true;
+        }
+        synchronized (document) {
+            document.pending.add(new Change(null, (String) Json.get(textDocument, "text")));
+            document.lspVersion = Json.getInt(textDocument, "version", 0);
+            document.version++;
+            // Al abrir no se espera: no hay ráfaga de cambios que agrupar
+            document.scheduled = worker.schedule(() -> validate(document), 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void didChange(Object textDocument, Object contentChanges) {
+        Document document = documents.get((String) Json.get(textDocument, "uri"));
+        if (document == null || !(contentChanges instanceof List)) {
+            return;
+        }
+        synchronized (document) {
+            for (Object change : (List<?>) contentChanges) {
+                document.pending.add(new Change(Json.get(change, "range"), (String) Json.get(change, "text")));
+            }
+            document.lspVersion = Json.getInt(textDocument, "version", document.lspVersion);
+            document.version++;
+            // Debounce: la validación pendiente que aún no empezó se aplaza; una en curso verá la versión nueva y se descartará
+            if (document.scheduled != null) {
+                document.scheduled.cancel(false);
+            }
+            document.scheduled = worker.schedule(() -> validate(document), debounceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void didClose(Object textDocument) throws IOException {
+        String uri = (String) Json.get(textDocument, "uri");
+        Document document = documents.remove(uri);
+        if (document == null) {
+            return;
+        }
+        // Con el documento bloqueado, una validación en curso ya no puede publicar después de limpiar
+        synchronized (document) {
+            document.closed = true;
+            if (document.scheduled != null) {
+                document.scheduled.cancel(false);
+            }
+            send("{\"jsonrpc\":\"2.0\",\"method\":\"textDocument/publishDiagnostics\",\"params\":{\"uri\":"
+                + Metrics.quote(uri) + ",\"diagnostics\":[]}}");
+        }
+    }
+
+    // En el hilo trabajador: aplica los cambios pendientes y publica los diagnósticos si siguen vigentes
+    private void validate(Document document) {
+        try {
+            List<Change> changes;
+            long version;
+            int lspVersion;
+            synchronized (document) {
+                changes = new ArrayList<>(document.pending);
+                document.pending.clear();
+                version = document.version;
+                lspVersion = document.lspVersion;
+            }
+            for (Change change : changes) {
+                apply(document, change);
+            }
+            if (document.version != version || document.closed) {
+                return;
+            }
+            DiagnosticStore diagnostics = document.validator.diagnostics();
+            if (document.version != version || document.closed) {
+                return;
+            }
+            String message = publishDiagnostics(document, version, lspVersion, diagnostics);
+            if (message == null) {
+                return;
+            }
+            synchronized (document) {
+                if (document.version == version && !document.closed) {
+                    send(message);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error al validar " + document.uri + ": " + e);
+        }
+    }
+
+    private void apply(Document document, Change change) {
+        if (change.range == null || document.validator == null) {
+            document.validator = new IncrementalValidator(splitLines(change.text), rules);
+            return;
+        }
+        List<String> lines = document.validator.lines();
+        Object start = Json.get(change.range, "start");
+        Object end = Json.get(change.range, "end");
+        int startLine = Math.min(Json.getInt(start, "line", 0), lines.size() - 1);
+        int endLine = Math.min(Json.getInt(end, "line", 0), lines.size() - 1);
+        String first = lines.get(startLine);
+        String last = lines.get(endLine);
+        int startCharacter = Math.min(Json.getInt(start, "character", 0), first.length());
+        int endCharacter = Math.min(Json.getInt(end, "character", 0), last.length());
+        if (Json.getInt(end, "line", 0) >= lines.size()) {
+            // Posición más allá del final del documento
+            endCharacter = last.length();
+        }
+        String text = first.substring(0, startCharacter) + change.text + last.substring(endCharacter);
+        document.validator.edit(startLine + 1, endLine - startLine + 1, splitLines(text));
+    }
+
+    // Líneas del texto tal como las numera LSP: separadas por \n, \r\n o \r, con al menos una
+    static List<String> splitLines(String text) {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r') {
+                lines.add(text.substring(start, i));
+                if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                start = i + 1;
+            }
+        }
+        lines.add(text.substring(start));
+        return lines;
+    }
+
+    // Notificación publishDiagnostics, o null si durante la serialización llegó un texto más nuevo
+    private String publishDiagnostics(Document document, long version, int lspVersion, DiagnosticStore diagnostics) {
+        List<String> lines = document.validator.lines();
+        StringBuilder json = new StringBuilder(128 + diagnostics.size() * 160);
+        json.append("{\"jsonrpc\":\"2.0\",\"method\":\"textDocument/publishDiagnostics\",\"params\":{\"uri\":")
+            .append(Metrics.quote(document.uri)).append(",\"version\":").append(lspVersion).append(",\"diagnostics\":[");
+        String separator = "";
+        int written = 0;
+        int next = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            int lineNumber = i + 1;
+            String line = lines.get(i);
+            if (line.length() > DiagnosticWriter.MAX_LINE_LENGTH) {
+                appendDiagnostic(json.append(separator), i, 0, line.length(), DiagnosticWriter.LINE_TOO_LONG,
+                    DiagnosticWriter.LINE_TOO_LONG_MESSAGE);
+                separator = ",";
+            }
+            for (; next < diagnostics.size() && diagnostics.line(next) <= lineNumber; next++) {
+                if (diagnostics.line(next) < lineNumber) {
+                    continue;
+                }
+                int column = Math.min(diagnostics.column(next), line.length());
+                while (column < line.length() && Character.isWhitespace(line.charAt(column))) {
+                    column++;
+                }
+                appendDiagnostic(json.append(separator), i, column == line.length() ? 0 : column, line.length(),
+                    diagnostics.code(next).name(), diagnostics.message(next));
+                separator = ",";
+                if (++written % CANCEL_CHECK_INTERVAL == 0 && (document.version != version || document.closed)) {
+                    return null;
+                }
+            }
+        }
+        return json.append("]}}").toString();
+    }
+
+    private static void appendDiagnostic(StringBuilder json, int line, int startCharacter, int endCharacter, String code, String message) {
+        json.append("{\"range\":{\"start\":{\"line\":").append(line).append(",\"character\":").append(startCharacter)
+            .append("},\"end\":{\"line\":").append(line).append(",\"character\":").append(endCharacter)
+            .append("}},\"severity\":1,\"code\":\"").append(code).append("\",\"source\":\"").append(SOURCE)
+            .append("\",\"message\":").append(Metrics.quote(message)).append('}');
+    }
+
+    private void sendResult(Object id, String result) throws IOException {
+        send("{\"jsonrpc\":\"2.0\",\"id\":" + Json.write(id) + ",\"result\":" + result + "}");
+    }
+
+    private void sendError(Object id, int code, String message) throws IOException {
+        send("{\"jsonrpc\":\"2.0\",\"id\":" + Json.write(id) + ",\"error\":{\"code\":" + code
+            + ",\"message\":" + Metrics.quote(message) + "}}");
+    }
+
+    // El hilo lector y el trabajador escriben en la misma salida
+    private synchronized void send(String message) throws IOException {
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        out.write(("Content-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(body);
+        out.flush();
+    }
+
+    // Lee las cabeceras y el cuerpo de un mensaje; null al final de la entrada
+    private static String readMessage(InputStream in) throws IOException {
+        int length = -1;
+        while (true) {
+            String header = readHeaderLine(in);
+            if (header == null) {
+                return null;
+            }
+            if (header.isEmpty()) {
+                if (length >= 0) {
+                    break;
+                }
+                continue;
+            }
+            int colon = header.indexOf(':');
+            if (colon > 0 && header.substring(0, colon).trim().equalsIgnoreCase("Content-Length")) {
+                length = Integer.parseInt(header.substring(colon + 1).trim());
+            }
+        }
+        byte[] body = new byte[length];
+        int read = 0;
+        while (read < length) {
+            int n = in.read(body, read, length - read);
+            if (n < 0) {
+                return null;
+            }
+            read += n;
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    private static String readHeaderLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int c;
+        while ((c = in.read()) >= 0) {
+            if (c == '\n') {
+                String header = line.toString(StandardCharsets.US_ASCII.name());
+                return header.endsWith("\r") ? header.substring(0, header.length() - 1) : header;
+            }
+            line.write(c);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,93 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compara los tokens de VBScriptScanner con los del lexer de referencia (VBScriptLexer)
+ * sobre un conjunto de archivos, y los del escáner sobre los bytes (SourceText) con los del
+ * escáner sobre las líneas decodificadas. Los archivos se leen con detección de codificación.
+ * Uso: java LexerDiff archivo1.vb archivo2.vb ...
+ */
+public class LexerDiff {
+
+    public static void main(String[] args) {
+        int differences = 0;
+
+        for (String path : args) {
+            try {
+                SourceText source = SourceText.decode(Files.readAllBytes(Paths.get(path)), SourceText.AUTO);
+                List<String> lines = source.decodeLines();
+                differences += compare(path, lines);
+                differences += compareBytes(path, source, lines);
+            } catch (IOException e) {
+                System.err.println("Error al leer el archivo: " + e.getMessage());
+                System.exit(2);
+            }
+        }
+
+        if (differences > 0) {
+            System.out.println("Se encontraron " + differences + " diferencias entre los lexers.");
+            System.exit(1);
+        }
+        System.out.println("Los lexers producen los mismos tokens.");
+    }
+
+    // Devuelve el número de tokens distintos entre ambos lexers para un archivo
+    static int compare(String name, List<String> lines) {
+        ArrayList<Token> expected = new VBScriptLexer(lines).tokenize();
+        ArrayList<Token> actual = new VBScriptScanner(lines).tokenize();
+
+        int differences = 0;
+        int size = Math.max(expected.size(), actual.size());
+        for (int i = 0; i < size; i++) {
+            Token e = i < expected.size() ? expected.get(i) : null;
+            Token a = i < actual.size() ? actual.get(i) : null;
+            if (!sameToken(e, a)) {
+                System.out.println(name + ": regex=" + describe(e) + " scanner=" + describe(a));
+                differences++;
+            }
+        }
+        return differences;
+    }
+
+    // Devuelve el número de tokens distintos entre el escáner sobre bytes y sobre líneas decodificadas
+    static int compareBytes(String name, SourceText source, List<String> lines) {
+        TokenBuffer expected = new VBScriptScanner(lines).tokenizeToBuffer();
+        TokenBuffer actual = VBScriptScanner.tokenize(source);
+
+        int differences = 0;
+        int size = Math.max(expected.size(), actual.size());
+        for (int i = 0; i < size; i++) {
+            String e = i < expected.size() ? describe(expected, i) : "(ninguno)";
+            String a = i < actual.size() ? describe(actual, i) : "(ninguno)";
+            if (!e.equals(a)) {
+                System.out.println(name + ": líneas=" + e + " bytes=" + a);
+                differences++;
+            }
+        }
+        return differences;
+    }
+
+    private static String describe(TokenBuffer tokens, int i) {
+        return tokens.lineNumber(i) + ":" + tokens.start(i) + " " + tokens.type(i) + " [" + tokens.text(i) + "]";
+    }
+
+    private static boolean sameToken(Token a, Token b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.getType() == b.getType()
+            && a.getText().equals(b.getText())
+            && a.getLineNumber() == b.getLineNumber()
+            && a.getCharPosition() == b.getCharPosition();
+    }
+
+    private static String describe(Token token) {
+        if (token == null) {
+            return "(ninguno)";
+        }
+        return token.getLineNumber() + ":" + token.getCharPosition() + " " + token.getType() + " [" + token.getText() + "]";
+    }
+}
@@ -0,0 +1,131 @@
+import java.util.Arrays;
+
+/**
+ * Índice de posiciones de inicio de línea sobre el contenido en bytes de un archivo.
+ *
+ * Separa las líneas igual que BufferedReader.readLine() (\n, \r o \r\n), de modo que la línea i
+ * del índice corresponde a la línea i de Files.readAllLines(). Los bytes '\n' y '\r' nunca
+ * forman parte de una secuencia multibyte en UTF-8, así que el índice vale para texto UTF-8 y
+ * para cualquier codificación de un byte compatible con ASCII. También anota qué líneas
+ * contienen algún byte no ASCII.
+ */
+public class LineIndex {
+    // starts[i] = primer byte de la línea i; ends[i] = fin del contenido de la línea (sin terminador)
+    private final int[] starts;
+    private final int[] ends;
+    // Bit i activo si la línea i contiene algún byte >= 0x80
+    private final long[] nonAscii;
+    private final int count;
+    private final int length;
+
+    private LineIndex(int[] starts, int[] ends, long[] nonAscii, int count, int length) {
+        this.starts = starts;
+        this.ends = ends;
+        this.nonAscii = nonAscii;
+        this.count = count;
+        this.length = length;
+    }
+
+    public static LineIndex of(byte[] content) {
+        return of(content, 0, content.length);
+    }
+
+    public static LineIndex of(byte[] content, int length) {
+        return of(content, 0, length);
+    }
+
+    // Índice de content[from, length), por ejemplo tras una marca BOM; las posiciones son absolutas
+    public static LineIndex of(byte[] content, int from, int length) {
+        int[] starts = new int[16];
+        int[] ends = new int[16];
+        long[] nonAscii = new long[1];
+        int count = 0;
+        int start = from;
+        int high = 0;
+        int i = from;
+        while (i < length) {
+            byte b = content[i];
+            if (b == '\n' || b == '\r') {
+                if (count == starts.length) {
+                    starts = grow(starts);
+                    ends = grow(ends);
+                    nonAscii = Arrays.copyOf(nonAscii, starts.length / 64 + 1);
+                }
+                starts[count] = start;
+                ends[count] = i;
+                if (high < 0) {
+                    nonAscii[count >>> 6] |= 1L << count;
+                }
+                count++;
+                high = 0;
+                i += (b == '\r' && i + 1 < length && content[i + 1] == '\n') ? 2 : 1;
+                start = i;
+            } else {
+                high |= b;
+                i++;
+            }
+        }
+        if (start < length) {
+            // Última línea sin terminador
+            if (count == starts.length) {
+                starts = grow(starts);
+                ends = grow(ends);
+                nonAscii = Arrays.copyOf(nonAscii, starts.length / 64 + 1);
+            }
+            starts[count] = start;
+            ends[count] = length;
+            if (high < 0) {
+                nonAscii[count >>> 6] |= 1L << count;
+            }
+            count++;
+        }
+        return new LineIndex(starts, ends, nonAscii, count, length);
+    }
+
+    private static int[] grow(int[] array) {
+        int[] grown = new int[array.length * 2];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+
+    // Número de líneas
+    public int count() {
+        return count;
+    }
+
+    // Primer byte de la línea (índice desde 0)
+    public int start(int line) {
+        return starts[line];
+    }
+
+    // Fin del contenido de la línea, sin el terminador
+    public int end(int line) {
+        return ends[line];
+    }
+
+    // true si la línea solo contiene bytes ASCII
+    public boolean isAscii(int line) {
+        return (nonAscii[line >>> 6] & (1L << line)) == 0;
+    }
+
+    // Inicio de la línea siguiente (incluye el terminador de esta línea)
+    public int next(int line) {
+        return line + 1 < count ? starts[line + 1] : length;
+    }
+
+    // Longitud de la línea en unidades UTF-16, como String.length() de la línea decodificada
+    public static int charLength(byte[] content, int start, int end) {
+        int chars = 0;
+        for (int i = start; i < end; i++) {
+            int b = content[i];
+            if ((b & 0xC0) != 0x80) {
+                chars++;
+                if ((b & 0xF8) == 0xF0) {
+                    // Secuencia de 4 bytes: par suplente en UTF-16
+                    chars++;
+                }
+            }
+        }
+        return chars;
+    }
+}
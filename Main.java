@@ -1,49 +1,311 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 public class Main {
 
     public static void main(String[] args) {
-        String vbFilePath;
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        if (options.baseline != null && (options.lsp || options.streaming
+                || (options.updateBaseline && (options.daemon || options.watch || options.client)))) {
+            // El modo streaming no conserva los diagnósticos; el demonio y --watch no terminan
+            // para escribir la línea base
+            System.err.println("--baseline no es compatible con --lsp ni con --stream, y --update-baseline tampoco con --daemon, --watch ni --client");
+            System.exit(2);
+            return;
+        }
+
+        if (options.importsIndex != null && (options.lsp || options.streaming || options.daemon || options.client)) {
+            System.err.println("--imports-index no es compatible con --lsp, --stream, --daemon ni --client");
+            System.exit(2);
+            return;
+        }
+
+        if (options.client && options.daemonSideOption() != null) {
+            // Se aplicarían al validar en el propio proceso pero no a través del demonio
+            System.err.println(options.daemonSideOption() + " no es compatible con --client: el demonio valida con las opciones con las que se arrancó");
+            System.exit(2);
+            return;
+        }
+
+        if (options.lsp) {
+            // La salida estándar queda para los mensajes del protocolo
+            PrintStream protocol = System.out;
+            System.setOut(System.err);
+            try {
+                System.exit(new LanguageServer(options).run(new BufferedInputStream(System.in), protocol));
+            } catch (IOException e) {
+                System.err.println("Error en la conexión con el editor: " + e.getMessage());
+                System.exit(2);
+            }
+            return;
+        }
 
-        if (args.length == 0) {
+        if (options.changedRange != null && (options.daemon || options.watch || options.client || isStdin(options.inputs))) {
+            System.err.println("--changed no es compatible con --daemon, --watch, --client ni con la entrada estándar");
+            System.exit(2);
+            return;
+        }
+
+        if (options.inputs.isEmpty() && !options.daemon && !options.stopDaemon && options.changedRange == null) {
             // No arguments, use default path
-            vbFilePath = "test/default.vb";
-            System.out.println("No file specified. Using default file: " + vbFilePath);
-        } else {
-            // Use the provided argument
-            vbFilePath = args[0];
+            options.inputs.add("test/default.vb");
+            System.out.println("No file specified. Using default file: test/default.vb");
+        }
+
+        if (options.metricsOutput != null) {
+            Metrics.enable();
         }
 
-        String basePath = vbFilePath.substring(0, vbFilePath.lastIndexOf('.'));
+        if (options.machineOutput() && (options.daemon || options.watch || options.client || isStdin(options.inputs))) {
+            System.err.println("--format=" + options.format + " no es compatible con --daemon, --watch, --client ni con la entrada estándar");
+            System.exit(2);
+            return;
+        }
 
         try {
-            List<String> lines = Files.readAllLines(Paths.get(vbFilePath));
-            ErrorReporter errorReporter = new ErrorReporter(basePath);
+            if (options.stopDaemon) {
+                if (!DaemonClient.shutdown(options.port)) {
+                    System.err.println("No hay ningún demonio escuchando en el puerto " + options.port);
+                    System.exit(2);
+                }
+                return;
+            }
+
+            List<String> stdinLines = isStdin(options.inputs) ? readStdin() : null;
+            if (options.client) {
+                int exitCode = DaemonClient.run(options, stdinLines);
+                if (exitCode != DaemonClient.NOT_RUNNING) {
+                    if (exitCode != 0) {
+                        System.exit(exitCode);
+                    }
+                    return;
+                }
+                // Sin demonio en marcha: validación en el propio proceso
+            }
+
+            ResultCache cache = null;
+            if (options.cacheDir != null) {
+                cache = new ResultCache(Paths.get(options.cacheDir), options.cacheMaxMb * 1024 * 1024);
+            }
+            DiagnosticWriter diagnosticWriter = null;
+            if (options.machineOutput()) {
+                diagnosticWriter = DiagnosticWriter.open(options.format, options.outputPath());
+                if (options.outputPath().equals("-")) {
+                    // La salida estándar queda para los diagnósticos; los mensajes van a la de errores
+                    System.setOut(System.err);
+                }
+            }
+            FileValidator fileValidator = new FileValidator(options, cache, diagnosticWriter);
+            Baseline baseline = null;
+            Baseline.Recorder baselineRecorder = null;
+            if (options.updateBaseline) {
+                baselineRecorder = new Baseline.Recorder(Paths.get(options.baseline));
+            } else if (options.baseline != null) {
+                if (!Files.isRegularFile(Paths.get(options.baseline))) {
+                    System.err.println("No existe la línea base " + options.baseline + "; créela con --update-baseline");
+                    System.exit(2);
+                    return;
+                }
+                baseline = Baseline.load(Paths.get(options.baseline));
+            }
+            fileValidator.setBaseline(baseline, baselineRecorder);
+            if (options.importsIndex != null) {
+                fileValidator.setNamespaceIndex(NamespaceIndex.load(Paths.get(options.importsIndex), options.encoding));
+            }
+            CorpusStatistics corpus = options.corpusReport != null ? new CorpusStatistics() : null;
 
-            VBScriptLexer lexer = new VBScriptLexer(lines);
-            ArrayList<Token> tokens = lexer.tokenize();
+            if (options.daemon) {
+                new ValidationDaemon(options, fileValidator, cache).run();
+                return;
+            }
 
-            VBScriptParser parser = new VBScriptParser(tokens, errorReporter);
-            
-            parser.parse();
+            if (options.watch) {
+                new DirectoryWatcher(options, fileValidator).run(options.inputs);
+                return;
+            }
+
+            int exitCode = 0;
+            try {
+                if (options.changedRange != null) {
+                    // Solo los archivos cambiados entre dos revisiones, leídos de git; las entradas limitan las rutas
+                    GitChangeSet changes = GitChangeSet.load(options.changedRange, options.inputs);
+                    System.out.println(changes.files().size() + " archivos .vb cambiados entre " + changes.from()
+                        + " y " + changes.to());
+                    updateNamespaceIndex(options, fileValidator, changes.files(), changes.contents());
+                    exitCode = new BatchValidator(options, fileValidator, corpus).run(changes.files(), changes.contents());
+                } else if (stdinLines != null) {
+                    updateNamespaceIndex(options, fileValidator, new ArrayList<>(), null);
+                    exitCode = printDiagnostics(fileValidator.validateSource("-", stdinLines));
+                } else if (isSingleFile(options.inputs)) {
+                    String vbFilePath = options.inputs.get(0);
+                    updateNamespaceIndex(options, fileValidator, options.inputs, null);
+                    ValidationResult result = validateSingleFile(fileValidator, vbFilePath);
+                    if (corpus != null) {
+                        corpus.record(result);
+                    }
+                    if (diagnosticWriter != null) {
+                        printMachineResult(result.hasErrors(), options.outputPath());
+                    } else {
+                        printResult(result.hasErrors(), FileValidator.basePath(vbFilePath, options.reportDir));
+                    }
+                } else {
+                    // Varios archivos, directorios, patrones glob o listas: validación en paralelo
+                    List<String> files = InputCollector.collect(options.inputs);
+                    updateNamespaceIndex(options, fileValidator, files, null);
+                    exitCode = new BatchValidator(options, fileValidator, corpus).run(files);
+                }
+            } finally {
+                if (diagnosticWriter != null) {
+                    diagnosticWriter.close();
+                }
+                ArchiveSources.closeAll();
+            }
 
-            errorReporter.writeHeader(vbFilePath);
-            errorReporter.reportSummary(parser.stats);
-            errorReporter.writeErrorsToFile(lines);
-            
-            if (errorReporter.hasErrors()) {
-                System.out.println("Se encontraron errores. Revise el archivo " + basePath + "-Errores.txt");
-            } else {
-                System.out.println("Análisis completado sin errores.");
+            if (baselineRecorder != null) {
+                baselineRecorder.write(Paths.get(options.baseline));
+                System.out.println("Línea base " + options.baseline + " actualizada con " + baselineRecorder.size() + " diagnósticos.");
+            } else if (baseline != null && baseline.suppressed() > 0 && stdinLines == null) {
+                System.out.println(baseline.suppressed() + " diagnósticos conocidos omitidos por la línea base " + options.baseline + ".");
+            }
+            if (cache != null) {
+                cache.evict();
+            }
+            if (options.metricsOutput != null) {
+                writeMetrics(options.metricsOutput);
+            }
+            if (corpus != null) {
+                writeCorpusReport(options.corpusReport, corpus);
+            }
+            if (exitCode != 0) {
+                System.exit(exitCode);
             }
 
         } catch (IOException e) {
             System.err.println("Error al leer el archivo: " + e.getMessage());
             System.exit(2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.exit(2);
+        }
+    }
+
+    /**
+     * updateNamespaceIndex() - Con --imports-index, actualiza el índice con los archivos del
+     * proyecto y los que se van a validar antes de validarlos, y lo guarda. Con contents (los
+     * archivos de --changed), los nombres que declaran se toman de la revisión que se valida y no
+     * del directorio de trabajo.
+     */
+    static void updateNamespaceIndex(Options options, FileValidator fileValidator, List<String> files,
+            Map<String, byte[]> contents) throws IOException, InterruptedException {
+        NamespaceIndex index = fileValidator.getNamespaceIndex();
+        if (index == null) {
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(options.effectiveThreads());
+        int rescanned;
+        try {
+            rescanned = index.update(files, pool);
+        } finally {
+            pool.shutdown();
+        }
+        if (contents != null) {
+            index.overlay(contents);
+        }
+        index.save(Paths.get(options.importsIndex));
+        System.out.println("Índice de Imports: " + index.size() + " archivos, " + rescanned + " leídos de nuevo.");
+    }
+
+    // Una única ruta que no es directorio, patrón ni lista conserva el comportamiento original
+    static boolean isSingleFile(List<String> inputs) {
+        if (inputs.size() != 1) {
+            return false;
+        }
+        return InputCollector.isPlainFile(inputs.get(0));
+    }
+
+    // "-" como única entrada: el código se lee de la entrada estándar
+    private static boolean isStdin(List<String> inputs) {
+        return inputs.size() == 1 && inputs.get(0).equals("-");
+    }
+
+    private static List<String> readStdin() throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    // Muestra los diagnósticos del código leído de la entrada estándar y devuelve el código de salida
+    static int printDiagnostics(DiagnosticStore diagnostics) {
+        for (int i = 0; i < diagnostics.size(); i++) {
+            System.out.println(String.format("Error en línea %04d: %s", diagnostics.line(i), diagnostics.message(i)));
+        }
+        return diagnostics.isEmpty() ? BatchValidator.EXIT_OK : BatchValidator.EXIT_ERRORS_FOUND;
+    }
+
+    private static void writeMetrics(String output) throws IOException {
+        if (output.equals("-")) {
+            // En la salida de error, para no mezclar el JSON con los mensajes de progreso
+            System.err.print(Metrics.toJson());
+        } else {
+            Files.write(Paths.get(output), Metrics.toJson().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void writeCorpusReport(String output, CorpusStatistics corpus) throws IOException {
+        if (output.equals("-")) {
+            System.out.print(corpus.toText());
+        } else {
+            Files.write(Paths.get(output), corpus.toJson().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    // Un fallo de lectura también queda registrado en la salida JSON Lines o SARIF
+    private static ValidationResult validateSingleFile(FileValidator fileValidator, String vbFilePath) throws IOException {
+        try {
+            return fileValidator.validate(vbFilePath);
+        } catch (IOException e) {
+            if (fileValidator.getDiagnosticWriter() != null) {
+                fileValidator.getDiagnosticWriter().writeFailure(vbFilePath, e.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    private static void printMachineResult(boolean errorsFound, String output) {
+        if (errorsFound) {
+            System.out.println("Se encontraron errores. Revise " + (output.equals("-") ? "la salida estándar" : "el archivo " + output));
+        } else {
+            System.out.println("Análisis completado sin errores.");
+        }
+    }
+
+    static void printResult(boolean errorsFound, String basePath) {
+        if (errorsFound) {
+            System.out.println("Se encontraron errores. Revise el archivo " + basePath + "-Errores.txt");
+        } else {
+            System.out.println("Análisis completado sin errores.");
         }
     }
 }
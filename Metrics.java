@@ -0,0 +1,210 @@
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registro de métricas en proceso.
+ *
+ * Acumula contadores (líneas, tokens por tipo, evaluaciones de reglas, bytes escritos...) y
+ * tiempos por fase, y los vuelca como JSON al terminar con --metrics. Las fases también se
+ * emiten como eventos de JDK Flight Recorder (PhaseEvent), que solo tienen coste cuando hay una
+ * grabación activa. Mientras el registro no esté activado, los contadores no hacen nada.
+ */
+public final class Metrics {
+    // Nombres de los contadores
+    public static final String FILES = "files";
+    public static final String LINES = "lines";
+    public static final String TOKENS = "tokens";
+    public static final String BYTES_READ = "bytes.read";
+    public static final String BYTES_WRITTEN = "bytes.written";
+    public static final String ERRORS = "errors";
+    public static final String CACHE_HITS = "cache.hits";
+    public static final String CACHE_MISSES = "cache.misses";
+    public static final String BASELINE_SUPPRESSED = "baseline.suppressed";
+    public static final String RULE_PREFIX = "rule.";
+    public static final String TOKEN_TYPE_PREFIX = "tokens.";
+
+    private static final String[] TOKEN_TYPE_NAMES = new String[Token.Type.values().length];
+    static {
+        for (Token.Type type : Token.Type.values()) {
+            TOKEN_TYPE_NAMES[type.ordinal()] = TOKEN_TYPE_PREFIX + type;
+        }
+    }
+
+    // Se activa antes de empezar el análisis y no cambia después
+    private static boolean enabled = false;
+
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final Map<String, PhaseStats> phases = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    public static void enable() {
+        enabled = true;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void increment(String name) {
+        if (enabled) {
+            counters.computeIfAbsent(name, key -> new LongAdder()).increment();
+        }
+    }
+
+    public static void add(String name, long delta) {
+        if (enabled) {
+            counters.computeIfAbsent(name, key -> new LongAdder()).add(delta);
+        }
+    }
+
+    // Cuenta los tokens por tipo
+    public static void countTokens(Iterable<Token> tokens) {
+        if (!enabled) {
+            return;
+        }
+        long[] perType = new long[Token.Type.values().length];
+        long total = 0;
+        for (Token token : tokens) {
+            perType[token.getType().ordinal()]++;
+            total++;
+        }
+        add(TOKENS, total);
+        for (int i = 0; i < perType.length; i++) {
+            if (perType[i] > 0) {
+                add(TOKEN_TYPE_NAMES[i], perType[i]);
+            }
+        }
+    }
+
+    // Cuenta los tokens de un TokenBuffer por tipo
+    public static void countTokens(TokenBuffer tokens) {
+        if (!enabled) {
+            return;
+        }
+        long[] perType = tokens.countByType();
+        add(TOKENS, tokens.size());
+        for (int i = 0; i < perType.length; i++) {
+            if (perType[i] > 0) {
+                add(TOKEN_TYPE_NAMES[i], perType[i]);
+            }
+        }
+    }
+
+    // Cuenta un único token de un tipo dado
+    public static void countToken(Token.Type type) {
+        if (enabled) {
+            increment(TOKENS);
+            increment(TOKEN_TYPE_NAMES[type.ordinal()]);
+        }
+    }
+
+    /**
+     * startPhase() - Empieza a medir una fase para un archivo. La medición termina con Phase.end().
+     */
+    public static Phase startPhase(String name, String file) {
+        return new Phase(name, file);
+    }
+
+    /**
+     * Medición en curso de una fase.
+     */
+    public static final class Phase {
+        private final String name;
+        private final String file;
+        private final long start;
+        private final PhaseEvent event;
+
+        private Phase(String name, String file) {
+            this.name = name;
+            this.file = file;
+            this.event = new PhaseEvent();
+            this.event.begin();
+            this.start = System.nanoTime();
+        }
+
+        // Termina la fase indicando cuántos elementos (líneas, tokens, bytes) procesó
+        public void end(long items) {
+            long elapsed = System.nanoTime() - start;
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = name;
+                event.file = file;
+                event.items = items;
+                event.commit();
+            }
+            if (enabled) {
+                phases.computeIfAbsent(name, key -> new PhaseStats()).record(elapsed, items);
+            }
+        }
+    }
+
+    // Tiempos acumulados de una fase
+    private static final class PhaseStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder items = new LongAdder();
+
+        void record(long nanos, long processed) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            items.add(processed);
+        }
+    }
+
+    /**
+     * toJson() - Vuelca las métricas como un objeto JSON con las secciones "phases" y "counters".
+     */
+    public static String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"phases\": {");
+        String separator = "\n";
+        for (Map.Entry<String, PhaseStats> entry : new TreeMap<>(phases).entrySet()) {
+            PhaseStats stats = entry.getValue();
+            json.append(separator).append("    ").append(quote(entry.getKey())).append(": {")
+                .append("\"count\": ").append(stats.count.sum())
+                .append(", \"totalNanos\": ").append(stats.totalNanos.sum())
+                .append(", \"maxNanos\": ").append(stats.maxNanos.get())
+                .append(", \"items\": ").append(stats.items.sum())
+                .append('}');
+            separator = ",\n";
+        }
+        json.append(phases.isEmpty() ? "}" : "\n  }");
+        json.append(",\n  \"counters\": {");
+        separator = "\n";
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+            json.append(separator).append("    ").append(quote(entry.getKey())).append(": ").append(entry.getValue().sum());
+            separator = ",\n";
+        }
+        json.append(counters.isEmpty() ? "}" : "\n  }");
+        json.append("\n}\n");
+        return json.toString();
+    }
+
+    static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': quoted.append("\\\""); break;
+                case '\\': quoted.append("\\\\"); break;
+                case '\n': quoted.append("\\n"); break;
+                case '\r': quoted.append("\\r"); break;
+                case '\t': quoted.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
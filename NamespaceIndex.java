@@ -0,0 +1,419 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Índice de los espacios de nombres y módulos declarados en el proyecto, para resolver los
+ * Imports de cada archivo.
+ *
+ * El proyecto son todos los archivos .vb bajo el directorio del archivo del índice (sin entrar en
+ * los directorios ocultos, como .git), además de los que se validan fuera de él. Guarda por
+ * archivo su tamaño, su fecha de modificación y los nombres que declara ("Namespace A.B" declara
+ * A y A.B; "Module M" dentro de él, A.B.M), y cuenta cuántos archivos declaran cada nombre. La
+ * primera llamada a update() de cada proceso recorre el proyecto y las siguientes solo comprueban
+ * los archivos ya indexados y los indicados; en ambos casos solo se vuelven a leer, en paralelo,
+ * los archivos nuevos o cuyo tamaño o fecha cambiaron, y se descartan los que ya no existen. El
+ * índice se guarda en disco entre ejecuciones, así que una ejecución sobre un proyecto sin
+ * cambios no lee ningún archivo para construirlo. Hasta que el proyecto se ha recorrido, check()
+ * no reporta nada: un índice incompleto daría por no resueltos Imports correctos. Los nombres no
+ * distinguen mayúsculas. Los espacios de nombres del framework (System, Microsoft) se resuelven
+ * siempre.
+ * Uso: NamespaceIndex.load(ruta), update(archivos, pool), save(ruta) y check() al validar cada archivo.
+ */
+public final class NamespaceIndex {
+    private static final int MAGIC = 0x45484E49; // "EHNI"
+    private static final int FORMAT_VERSION = 1;
+    // Raíces de los espacios de nombres externos al proyecto
+    private static final String[] EXTERNAL_ROOTS = {"system", "microsoft"};
+
+    // Nombres declarados por un archivo en el estado (tamaño, fecha) en que se leyó
+    private static final class Entry {
+        final long size;
+        final long modified;
+        final String[] declared;
+
+        Entry(long size, long modified, String[] declared) {
+            this.size = size;
+            this.modified = modified;
+            this.declared = declared;
+        }
+    }
+
+    private final String encoding;
+    // Directorio del proyecto
+    private final Path root;
+    // Por ruta absoluta (o la de la entrada de un archivo comprimido)
+    private final Map<String, Entry> files = new HashMap<>();
+    // Número de archivos que declaran cada nombre, en minúsculas; se consulta desde varios hilos
+    private final Map<String, Integer> declared = new ConcurrentHashMap<>();
+    // El proyecto se recorrió en este proceso: el índice tiene todos sus archivos
+    private volatile boolean complete;
+
+    public NamespaceIndex(Path root, String encoding) {
+        this.root = root.toAbsolutePath().normalize();
+        this.encoding = encoding;
+    }
+
+    /**
+     * load() - Lee un índice guardado con save(); si no existe o es de otra versión, devuelve uno
+     * vacío que update() llenará. El proyecto es el directorio de file.
+     */
+    public static NamespaceIndex load(Path file, String encoding) throws IOException {
+        NamespaceIndex index = new NamespaceIndex(file.toAbsolutePath().normalize().getParent(), encoding);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !in.readUTF().equals(encoding)) {
+                return index;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                long size = in.readLong();
+                long modified = in.readLong();
+                String[] names = new String[in.readInt()];
+                for (int j = 0; j < names.length; j++) {
+                    names[j] = in.readUTF();
+                }
+                index.put(path, new Entry(size, modified, names));
+            }
+        } catch (NoSuchFileException e) {
+            // Primera ejecución
+        }
+        return index;
+    }
+
+    /**
+     * save() - Guarda el índice en un temporal y lo publica con un movimiento atómico.
+     */
+    public void save(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = parent.resolve(file.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        try {
+            try (OutputStream stream = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 64 * 1024))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(encoding);
+                out.writeInt(files.size());
+                for (Map.Entry<String, Entry> entry : files.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue().size);
+                    out.writeLong(entry.getValue().modified);
+                    out.writeInt(entry.getValue().declared.length);
+                    for (String name : entry.getValue().declared) {
+                        out.writeUTF(name);
+                    }
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * update() - Añade los archivos indicados, y la primera vez los del proyecto, y comprueba todos
+     * los del índice: vuelve a leer en pool los nuevos y los que cambiaron, y elimina los que ya no
+     * existen. Devuelve el número de archivos leídos.
+     */
+    public int update(Collection<String> paths, ExecutorService pool) throws IOException, InterruptedException {
+        Set<String> keys = new LinkedHashSet<>(files.keySet());
+        // Atributos leídos al recorrer el proyecto, para no volver a leerlos en scan()
+        Map<String, BasicFileAttributes> walked = complete ? new HashMap<>() : walk();
+        keys.addAll(walked.keySet());
+        for (String path : paths) {
+            keys.add(key(path));
+        }
+        List<String> order = new ArrayList<>(keys);
+        List<Callable<Entry>> tasks = new ArrayList<>();
+        for (String key : order) {
+            Entry previous = files.get(key);
+            BasicFileAttributes attributes = walked.get(key);
+            tasks.add(() -> scan(key, previous, attributes));
+        }
+        List<Future<Entry>> futures = pool.invokeAll(tasks);
+
+        int rescanned = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            String key = order.get(i);
+            Entry previous = files.get(key);
+            Entry entry;
+            try {
+                entry = futures.get(i).get();
+            } catch (ExecutionException e) {
+                // Ilegible: se trata como si no existiera; la validación reportará el fallo
+                entry = null;
+            }
+            if (entry == previous) {
+                continue;
+            }
+            remove(key);
+            if (entry != null) {
+                put(key, entry);
+                rescanned++;
+            }
+        }
+        complete = true;
+        return rescanned;
+    }
+
+    /**
+     * overlay() - Sustituye los nombres que declaran los archivos indicados por los de su
+     * contenido en otra revisión (--changed), sin tamaño ni fecha: la siguiente actualización de
+     * otro proceso los vuelve a leer del directorio de trabajo.
+     */
+    public void overlay(Map<String, byte[]> contents) throws IOException {
+        for (Map.Entry<String, byte[]> file : contents.entrySet()) {
+            String key = key(file.getKey());
+            Entry entry = new Entry(-1, -1, declarations(SourceText.decode(file.getValue(), encoding).lines()));
+            remove(key);
+            put(key, entry);
+        }
+    }
+
+    // Archivos .vb del proyecto, con sus atributos, sin entrar en los directorios ocultos
+    private Map<String, BasicFileAttributes> walk() throws IOException {
+        Map<String, BasicFileAttributes> found = new HashMap<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) {
+                Path name = directory.getFileName();
+                boolean hidden = !directory.equals(root) && name != null && name.toString().startsWith(".");
+                return hidden ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile() && file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".vb")) {
+                    found.put(file.toString(), attributes);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                // Ilegible o eliminado durante el recorrido
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return found;
+    }
+
+    public int size() {
+        return files.size();
+    }
+
+    /**
+     * check() - Reporta UNRESOLVED_IMPORT en cada cláusula de los Imports de lines que no
+     * nombra un espacio de nombres o módulo del índice ni uno externo. Las líneas se reconocen con
+     * VBScriptScanner, igual que los tokens IMPORT del parser.
+     */
+    public void check(List<? extends CharSequence> lines, DiagnosticStore diagnostics) {
+        if (!complete) {
+            return;
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            CharSequence line = lines.get(i);
+            int start = skipSpaces(line, 0);
+            if (start == line.length() || Character.toLowerCase(line.charAt(start)) != 'i') {
+                continue;
+            }
+            long scanned = VBScriptScanner.scan(line);
+            if (scanned == VBScriptScanner.NO_TOKEN || VBScriptScanner.typeOf(scanned) != Token.Type.IMPORT) {
+                continue;
+            }
+            checkClauses(line, start + "Imports".length(), VBScriptScanner.endOf(scanned), i + 1, diagnostics);
+        }
+    }
+
+    // Imports A, B.C, Alias = D.E ' comentario: el espacio de nombres de cada cláusula
+    private void checkClauses(CharSequence line, int from, int end, int lineNumber, DiagnosticStore diagnostics) {
+        int i = from;
+        while (i < end) {
+            int nameStart = skipSpaces(line, i);
+            int nameEnd = qualifiedNameEnd(line, nameStart, end);
+            int next = skipSpaces(line, nameEnd);
+            if (next < end && line.charAt(next) == '=') {
+                // Alias: el nombre importado es el que sigue al '='
+                nameStart = skipSpaces(line, next + 1);
+                nameEnd = qualifiedNameEnd(line, nameStart, end);
+                next = skipSpaces(line, nameEnd);
+            }
+            if (nameEnd > nameStart && !isResolved(line.subSequence(nameStart, nameEnd).toString())) {
+                diagnostics.add(lineNumber, nameStart, ErrorCode.UNRESOLVED_IMPORT, 0);
+            }
+            if (next >= end || line.charAt(next) != ',') {
+                return;
+            }
+            i = next + 1;
+        }
+    }
+
+    /**
+     * isResolved() - El nombre es un espacio de nombres o módulo declarado en el proyecto, o
+     * pertenece a uno externo.
+     */
+    public boolean isResolved(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        if (declared.containsKey(lower)) {
+            return true;
+        }
+        int dot = lower.indexOf('.');
+        String root = dot < 0 ? lower : lower.substring(0, dot);
+        for (String external : EXTERNAL_ROOTS) {
+            if (root.equals(external)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // La entrada del archivo si no cambió, una nueva si cambió o null si ya no existe; attributes
+    // son los del recorrido del proyecto, o null para leerlos
+    private Entry scan(String key, Entry previous, BasicFileAttributes attributes) throws IOException {
+        Path path = ArchiveSources.resolve(key);
+        if (attributes == null) {
+            try {
+                attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+        }
+        long modified = attributes.lastModifiedTime().toMillis();
+        if (previous != null && previous.size == attributes.size() && previous.modified == modified) {
+            return previous;
+        }
+        SourceText source = SourceText.decode(Files.readAllBytes(path), encoding);
+        return new Entry(attributes.size(), modified, declarations(source.lines()));
+    }
+
+    /**
+     * declarations() - Nombres completos que declaran las líneas: cada prefijo de un Namespace
+     * (anidado en los abiertos) y cada Module, en minúsculas.
+     */
+    static String[] declarations(List<? extends CharSequence> lines) {
+        Set<String> names = new LinkedHashSet<>();
+        List<String> namespaces = new ArrayList<>();
+        for (CharSequence line : lines) {
+            int i = skipSpaces(line, 0);
+            int wordEnd = wordEnd(line, i);
+            String word = lowerCase(line, i, wordEnd);
+            if (word.equals("public") || word.equals("friend") || word.equals("private")) {
+                i = skipSpaces(line, wordEnd);
+                wordEnd = wordEnd(line, i);
+                word = lowerCase(line, i, wordEnd);
+            }
+            String prefix = namespaces.isEmpty() ? "" : namespaces.get(namespaces.size() - 1) + ".";
+            int nameStart = skipSpaces(line, wordEnd);
+            if (nameStart == wordEnd) {
+                continue;
+            }
+            if (word.equals("namespace")) {
+                String name = lowerCase(line, nameStart, qualifiedNameEnd(line, nameStart, line.length()));
+                if (name.isEmpty()) {
+                    continue;
+                }
+                String qualified = prefix + name;
+                for (int dot = qualified.indexOf('.', prefix.length()); dot >= 0; dot = qualified.indexOf('.', dot + 1)) {
+                    names.add(qualified.substring(0, dot));
+                }
+                names.add(qualified);
+                namespaces.add(qualified);
+            } else if (word.equals("module")) {
+                String name = lowerCase(line, nameStart, wordEnd(line, nameStart));
+                if (!name.isEmpty()) {
+                    names.add(prefix + name);
+                }
+            } else if (word.equals("end") && !namespaces.isEmpty()
+                    && lowerCase(line, nameStart, wordEnd(line, nameStart)).equals("namespace")) {
+                namespaces.remove(namespaces.size() - 1);
+            }
+        }
+        return names.toArray(new String[0]);
+    }
+
+    private void put(String key, Entry entry) {
+        files.put(key, entry);
+        for (String name : entry.declared) {
+            declared.merge(name, 1, Integer::sum);
+        }
+    }
+
+    private void remove(String key) {
+        Entry entry = files.remove(key);
+        if (entry != null) {
+            for (String name : entry.declared) {
+                declared.computeIfPresent(name, (k, count) -> count == 1 ? null : count - 1);
+            }
+        }
+    }
+
+    // Las entradas de un archivo comprimido conservan su nombre; el resto, la ruta absoluta
+    private static String key(String path) {
+        if (ArchiveSources.isEntry(path)) {
+            return path;
+        }
+        return Paths.get(path).toAbsolutePath().normalize().toString();
+    }
+
+    private static int skipSpaces(CharSequence line, int from) {
+        int i = from;
+        while (i < line.length() && VBScriptScanner.isSpace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int wordEnd(CharSequence line, int from) {
+        int i = from;
+        while (i < line.length() && (Character.isLetterOrDigit(line.charAt(i)) || line.charAt(i) == '_')) {
+            i++;
+        }
+        return i;
+    }
+
+    // Fin de un nombre con puntos (A.B.C) que empieza en from, o from si no hay ninguno
+    private static int qualifiedNameEnd(CharSequence line, int from, int end) {
+        int i = from;
+        while (i < end && (Character.isLetterOrDigit(line.charAt(i)) || line.charAt(i) == '_' || line.charAt(i) == '.')) {
+            i++;
+        }
+        while (i > from && line.charAt(i - 1) == '.') {
+            i--;
+        }
+        return i;
+    }
+
+    private static String lowerCase(CharSequence line, int from, int to) {
+        return line.subSequence(from, to).toString().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,198 @@
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Opciones de línea de comandos de errorHunterVB.
+ */
+public class Options {
+    // Lexer de referencia basado en expresiones regulares
+    public boolean useRegexLexer = false;
+    // Validación en streaming con memoria acotada
+    public boolean streaming = false;
+    // Número de hilos para validar varios archivos (0 = uno por núcleo disponible)
+    public int threads = 0;
+    // Directorio de la caché de resultados (null = sin caché)
+    public String cacheDir = null;
+    // Tamaño máximo de la caché en MB
+    public long cacheMaxMb = 256;
+    // Volcado de métricas en JSON al terminar: "-" para la salida de error, o una ruta (null = sin métricas)
+    public String metricsOutput = null;
+    // Informe agregado del corpus al terminar: "-" para un resumen en la salida estándar, o una ruta
+    // para guardarlo en JSON (null = sin informe)
+    public String corpusReport = null;
+    // Numerar las líneas del listado anotado
+    public boolean lineNumbers = true;
+    // Arrancar el demonio de validación residente
+    public boolean daemon = false;
+    // Validar a través del demonio, o en el propio proceso si no hay ninguno en marcha
+    public boolean client = false;
+    // Detener el demonio en marcha
+    public boolean stopDaemon = false;
+    // Puerto de loopback del demonio
+    public int port = ValidationDaemon.DEFAULT_PORT;
+    // Servidor Language Server Protocol por la entrada y salida estándar
+    public boolean lsp = false;
+    // Vigilar las entradas y volver a validar los archivos que cambien
+    public boolean watch = false;
+    // Tiempo sin eventos, en ms, tras el que se valida una ráfaga de cambios en modo --watch o --lsp
+    public long debounceMillis = 20;
+    // Tokens por tramo en el análisis sintáctico en paralelo de cada archivo (0 = secuencial)
+    public int parseChunkSize = 0;
+    // Reglas de formato activas
+    public RuleRegistry rules = RuleRegistry.defaults();
+    // Formato de salida: "listing" (informe <archivo>-Errores.txt por archivo), "jsonl" o "sarif"
+    public String format = "listing";
+    // Salida de los formatos jsonl y sarif: una ruta, o "-" para la salida estándar (null = errorhunter.<formato>)
+    public String output = null;
+    // Directorio en el que se escriben los informes -Errores.txt (null = junto a cada archivo; los
+    // de las entradas de un archivo comprimido, junto a él en un directorio con su nombre)
+    public String reportDir = null;
+    // Informe -Errores.txt solo con los errores, sin repetir el código fuente
+    public boolean errorsOnly = false;
+    // Codificación de los archivos fuente ("auto" = detectarla en cada archivo)
+    public String encoding = SourceText.AUTO;
+    // Revisiones de git ("A..B", "A...B" o "A" hasta HEAD) cuyos archivos .vb cambiados se validan,
+    // leídos de la revisión final (null = validar las entradas)
+    public String changedRange = null;
+    // Línea base de diagnósticos conocidos, que no se reportan (null = sin línea base)
+    public String baseline = null;
+    // Escribir en baseline los diagnósticos de esta ejecución en lugar de suprimirlos
+    public boolean updateBaseline = false;
+    // Índice persistente de los espacios de nombres y módulos del proyecto con el que se resuelven
+    // los Imports (null = no se resuelven)
+    public String importsIndex = null;
+    // Archivos, directorios, patrones glob o listas (@archivo); "-" para la entrada estándar
+    public final List<String> inputs = new ArrayList<>();
+
+    public static Options parse(String[] args) {
+        Options options = new Options();
+        for (String arg : args) {
+            if (arg.equals("--lexer=regex")) {
+                options.useRegexLexer = true;
+            } else if (arg.equals("--lexer=scanner")) {
+                options.useRegexLexer = false;
+            } else if (arg.equals("--stream")) {
+                options.streaming = true;
+            } else if (arg.startsWith("--threads=")) {
+                options.threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--cache-dir=")) {
+                options.cacheDir = arg.substring("--cache-dir=".length());
+            } else if (arg.startsWith("--cache-max-mb=")) {
+                options.cacheMaxMb = Long.parseLong(arg.substring("--cache-max-mb=".length()));
+            } else if (arg.equals("--metrics")) {
+                options.metricsOutput = "-";
+            } else if (arg.startsWith("--metrics=")) {
+                options.metricsOutput = arg.substring("--metrics=".length());
+            } else if (arg.equals("--corpus-report")) {
+                options.corpusReport = "-";
+            } else if (arg.startsWith("--corpus-report=")) {
+                options.corpusReport = arg.substring("--corpus-report=".length());
+            } else if (arg.equals("--no-line-numbers")) {
+                options.lineNumbers = false;
+            } else if (arg.equals("--daemon")) {
+                options.daemon = true;
+            } else if (arg.equals("--client")) {
+                options.client = true;
+            } else if (arg.equals("--stop-daemon")) {
+                options.stopDaemon = true;
+            } else if (arg.startsWith("--port=")) {
+                options.port = Integer.parseInt(arg.substring("--port=".length()));
+            } else if (arg.equals("--lsp")) {
+                options.lsp = true;
+            } else if (arg.equals("--watch")) {
+                options.watch = true;
+            } else if (arg.startsWith("--debounce-ms=")) {
+                options.debounceMillis = Long.parseLong(arg.substring("--debounce-ms=".length()));
+            } else if (arg.equals("--parallel-parse")) {
+                options.parseChunkSize = ParallelParser.DEFAULT_CHUNK_SIZE;
+            } else if (arg.startsWith("--parallel-parse=")) {
+                options.parseChunkSize = Integer.parseInt(arg.substring("--parallel-parse=".length()));
+            } else if (arg.startsWith("--disable-rules=")) {
+                options.rules = RuleRegistry.withoutRules(Arrays.asList(arg.substring("--disable-rules=".length()).split(",")));
+            } else if (arg.startsWith("--format=")) {
+                options.format = arg.substring("--format=".length());
+                if (!options.format.equals("listing") && !options.format.equals("jsonl") && !options.format.equals("sarif")) {
+                    throw new IllegalArgumentException("Formato de salida desconocido: " + options.format);
+                }
+            } else if (arg.startsWith("--output=")) {
+                options.output = arg.substring("--output=".length());
+            } else if (arg.startsWith("--report-dir=")) {
+                options.reportDir = arg.substring("--report-dir=".length());
+            } else if (arg.startsWith("--changed=")) {
+                options.changedRange = arg.substring("--changed=".length());
+                if (options.changedRange.isEmpty()) {
+                    throw new IllegalArgumentException("--changed necesita una revisión o un rango A..B");
+                }
+            } else if (arg.startsWith("--baseline=")) {
+                options.baseline = arg.substring("--baseline=".length());
+            } else if (arg.equals("--update-baseline")) {
+                options.updateBaseline = true;
+            } else if (arg.startsWith("--imports-index=")) {
+                options.importsIndex = arg.substring("--imports-index=".length());
+            } else if (arg.equals("--errors-only")) {
+                options.errorsOnly = true;
+            } else if (arg.startsWith("--encoding=")) {
+                options.encoding = arg.substring("--encoding=".length());
+                if (!options.encoding.equals(SourceText.AUTO) && !Charset.isSupported(options.encoding)) {
+                    throw new IllegalArgumentException("Codificación desconocida: " + options.encoding);
+                }
+            } else if (arg.startsWith("--")) {
+                throw new IllegalArgumentException("Opción desconocida: " + arg);
+            } else {
+                options.inputs.add(arg);
+            }
+        }
+        if (options.updateBaseline && options.baseline == null) {
+            throw new IllegalArgumentException("--update-baseline necesita --baseline=archivo");
+        }
+        return options;
+    }
+
+    // Salida JSON Lines o SARIF en lugar de un informe por archivo
+    public boolean machineOutput() {
+        return !format.equals("listing");
+    }
+
+    /**
+     * daemonSideOption() - Primera opción indicada que cambia la validación o sus informes, o null.
+     * El demonio valida con las opciones con las que se arrancó, así que --client no las admite.
+     */
+    public String daemonSideOption() {
+        if (useRegexLexer) {
+            return "--lexer=regex";
+        } else if (streaming) {
+            return "--stream";
+        } else if (cacheDir != null) {
+            return "--cache-dir";
+        } else if (metricsOutput != null) {
+            return "--metrics";
+        } else if (corpusReport != null) {
+            return "--corpus-report";
+        } else if (!lineNumbers) {
+            return "--no-line-numbers";
+        } else if (parseChunkSize != 0) {
+            return "--parallel-parse";
+        } else if (rules != RuleRegistry.defaults()) {
+            return "--disable-rules";
+        } else if (reportDir != null) {
+            return "--report-dir";
+        } else if (errorsOnly) {
+            return "--errors-only";
+        } else if (!encoding.equals(SourceText.AUTO)) {
+            return "--encoding";
+        } else if (baseline != null) {
+            return "--baseline";
+        }
+        return null;
+    }
+
+    public String outputPath() {
+        return output != null ? output : "errorhunter." + format;
+    }
+
+    public int effectiveThreads() {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+}
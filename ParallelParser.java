@@ -0,0 +1,166 @@
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Análisis sintáctico de un único archivo grande por tramos, en paralelo.
+ *
+ * El TokenBuffer se divide en tramos de chunkSize tokens. Una primera pasada busca en paralelo
+ * Module Program y End Module en cada tramo, de lo que se deducen los indicadores de módulo al
+ * inicio de cada uno. Después cada tramo se analiza con su propio VBScriptParser, que anota en
+ * un StructureSummary los cierres sin apertura y los bloques abiertos en lugar de reportarlos,
+ * y los resúmenes se combinan en un árbol fork/join. Los tramos y el orden de combinación solo
+ * dependen del número de tokens, y los diagnósticos y contadores son los mismos que los de
+ * VBScriptParser.parse() sobre el archivo completo (ver ParserDiff). Las variables declaradas
+ * dependen de todos los tramos anteriores, así que se comprueban al final en una pasada
+ * secuencial que solo consulta la tabla de símbolos.
+ */
+public class ParallelParser {
+    public static final int DEFAULT_CHUNK_SIZE = 65536;
+
+    private final TokenBuffer tokens;
+    private final int chunkSize;
+    private final RuleRegistry rules;
+    private final int chunkCount;
+    // Indicadores de módulo al inicio de cada tramo
+    private final boolean[] moduleStartFound;
+    private final boolean[] moduleEndFound;
+    // Diagnósticos y contadores de cada tramo
+    private final DiagnosticStore[] diagnostics;
+    private final long[][] stats;
+
+    private ParallelParser(TokenBuffer tokens, int chunkSize, RuleRegistry rules) {
+        this.tokens = tokens;
+        this.chunkSize = chunkSize;
+        this.rules = rules;
+        this.chunkCount = Math.max(1, (tokens.size() + chunkSize - 1) / chunkSize);
+        this.moduleStartFound = new boolean[chunkCount];
+        this.moduleEndFound = new boolean[chunkCount];
+        this.diagnostics = new DiagnosticStore[chunkCount];
+        this.stats = new long[chunkCount][];
+    }
+
+    /**
+     * parse() - Analiza los tokens por tramos y deja los diagnósticos en errorReporter, en el
+     * orden en que los reportaría VBScriptParser.parse(). Se ejecuta en el ForkJoinPool del hilo
+     * que la invoca, o en el común si no es un hilo de ningún ForkJoinPool.
+     */
+    public static ParserStatistics parse(TokenBuffer tokens, ErrorReporter errorReporter, int chunkSize) {
+        return parse(tokens, errorReporter, chunkSize, RuleRegistry.defaults());
+    }
+
+    public static ParserStatistics parse(TokenBuffer tokens, ErrorReporter errorReporter, int chunkSize, RuleRegistry rules) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Tamaño de tramo no válido: " + chunkSize);
+        }
+        return new ParallelParser(tokens, chunkSize, rules).run(errorReporter);
+    }
+
+    private ParserStatistics run(ErrorReporter errorReporter) {
+        new ModuleFlags(0, chunkCount).invoke();
+        // Prefijo: los indicadores de un tramo son los del anterior más lo que este contenga
+        boolean start = false;
+        boolean end = false;
+        for (int c = 0; c < chunkCount; c++) {
+            boolean containsStart = moduleStartFound[c];
+            boolean containsEnd = moduleEndFound[c];
+            moduleStartFound[c] = start;
+            moduleEndFound[c] = end;
+            start |= containsStart;
+            end |= containsEnd;
+        }
+
+        StructureSummary summary = new Chunks(0, chunkCount).invoke();
+
+        DiagnosticStore all = errorReporter.getDiagnostics();
+        long[] totals = new long[stats[0].length];
+        for (int c = 0; c < chunkCount; c++) {
+            for (int i = 0; i < diagnostics[c].size(); i++) {
+                all.add(diagnostics[c], i);
+            }
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += stats[c][i];
+            }
+        }
+        summary.finish(errorReporter);
+        if (rules.checksSymbols()) {
+            SymbolTable symbols = new SymbolTable();
+            TokenCursor cursor = tokens.cursor();
+            while (cursor.next()) {
+                symbols.accept(cursor, errorReporter);
+            }
+        }
+        return ParserStatistics.fromArray(totals);
+    }
+
+    private int chunkStart(int chunk) {
+        return chunk * chunkSize;
+    }
+
+    private int chunkEnd(int chunk) {
+        return Math.min(tokens.size(), (chunk + 1) * chunkSize);
+    }
+
+    // Primera pasada: si cada tramo contiene Module Program o End Module.
+    // Las tareas no se serializan (ForkJoinTask es Serializable solo por herencia)
+    @SuppressWarnings("serial")
+    private final class ModuleFlags extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        ModuleFlags(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ModuleFlags(from, middle), new ModuleFlags(middle, to));
+                return;
+            }
+            for (int i = chunkStart(from), end = chunkEnd(from); i < end; i++) {
+                Token.Type type = tokens.type(i);
+                if (type == Token.Type.MODULE_PROGRAM) {
+                    moduleStartFound[from] = true;
+                } else if (type == Token.Type.END_MODULE) {
+                    moduleEndFound[from] = true;
+                }
+            }
+        }
+    }
+
+    // Segunda pasada: análisis de cada tramo y combinación de los resúmenes de izquierda a derecha
+    @SuppressWarnings("serial")
+    private final class Chunks extends RecursiveTask<StructureSummary> {
+        private final int from;
+        private final int to;
+
+        Chunks(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected StructureSummary compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                Chunks left = new Chunks(from, middle);
+                left.fork();
+                StructureSummary right = new Chunks(middle, to).compute();
+                StructureSummary summary = left.join();
+                summary.append(right);
+                return summary;
+            }
+            ErrorReporter errorReporter = new ErrorReporter("");
+            StructureSummary summary = new StructureSummary();
+            VBScriptParser parser = new VBScriptParser(tokens.cursor(chunkStart(from), chunkEnd(from)), errorReporter);
+            parser.setRules(rules);
+            parser.beginChunk(moduleStartFound[from], moduleEndFound[from], summary);
+            parser.parse();
+            diagnostics[from] = errorReporter.getDiagnostics();
+            stats[from] = parser.stats.toArray();
+            return summary;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compara los diagnósticos y contadores de ParallelParser con los de VBScriptParser.parse()
+ * para varios tamaños de tramo, sobre un conjunto de archivos y sobre documentos aleatorios
+ * generados con una semilla fija.
+ * Uso: java ParserDiff [--random=N] archivo1.vb archivo2.vb ...
+ */
+public class ParserDiff {
+    private static final int[] CHUNK_SIZES = { 1, 2, 3, 5, 8, 64, 1024 };
+
+    // Líneas con las que se generan los documentos aleatorios: sobre todo aperturas y cierres de bloque
+    private static final String[] RANDOM_LINES = {
+        "Module Program", "End Module", "Imports System", "Sub Main()", "Sub Main(", "End Sub", "Try",
+        "Catch ex As Exception", "Catch", "End Try", "While x < 10", "End While", "Dim a As Integer",
+        "Dim 1a", "' comentario", "x = x + 1", "Dim x, B As Integer", "b = 2", "Dim A As String = \"a, b\"", ""
+    };
+
+    public static void main(String[] args) {
+        int differences = 0;
+        int randomDocuments = 0;
+
+        for (String arg : args) {
+            if (arg.startsWith("--random=")) {
+                randomDocuments = Integer.parseInt(arg.substring("--random=".length()));
+                continue;
+            }
+            try {
+                differences += compare(arg, Files.readAllLines(Paths.get(arg)));
+            } catch (IOException e) {
+                System.err.println("Error al leer el archivo: " + e.getMessage());
+                System.exit(2);
+            }
+        }
+
+        Random random = new Random(42);
+        for (int d = 0; d < randomDocuments; d++) {
+            differences += compare("aleatorio-" + d, randomDocument(random));
+        }
+
+        if (differences > 0) {
+            System.out.println("Se encontraron " + differences + " diferencias entre el análisis secuencial y por tramos.");
+            System.exit(1);
+        }
+        System.out.println("El análisis por tramos produce los mismos diagnósticos y contadores.");
+    }
+
+    // Documento de 1 a 200 líneas de RANDOM_LINES
+    static List<String> randomDocument(Random random) {
+        List<String> lines = new ArrayList<>();
+        int size = 1 + random.nextInt(200);
+        for (int i = 0; i < size; i++) {
+            lines.add(RANDOM_LINES[random.nextInt(RANDOM_LINES.length)]);
+        }
+        return lines;
+    }
+
+    // Devuelve el número de tamaños de tramo cuyo resultado difiere del análisis secuencial
+    static int compare(String name, List<String> lines) {
+        TokenBuffer tokens = new VBScriptScanner(lines).tokenizeToBuffer();
+        ErrorReporter expected = new ErrorReporter("");
+        VBScriptParser parser = new VBScriptParser(tokens.cursor(), expected);
+        parser.parse();
+        expected.getDiagnostics().sort();
+        long[] expectedStats = parser.stats.toArray();
+
+        int differences = 0;
+        for (int chunkSize : CHUNK_SIZES) {
+            ErrorReporter actual = new ErrorReporter("");
+            long[] actualStats = ParallelParser.parse(tokens, actual, chunkSize).toArray();
+            actual.getDiagnostics().sort();
+            String difference = firstDifference(expected.getDiagnostics(), actual.getDiagnostics());
+            if (difference == null && !Arrays.equals(expectedStats, actualStats)) {
+                difference = "contadores " + Arrays.toString(expectedStats) + " / " + Arrays.toString(actualStats);
+            }
+            if (difference != null) {
+                System.out.println(name + " (tramos de " + chunkSize + "): " + difference);
+                differences++;
+            }
+        }
+        return differences;
+    }
+
+    private static String firstDifference(DiagnosticStore expected, DiagnosticStore actual) {
+        int size = Math.max(expected.size(), actual.size());
+        for (int i = 0; i < size; i++) {
+            String e = i < expected.size() ? describe(expected, i) : "(ninguno)";
+            String a = i < actual.size() ? describe(actual, i) : "(ninguno)";
+            if (!e.equals(a)) {
+                return "secuencial=" + e + " tramos=" + a;
+            }
+        }
+        return null;
+    }
+
+    private static String describe(DiagnosticStore diagnostics, int i) {
+        return diagnostics.line(i) + ":" + diagnostics.column(i) + " " + diagnostics.message(i);
+    }
+}
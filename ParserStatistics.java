@@ -1,16 +1,27 @@
+/**
+ * Contadores de un análisis. Cada VBScriptParser incrementa los suyos sin sincronización; los de
+ * varios archivos o tramos se combinan con merge(), que es asociativa y conmutativa, o se acumulan
+ * entre hilos en un CorpusStatistics.
+ */
 public class ParserStatistics {
-    public int commentCount;
-    public int dimStatementCount;
-    public int moduleProgramCount;
-    public int endModuleCount;
-    public int importCount;
-    public int subMainCount;
-    public int endSubCount;
-    public int tryCount;
-    public int catchCount;
-    public int endTryCount;
-    public int whileCount;
-    public int endWhileCount;
+    // Nombres de los contadores, en el orden de toArray()
+    public static final String[] COUNTER_NAMES = {
+        "comments", "dimStatements", "modulePrograms", "endModules", "imports", "subMains",
+        "endSubs", "tries", "catches", "endTries", "whiles", "endWhiles"
+    };
+
+    public long commentCount;
+    public long dimStatementCount;
+    public long moduleProgramCount;
+    public long endModuleCount;
+    public long importCount;
+    public long subMainCount;
+    public long endSubCount;
+    public long tryCount;
+    public long catchCount;
+    public long endTryCount;
+    public long whileCount;
+    public long endWhileCount;
 
     // Constructor
     public ParserStatistics() {
@@ -29,51 +40,51 @@ public class ParserStatistics {
     }
 
     // Getters
-    public int getCommentCount() {
+    public long getCommentCount() {
         return commentCount;
     }
 
-    public int getDimStatementCount() {
+    public long getDimStatementCount() {
         return dimStatementCount;
     }
 
-    public int getModuleProgramCount() {
+    public long getModuleProgramCount() {
         return moduleProgramCount;
     }
 
-    public int getEndModuleCount() {
+    public long getEndModuleCount() {
         return endModuleCount;
     }
 
-    public int getImportCount() {
+    public long getImportCount() {
         return importCount;
     }
 
-    public int getSubMainCount() {
+    public long getSubMainCount() {
         return subMainCount;
     }
 
-    public int getEndSubCount() {
+    public long getEndSubCount() {
         return endSubCount;
     }
 
-    public int getTryCount() {
+    public long getTryCount() {
         return tryCount;
     }
 
-    public int getCatchCount() {
+    public long getCatchCount() {
         return catchCount;
     }
 
-    public int getEndTryCount() {
+    public long getEndTryCount() {
         return endTryCount;
     }
 
-    public int getWhileCount() {
+    public long getWhileCount() {
         return whileCount;
     }
 
-    public int getEndWhileCount() {
+    public long getEndWhileCount() {
         return endWhileCount;
     }
 
@@ -126,6 +137,50 @@ public class ParserStatistics {
         this.endWhileCount++;
     }
 
+    /**
+     * merge() - Suma a estos contadores los de other y devuelve this.
+     */
+    public ParserStatistics merge(ParserStatistics other) {
+        commentCount += other.commentCount;
+        dimStatementCount += other.dimStatementCount;
+        moduleProgramCount += other.moduleProgramCount;
+        endModuleCount += other.endModuleCount;
+        importCount += other.importCount;
+        subMainCount += other.subMainCount;
+        endSubCount += other.endSubCount;
+        tryCount += other.tryCount;
+        catchCount += other.catchCount;
+        endTryCount += other.endTryCount;
+        whileCount += other.whileCount;
+        endWhileCount += other.endWhileCount;
+        return this;
+    }
+
+    // Contadores en orden fijo, para guardarlos y restaurarlos (caché de resultados)
+    public long[] toArray() {
+        return new long[] {
+            commentCount, dimStatementCount, moduleProgramCount, endModuleCount, importCount, subMainCount,
+            endSubCount, tryCount, catchCount, endTryCount, whileCount, endWhileCount
+        };
+    }
+
+    public static ParserStatistics fromArray(long[] counters) {
+        ParserStatistics stats = new ParserStatistics();
+        stats.commentCount = counters[0];
+        stats.dimStatementCount = counters[1];
+        stats.moduleProgramCount = counters[2];
+        stats.endModuleCount = counters[3];
+        stats.importCount = counters[4];
+        stats.subMainCount = counters[5];
+        stats.endSubCount = counters[6];
+        stats.tryCount = counters[7];
+        stats.catchCount = counters[8];
+        stats.endTryCount = counters[9];
+        stats.whileCount = counters[10];
+        stats.endWhileCount = counters[11];
+        return stats;
+    }
+
     // Statistics method
     public String getStatistics() {
         String statistics = "Número de Comentarios: " + commentCount + "\n" +
@@ -0,0 +1,44 @@
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Regla que exige que el texto del token, sin los espacios iniciales y finales, coincida por
+ * completo con una expresión regular. El patrón se compila una sola vez y cada hilo reutiliza
+ * su propio Matcher, restringido a la región del token.
+ */
+public class PatternRule implements ValidationRule {
+    private final String name;
+    private final Token.Type tokenType;
+    private final ErrorCode errorCode;
+    private final Pattern pattern;
+    private final ThreadLocal<Matcher> matchers;
+
+    public PatternRule(String name, Token.Type tokenType, ErrorCode errorCode, String regex) {
+        this.name = name;
+        this.tokenType = tokenType;
+        this.errorCode = errorCode;
+        this.pattern = Pattern.compile(regex);
+        this.matchers = ThreadLocal.withInitial(() -> pattern.matcher(""));
+    }
+
+    @Override
+    public String name() { return name; }
+
+    @Override
+    public Token.Type tokenType() { return tokenType; }
+
+    @Override
+    public ErrorCode errorCode() { return errorCode; }
+
+    @Override
+    public boolean isValid(CharSequence source, int start, int end) {
+        // Mismos caracteres que elimina String.trim()
+        while (start < end && source.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && source.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return matchers.get().reset(source).region(start, end).matches();
+    }
+}
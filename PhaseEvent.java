@@ -0,0 +1,27 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento de JDK Flight Recorder para una fase de la validación de un archivo.
+ * Se graba con: java -XX:StartFlightRecording=filename=analisis.jfr Main ...
+ */
+@Name("errorhunter.Phase")
+@Label("Fase de validación")
+@Category("errorHunterVB")
+@Description("Duración de una fase (lectura, léxico, sintáctico, informe) al validar un archivo")
+@StackTrace(false)
+public class PhaseEvent extends Event {
+    @Label("Fase")
+    public String phase;
+
+    @Label("Archivo")
+    public String file;
+
+    @Label("Elementos procesados")
+    @Description("Líneas, tokens o bytes procesados según la fase")
+    public long items;
+}
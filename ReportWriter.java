@@ -0,0 +1,253 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Escritor del informe <basePath>-Errores.txt en una sola apertura.
+ *
+ * Produce el mismo contenido que writeHeader() + reportSummary() + writeErrorsToFile(), pero
+ * trabaja sobre los bytes del archivo fuente y un índice de líneas: las líneas sin errores se
+ * copian tal cual con el número de línea antepuesto, sin String.format ni recodificación. Con la
+ * numeración desactivada, los tramos de líneas sin errores se copian directamente del canal del
+ * archivo fuente al del informe (transferTo), conservando sus terminadores de línea originales.
+ * Si el archivo no está en UTF-8, cada línea se convierte a UTF-8 al escribirla.
+ */
+public class ReportWriter {
+    private static final int MAX_LINE_LENGTH = 90;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private final String basePath;
+    private final boolean lineNumbers;
+    private final boolean errorsOnly;
+
+    public ReportWriter(String basePath, boolean lineNumbers) {
+        this(basePath, lineNumbers, false);
+    }
+
+    /**
+     * Con errorsOnly, el informe solo contiene la cabecera, el resumen y una línea
+     * "Error en línea NNNN: mensaje" por error, sin el código fuente.
+     */
+    public ReportWriter(String basePath, boolean lineNumbers, boolean errorsOnly) {
+        this.basePath = basePath;
+        this.lineNumbers = lineNumbers;
+        this.errorsOnly = errorsOnly;
+    }
+
+    /**
+     * write() - Escribe el informe completo y devuelve el número de bytes escritos.
+     * El contenido debe ser el del archivo vbFilePath.
+     */
+    public long write(String vbFilePath, SourceText sourceText, ParserStatistics stats, DiagnosticStore diagnostics) throws IOException {
+        return write(vbFilePath, sourceText, stats, diagnostics, !ArchiveSources.isEntry(vbFilePath));
+    }
+
+    /**
+     * write() - Sin sourceOnDisk (entradas de un archivo comprimido, blobs de git), todas las líneas
+     * se escriben desde sourceText aunque exista un archivo vbFilePath.
+     */
+    public long write(String vbFilePath, SourceText sourceText, ParserStatistics stats, DiagnosticStore diagnostics,
+                      boolean sourceOnDisk) throws IOException {
+        Path errorFile = Paths.get(basePath + "-Errores.txt");
+        byte[] content = sourceText.content();
+        LineIndex index = sourceText.index();
+        diagnostics.sort();
+
+        try (FileChannel out = FileChannel.open(errorFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                 StandardOpenOption.TRUNCATE_EXISTING);
+             FileChannel source = lineNumbers || errorsOnly || !sourceText.isUtf8File() || !sourceOnDisk
+                 ? null : FileChannel.open(Paths.get(vbFilePath), StandardOpenOption.READ)) {
+            Output output = new Output(out);
+            output.write(headerAndSummary(vbFilePath, stats));
+            if (errorsOnly) {
+                writeErrors(output, sourceText, diagnostics);
+                output.flush();
+                return out.position();
+            }
+
+            int nextError = 0;
+            int runStart = -1;
+            for (int i = 0; i < index.count(); i++) {
+                int lineNumber = i + 1;
+                int start = index.start(i);
+                int end = index.end(i);
+                while (nextError < diagnostics.size() && diagnostics.line(nextError) < lineNumber) {
+                    nextError++;
+                }
+                boolean hasError = nextError < diagnostics.size() && diagnostics.line(nextError) == lineNumber;
+                boolean tooLong = end - start > MAX_LINE_LENGTH && sourceText.charLength(i) > MAX_LINE_LENGTH;
+
+                if (!hasError && !tooLong) {
+                    if (lineNumbers) {
+                        output.lineNumber(lineNumber);
+                        output.line(sourceText, i);
+                        output.write(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+                    } else if (source == null) {
+                        // Sin copia directa del archivo: la línea con su terminador original
+                        output.line(sourceText, i);
+                        writeTerminator(output, content, index, i);
+                    } else if (runStart < 0) {
+                        runStart = i;
+                    }
+                    continue;
+                }
+
+                if (runStart >= 0) {
+                    transferRun(output, source, index, runStart, i);
+                    runStart = -1;
+                }
+                if (lineNumbers) {
+                    output.lineNumber(lineNumber);
+                }
+                output.line(sourceText, i);
+                output.write(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+                if (tooLong) {
+                    output.writeLine(String.format("Error en línea %04d: la línea excede los 90 caracteres.", lineNumber));
+                }
+                while (nextError < diagnostics.size() && diagnostics.line(nextError) == lineNumber) {
+                    output.writeLine("Error: " + diagnostics.message(nextError));
+                    nextError++;
+                }
+            }
+            if (runStart >= 0) {
+                transferRun(output, source, index, runStart, index.count());
+            }
+            output.flush();
+            return out.position();
+        }
+    }
+
+    // Solo los errores, en el orden del listado anotado: el de longitud y después los del parser
+    private static void writeErrors(Output output, SourceText source, DiagnosticStore diagnostics) throws IOException {
+        LineIndex index = source.index();
+        int nextError = 0;
+        for (int i = 0; i < index.count(); i++) {
+            int lineNumber = i + 1;
+            if (index.end(i) - index.start(i) > MAX_LINE_LENGTH && source.charLength(i) > MAX_LINE_LENGTH) {
+                nextError = writeErrorLines(output, diagnostics, nextError, lineNumber);
+                output.writeLine(String.format("Error en línea %04d: la línea excede los 90 caracteres.", lineNumber));
+            }
+        }
+        writeErrorLines(output, diagnostics, nextError, Integer.MAX_VALUE);
+    }
+
+    // Escribe los diagnósticos desde next hasta el primero de la línea beforeLine o posterior
+    private static int writeErrorLines(Output output, DiagnosticStore diagnostics, int next, int beforeLine) throws IOException {
+        while (next < diagnostics.size() && diagnostics.line(next) < beforeLine) {
+            output.writeLine(String.format("Error en línea %04d: %s", diagnostics.line(next), diagnostics.message(next)));
+            next++;
+        }
+        return next;
+    }
+
+    // Copia las líneas [from, to) del archivo fuente al informe sin pasar por memoria
+    private static void transferRun(Output output, FileChannel source, LineIndex index, int from, int to) throws IOException {
+        output.flush();
+        long position = index.start(from);
+        long end = index.next(to - 1);
+        while (position < end) {
+            position += source.transferTo(position, end - position, output.channel);
+        }
+        if (index.end(to - 1) == end) {
+            // La última línea del archivo no tiene terminador
+            output.write(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+        }
+    }
+
+    // Terminador original de la línea (los terminadores son ASCII en cualquier codificación
+    // admitida), o el del sistema si es la última línea y no lo tiene
+    private static void writeTerminator(Output output, byte[] content, LineIndex index, int line) throws IOException {
+        int end = index.end(line);
+        int next = index.next(line);
+        if (next > end) {
+            output.write(content, end, next - end);
+        } else {
+            output.write(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+        }
+    }
+
+    private static byte[] headerAndSummary(String vbFilePath, ParserStatistics stats) throws IOException {
+        StringWriter text = new StringWriter();
+        try (BufferedWriter writer = new BufferedWriter(text)) {
+            ErrorReporter.writeHeader(writer, vbFilePath);
+            ErrorReporter.writeSummary(writer, stats);
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Buffer de salida sobre el canal del informe.
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        // Número de línea con al menos 4 dígitos seguido de un espacio, como "%04d "
+        void lineNumber(int lineNumber) throws IOException {
+            if (buffer.remaining() < 12) {
+                flush();
+            }
+            int digits = 4;
+            for (int limit = 10000; lineNumber >= limit && digits < 10; limit *= 10) {
+                digits++;
+            }
+            int position = buffer.position();
+            for (int i = digits - 1; i >= 0; i--) {
+                buffer.put(position + i, (byte) ('0' + lineNumber % 10));
+                lineNumber /= 10;
+            }
+            buffer.position(position + digits);
+            buffer.put((byte) ' ');
+        }
+
+        void write(byte[] bytes) throws IOException {
+            write(bytes, 0, bytes.length);
+        }
+
+        void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int chunk = Math.min(length, buffer.remaining());
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        // Texto de la línea i del archivo en UTF-8: los bytes tal cual, o convertidos si el
+        // archivo está en una codificación de un byte
+        void line(SourceText source, int i) throws IOException {
+            LineIndex index = source.index();
+            if (source.isUtf8() || index.isAscii(i)) {
+                write(source.content(), index.start(i), index.end(i) - index.start(i));
+            } else {
+                write(source.lineString(i).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        void writeLine(String text) throws IOException {
+            write(text.getBytes(StandardCharsets.UTF_8));
+            write(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,279 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Caché persistente de resultados de validación.
+ *
+ * Cada entrada se identifica por el hash SHA-256 del contenido del archivo, de
+ * VBScriptParser.RULES_VERSION y de las reglas activas (RuleRegistry.id()), y guarda los contadores de ParserStatistics, el número
+ * de tokens, la profundidad de anidamiento máxima y los diagnósticos reportados. Con un acierto
+ * se puede regenerar el informe sin ejecutar lexer ni parser.
+ *
+ * Es segura para varias ejecuciones concurrentes sobre el mismo directorio: las entradas se
+ * escriben en un archivo temporal y se publican con un movimiento atómico, y la limpieza LRU
+ * se serializa con un bloqueo sobre el archivo "cache.lock".
+ */
+public class ResultCache {
+    private static final int MAGIC = 0x45485643; // "EHVC"
+    private static final int FORMAT_VERSION = 3;
+    private static final String ENTRY_SUFFIX = ".cache";
+    private static final long STALE_TEMP_MILLIS = 60 * 60 * 1000L;
+
+    private static final int TOKEN_TYPE_COUNT = Token.Type.values().length;
+
+    private final Path directory;
+    private final long maxBytes;
+
+    public ResultCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Entrada de la caché: estadísticas y errores de un archivo ya validado.
+     */
+    public static class Entry {
+        public final ParserStatistics stats;
+        public final DiagnosticStore diagnostics;
+        public final int tokens;
+        public final int maxNestingDepth;
+
+        public Entry(ParserStatistics stats, DiagnosticStore diagnostics, int tokens, int maxNestingDepth) {
+            this.stats = stats;
+            this.diagnostics = diagnostics;
+            this.tokens = tokens;
+            this.maxNestingDepth = maxNestingDepth;
+        }
+    }
+
+    // Clave de la caché para un contenido y unas reglas activas dados
+    public static String key(byte[] content, String rulesId) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(new byte[] {
+                (byte) (VBScriptParser.RULES_VERSION >>> 24), (byte) (VBScriptParser.RULES_VERSION >>> 16),
+                (byte) (VBScriptParser.RULES_VERSION >>> 8), (byte) VBScriptParser.RULES_VERSION
+            });
+            digest.update(rulesId.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            byte[] hash = digest.digest(content);
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * get() - Devuelve la entrada para la clave, o null si no existe o no puede leerse.
+     * Un acierto actualiza la fecha de uso de la entrada para la limpieza LRU.
+     */
+    public Entry get(String key) {
+        Path file = directory.resolve(key + ENTRY_SUFFIX);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            int counterCount = in.readInt();
+            if (counterCount != ParserStatistics.COUNTER_NAMES.length) {
+                throw new IOException("número de contadores inválido: " + counterCount);
+            }
+            long[] counters = new long[counterCount];
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] = in.readLong();
+            }
+            int tokens = in.readInt();
+            int maxNestingDepth = in.readInt();
+            DiagnosticStore diagnostics = new DiagnosticStore();
+            ErrorCode[] codes = ErrorCode.values();
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("número de diagnósticos inválido: " + count);
+            }
+            for (int i = 0; i < count; i++) {
+                int line = in.readInt();
+                int column = in.readInt();
+                int code = in.readInt();
+                if (code < 0 || code >= codes.length) {
+                    throw new IOException("código de error inválido: " + code);
+                }
+                if (code == ErrorCode.CUSTOM.ordinal()) {
+                    diagnostics.add(line, column, in.readUTF());
+                } else {
+                    int argument = in.readInt();
+                    if (codes[code].template().contains("{0}") && (argument < 0 || argument >= TOKEN_TYPE_COUNT)) {
+                        throw new IOException("argumento inválido: " + argument);
+                    }
+                    diagnostics.add(line, column, codes[code], argument);
+                }
+            }
+            touch(file);
+            return new Entry(ParserStatistics.fromArray(counters), diagnostics, tokens, maxNestingDepth);
+        } catch (NoSuchFileException e) {
+            // Entrada inexistente o eliminada por otra ejecución
+            return null;
+        } catch (IOException | RuntimeException e) {
+            // Entrada truncada o dañada: se trata como un fallo de caché y se elimina para que
+            // put() la vuelva a escribir
+            deleteQuietly(file);
+            return null;
+        }
+    }
+
+    /**
+     * put() - Guarda el resultado de una validación. Los errores de escritura no interrumpen el análisis.
+     */
+    public void put(String key, Entry entry) {
+        Path file = directory.resolve(key + ENTRY_SUFFIX);
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, key, ".tmp");
+            try (OutputStream stream = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                long[] counters = entry.stats.toArray();
+                out.writeInt(counters.length);
+                for (long counter : counters) {
+                    out.writeLong(counter);
+                }
+                out.writeInt(entry.tokens);
+                out.writeInt(entry.maxNestingDepth);
+                DiagnosticStore diagnostics = entry.diagnostics;
+                out.writeInt(diagnostics.size());
+                for (int i = 0; i < diagnostics.size(); i++) {
+                    out.writeInt(diagnostics.line(i));
+                    out.writeInt(diagnostics.column(i));
+                    out.writeInt(diagnostics.code(i).ordinal());
+                    if (diagnostics.code(i) == ErrorCode.CUSTOM) {
+                        out.writeUTF(diagnostics.message(i));
+                    } else {
+                        out.writeInt(diagnostics.argument(i));
+                    }
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("No se pudo guardar el resultado en la caché: " + e.getMessage());
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // El temporal se limpiará en la próxima ejecución
+                }
+            }
+        }
+    }
+
+    /**
+     * evict() - Elimina las entradas usadas hace más tiempo hasta que la caché ocupa menos
+     * del tamaño máximo. Solo una ejecución a la vez realiza la limpieza.
+     */
+    public synchronized void evict() throws IOException {
+        try (FileChannel lockChannel = FileChannel.open(directory.resolve("cache.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock lock = lockChannel.tryLock()) {
+            if (lock == null) {
+                // Otra ejecución está limpiando la caché
+                return;
+            }
+
+            List<Path> entries = new ArrayList<>();
+            List<FileTime> lastUsed = new ArrayList<>();
+            List<Long> sizes = new ArrayList<>();
+            long total = 0;
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(".tmp")) {
+                        deleteIfStale(file);
+                        continue;
+                    }
+                    if (!name.endsWith(ENTRY_SUFFIX)) {
+                        continue;
+                    }
+                    try {
+                        long size = Files.size(file);
+                        entries.add(file);
+                        lastUsed.add(Files.getLastModifiedTime(file));
+                        sizes.add(size);
+                        total += size;
+                    } catch (NoSuchFileException e) {
+                        // Eliminada por otra ejecución
+                    }
+                }
+            }
+            if (total <= maxBytes) {
+                return;
+            }
+
+            Integer[] order = new Integer[entries.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> lastUsed.get(a).compareTo(lastUsed.get(b)));
+            for (int i = 0; i < order.length && total > maxBytes; i++) {
+                Files.deleteIfExists(entries.get(order[i]));
+                total -= sizes.get(order[i]);
+            }
+        }
+    }
+
+    // Temporales abandonados por ejecuciones interrumpidas
+    private static void deleteIfStale(Path file) {
+        try {
+            long age = System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis();
+            if (age > STALE_TEMP_MILLIS) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            // Otra ejecución lo ha publicado o eliminado
+        }
+    }
+
+    // Entrada dañada: la siguiente ejecución la escribirá de nuevo
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Otra ejecución la ha eliminado o sustituido
+        }
+    }
+
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Sin fecha de uso actualizada la entrada solo se eliminará antes
+        }
+    }
+}
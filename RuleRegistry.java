@@ -0,0 +1,119 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reglas de formato activas, indexadas por ordinal de Token.Type.
+ *
+ * VBScriptParser solo consulta las reglas del tipo del token actual, así que añadir reglas no
+ * encarece los tokens de otros tipos, y activarlas o desactivarlas no cambia el switch de
+ * accept(). Es inmutable y puede compartirse entre hilos.
+ *
+ * Además de las reglas de formato, "symbols" activa la tabla de símbolos (declaraciones Dim
+ * repetidas y asignaciones a variables no declaradas); se desactiva como cualquier otra regla.
+ */
+public final class RuleRegistry {
+    private static final int TYPE_COUNT = Token.Type.values().length;
+
+    // Nombre con el que se desactiva la comprobación de variables declaradas
+    public static final String SYMBOLS = "symbols";
+
+    private static final RuleRegistry DEFAULTS = new RuleRegistry(builtIn());
+
+    private final List<ValidationRule> rules;
+    private final boolean symbols;
+    private final ValidationRule[][] byType = new ValidationRule[TYPE_COUNT][];
+    // Nombre del contador de evaluaciones de cada regla, paralelo a byType
+    private final String[][] metricNames = new String[TYPE_COUNT][];
+
+    /**
+     * Registro con las reglas indicadas; las de un mismo tipo de token se aplican en este orden.
+     */
+    public RuleRegistry(List<ValidationRule> rules) {
+        this(rules, true);
+    }
+
+    public RuleRegistry(List<ValidationRule> rules, boolean symbols) {
+        this.rules = List.copyOf(rules);
+        this.symbols = symbols;
+        for (int type = 0; type < TYPE_COUNT; type++) {
+            List<ValidationRule> typeRules = new ArrayList<>();
+            for (ValidationRule rule : this.rules) {
+                if (rule.tokenType().ordinal() == type) {
+                    typeRules.add(rule);
+                }
+            }
+            byType[type] = typeRules.toArray(new ValidationRule[0]);
+            metricNames[type] = new String[typeRules.size()];
+            for (int i = 0; i < typeRules.size(); i++) {
+                metricNames[type][i] = Metrics.RULE_PREFIX + typeRules.get(i).name();
+            }
+        }
+    }
+
+    // Reglas incluidas en errorHunterVB
+    public static List<ValidationRule> builtIn() {
+        return Arrays.asList(
+            new SubMainRule(),
+            new PatternRule("catch", Token.Type.CATCH_EXCEPTION, ErrorCode.INVALID_CATCH,
+                // Después de 'Catch', un identificador alfanumérico seguido de 'As Exception'
+                "Catch\\s+[a-zA-Z]\\w*\\s+As\\s+Exception"),
+            new PatternRule("dim", Token.Type.DIM_STATEMENT, ErrorCode.INVALID_DIM,
+                // Dim [variableName] As [Type]; el nombre empieza con una letra
+                "Dim\\s+[a-zA-Z]\\w*\\s+As\\s+.*"));
+    }
+
+    // Todas las reglas incluidas
+    public static RuleRegistry defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * withoutRules() - Reglas incluidas salvo las indicadas por nombre.
+     */
+    public static RuleRegistry withoutRules(Collection<String> disabled) {
+        Set<String> unknown = new HashSet<>(disabled);
+        boolean symbols = !unknown.remove(SYMBOLS);
+        List<ValidationRule> enabled = new ArrayList<>();
+        for (ValidationRule rule : builtIn()) {
+            if (!unknown.remove(rule.name())) {
+                enabled.add(rule);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Regla desconocida: " + String.join(", ", unknown));
+        }
+        return new RuleRegistry(enabled, symbols);
+    }
+
+    // Comprobar las variables declaradas con SymbolTable
+    boolean checksSymbols() {
+        return symbols;
+    }
+
+    ValidationRule[] rulesFor(int typeOrdinal) {
+        return byType[typeOrdinal];
+    }
+
+    String metricName(int typeOrdinal, int index) {
+        return metricNames[typeOrdinal][index];
+    }
+
+    // Identifica las reglas activas, para la clave de la caché de resultados
+    public String id() {
+        StringBuilder id = new StringBuilder();
+        for (ValidationRule rule : rules) {
+            if (id.length() > 0) {
+                id.append(',');
+            }
+            id.append(rule.name());
+        }
+        if (symbols) {
+            id.append(id.length() > 0 ? "," : "").append(SYMBOLS);
+        }
+        return id.toString();
+    }
+}
@@ -0,0 +1,107 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Salida SARIF 2.1.0 con una única ejecución (run).
+ *
+ * La cabecera con la descripción de las reglas (un código de ErrorCode por regla, más
+ * LINE_TOO_LONG y SUMMARY) se escribe al abrir la salida; cada diagnóstico se añade a "results"
+ * en cuanto se produce, y los descuadres del resumen son resultados SUMMARY sin región. close()
+ * cierra el documento y añade las notificaciones de los archivos que no pudieron validarse.
+ */
+public class SarifWriter extends DiagnosticWriter {
+    private boolean firstResult = true;
+    // Archivos no validados; solo se conservan estos hasta el final
+    private final List<String> failures = new ArrayList<>();
+
+    public SarifWriter(Writer out) throws IOException {
+        super(out);
+        out.write("{\"$schema\":\"https://json.schemastore.org/sarif-2.1.0.json\",\"version\":\"2.1.0\",\"runs\":[{");
+        out.write("\"tool\":{\"driver\":{\"name\":\"errorHunterVB\",\"rules\":[");
+        for (ErrorCode code : ErrorCode.values()) {
+            writeRule(code.name(), code.template());
+            out.write(',');
+        }
+        writeRule(LINE_TOO_LONG, LINE_TOO_LONG_MESSAGE);
+        out.write(',');
+        writeRule(SUMMARY, "Descuadre entre aperturas y cierres de bloques en el resumen del análisis.");
+        out.write("]}},\"results\":[");
+    }
+
+    private void writeRule(String id, String description) throws IOException {
+        out.write("{\"id\":\"" + id + "\",\"shortDescription\":{\"text\":" + Metrics.quote(description) + "}}");
+    }
+
+    @Override
+    protected void diagnostic(String file, int line, int column, String code, String message) throws IOException {
+        // SARIF numera líneas y columnas desde 1
+        writeResult(code, message, location(file) + ",\"region\":{\"startLine\":" + line + ",\"startColumn\":" + (column + 1) + "}");
+    }
+
+    @Override
+    protected void summary(String file, ParserStatistics stats, int errorCount) throws IOException {
+        for (String error : ErrorReporter.summaryErrors(stats)) {
+            writeResult(SUMMARY, error, location(file));
+        }
+    }
+
+    @Override
+    protected void failure(String file, String message) {
+        failures.add("{\"level\":\"error\",\"message\":{\"text\":" + Metrics.quote(message) + "},\"locations\":[{\"physicalLocation\":{"
+            + location(file) + "}}]}");
+    }
+
+    private void writeResult(String code, String message, String physicalLocation) throws IOException {
+        if (!firstResult) {
+            out.write(',');
+        }
+        firstResult = false;
+        out.write("\n{\"ruleId\":\"" + code + "\",\"level\":\"error\",\"message\":{\"text\":" + Metrics.quote(message)
+            + "},\"locations\":[{\"physicalLocation\":{" + physicalLocation + "}}]}");
+    }
+
+    // URI del archivo: file:///... si la ruta es absoluta, jar:file:///...!/... si es una entrada
+    // de un archivo comprimido, o una referencia relativa con separadores '/' y los caracteres
+    // reservados escapados
+    private static String location(String file) {
+        Path path = Paths.get(file);
+        String uri;
+        if (ArchiveSources.isEntry(file)) {
+            int separator = file.indexOf(ArchiveSources.SEPARATOR);
+            uri = "jar:" + Paths.get(file.substring(0, separator)).toAbsolutePath().toUri()
+                + "!" + escape(file.substring(separator + 1));
+        } else if (path.isAbsolute()) {
+            uri = path.toUri().toString();
+        } else {
+            uri = escape(file.replace('\\', '/'));
+        }
+        return "\"artifactLocation\":{\"uri\":" + Metrics.quote(uri) + "}";
+    }
+
+    // Escapa en UTF-8 los caracteres que no pueden aparecer tal cual en una ruta de URI
+    private static String escape(String path) {
+        StringBuilder escaped = new StringBuilder();
+        for (byte b : path.getBytes(StandardCharsets.UTF_8)) {
+            int c = b & 0xFF;
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || "-._~/".indexOf(c) >= 0) {
+                escaped.append((char) c);
+            } else {
+                escaped.append('%').append(Character.toUpperCase(Character.forDigit(c >> 4, 16)))
+                    .append(Character.toUpperCase(Character.forDigit(c & 0xF, 16)));
+            }
+        }
+        return escaped.toString();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.write("\n],\"invocations\":[{\"executionSuccessful\":" + failures.isEmpty()
+            + ",\"toolExecutionNotifications\":[" + String.join(",", failures) + "]}]}]}\n");
+        out.close();
+    }
+}
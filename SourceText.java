@@ -0,0 +1,466 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Contenido de un archivo fuente en bytes, con su codificación.
+ *
+ * decode() detecta la codificación (marca BOM de UTF-8 o UTF-16, UTF-16 sin BOM por la posición
+ * de los bytes nulos, UTF-8 si el contenido es UTF-8 válido y Windows-1252 en otro caso) o usa
+ * la indicada con --encoding. Con UTF-8 y con las codificaciones de un byte compatibles con
+ * ASCII el contenido se queda en bytes: el escáner recorre cada línea a través de una vista
+ * CharSequence sobre el array, y solo se crea un String para las líneas UTF-8 con caracteres no
+ * ASCII o cuando una regla o el informe necesitan el texto. El resto de codificaciones (UTF-16)
+ * se convierten a UTF-8 una sola vez al leer.
+ */
+public class SourceText {
+    public static final String AUTO = "auto";
+    static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+    // Bytes examinados para detectar UTF-16 sin BOM
+    private static final int SNIFF_LENGTH = 4096;
+    // Bytes leídos en modo streaming para decidir la codificación antes de empezar
+    private static final int STREAM_PREFIX_LENGTH = 64 * 1024;
+
+    private final byte[] content;
+    private final Charset charset;
+    // Carácter de cada byte en una codificación de un byte; null si content es UTF-8
+    private final char[] table;
+    // content es una conversión a UTF-8 y sus posiciones no son las del archivo
+    private final boolean transcoded;
+    private final LineIndex index;
+
+    private SourceText(byte[] content, LineIndex index, Charset charset, char[] table, boolean transcoded) {
+        this.content = content;
+        this.index = index;
+        this.charset = charset;
+        this.table = table;
+        this.transcoded = transcoded;
+    }
+
+    /**
+     * decode() - Prepara el contenido de un archivo con la codificación indicada, o con la
+     * detectada si encoding es "auto". Con UTF-8 indicado explícitamente, el contenido no válido
+     * produce MalformedInputException, como Files.readAllLines().
+     */
+    public static SourceText decode(byte[] content, String encoding) throws CharacterCodingException {
+        if (!AUTO.equals(encoding)) {
+            return decode(content, Charset.forName(encoding));
+        }
+        Charset utf16 = detectUtf16(content, content.length);
+        if (utf16 != null) {
+            try {
+                return decode(content, utf16);
+            } catch (CharacterCodingException e) {
+                // Parecía UTF-16 pero no lo es: se trata como UTF-8 o Windows-1252
+            }
+        }
+        // UTF-8 o Windows-1252: los terminadores de línea son los mismos bytes en ambas, así que
+        // el índice sirve para las dos y solo hay que validar como UTF-8 las líneas no ASCII
+        int bom = bomLength(content, content.length, StandardCharsets.UTF_8);
+        LineIndex index = LineIndex.of(content, bom, content.length);
+        if (isUtf8(content, index)) {
+            return new SourceText(content, index, StandardCharsets.UTF_8, null, false);
+        }
+        return new SourceText(content, index, WINDOWS_1252, singleByteTable(WINDOWS_1252), false);
+    }
+
+    private static SourceText decode(byte[] content, Charset charset) throws CharacterCodingException {
+        int bom = bomLength(content, content.length, charset);
+        if (charset.equals(StandardCharsets.UTF_8)) {
+            LineIndex index = LineIndex.of(content, bom, content.length);
+            if (!isUtf8(content, index)) {
+                throw new MalformedInputException(1);
+            }
+            return new SourceText(content, index, charset, null, false);
+        }
+        char[] table = singleByteTable(charset);
+        if (table != null) {
+            return new SourceText(content, LineIndex.of(content, bom, content.length), charset, table, false);
+        }
+        // Codificación no compatible con ASCII byte a byte: conversión a UTF-8
+        CharBuffer chars = decoder(charset).decode(ByteBuffer.wrap(content, bom, content.length - bom));
+        ByteBuffer utf8 = StandardCharsets.UTF_8.encode(chars);
+        byte[] bytes = new byte[utf8.remaining()];
+        utf8.get(bytes);
+        return new SourceText(bytes, LineIndex.of(bytes), charset, null, true);
+    }
+
+    /**
+     * newReader() - Lector de líneas para el modo streaming. La codificación se decide con los
+     * primeros 64 KB del archivo; si después aparece UTF-8 no válido, la lectura falla con
+     * MalformedInputException.
+     */
+    public static BufferedReader newReader(Path path, String encoding) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(path), STREAM_PREFIX_LENGTH);
+        try {
+            in.mark(STREAM_PREFIX_LENGTH);
+            byte[] prefix = new byte[STREAM_PREFIX_LENGTH];
+            int length = 0;
+            int read;
+            while (length < prefix.length && (read = in.read(prefix, length, prefix.length - length)) > 0) {
+                length += read;
+            }
+            in.reset();
+            Charset charset = AUTO.equals(encoding) ? detect(prefix, length, length == prefix.length) : Charset.forName(encoding);
+            for (long skip = bomLength(prefix, length, charset); skip > 0; ) {
+                skip -= in.skip(skip);
+            }
+            return new BufferedReader(new InputStreamReader(in, decoder(charset)));
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * detect() - Codificación de content[0, length). Con truncated, content es solo el principio
+     * del archivo y una secuencia UTF-8 cortada al final no se considera un error.
+     */
+    static Charset detect(byte[] content, int length, boolean truncated) {
+        Charset utf16 = detectUtf16(content, length);
+        if (utf16 != null) {
+            return utf16;
+        }
+        return isUtf8(content, 0, length, truncated) ? StandardCharsets.UTF_8 : WINDOWS_1252;
+    }
+
+    // UTF-16 con BOM, o sin BOM si en cada par de bytes hay uno nulo siempre en la misma posición
+    // (texto casi todo ASCII); null si el contenido no parece UTF-16
+    private static Charset detectUtf16(byte[] content, int length) {
+        if (length >= 3 && (content[0] & 0xFF) == 0xEF && (content[1] & 0xFF) == 0xBB && (content[2] & 0xFF) == 0xBF) {
+            return null;
+        }
+        if (length >= 2 && (content[0] & 0xFF) == 0xFF && (content[1] & 0xFF) == 0xFE) {
+            return StandardCharsets.UTF_16LE;
+        }
+        if (length >= 2 && (content[0] & 0xFF) == 0xFE && (content[1] & 0xFF) == 0xFF) {
+            return StandardCharsets.UTF_16BE;
+        }
+        int sniffed = Math.min(length, SNIFF_LENGTH) & ~1;
+        int evenZeros = 0;
+        int oddZeros = 0;
+        for (int i = 0; i < sniffed; i += 2) {
+            if (content[i] == 0) {
+                evenZeros++;
+            }
+            if (content[i + 1] == 0) {
+                oddZeros++;
+            }
+        }
+        if (oddZeros * 4 > sniffed && evenZeros * 8 < oddZeros) {
+            return StandardCharsets.UTF_16LE;
+        }
+        if (evenZeros * 4 > sniffed && oddZeros * 8 < evenZeros) {
+            return StandardCharsets.UTF_16BE;
+        }
+        return null;
+    }
+
+    // Longitud de la marca BOM de la codificación al inicio del contenido, o 0 si no la hay
+    static int bomLength(byte[] content, int length, Charset charset) {
+        if (charset.equals(StandardCharsets.UTF_8)) {
+            return length >= 3 && (content[0] & 0xFF) == 0xEF && (content[1] & 0xFF) == 0xBB && (content[2] & 0xFF) == 0xBF ? 3 : 0;
+        }
+        if (charset.equals(StandardCharsets.UTF_16LE)) {
+            return length >= 2 && (content[0] & 0xFF) == 0xFF && (content[1] & 0xFF) == 0xFE ? 2 : 0;
+        }
+        if (charset.equals(StandardCharsets.UTF_16BE)) {
+            return length >= 2 && (content[0] & 0xFF) == 0xFE && (content[1] & 0xFF) == 0xFF ? 2 : 0;
+        }
+        return 0;
+    }
+
+    // Solo las líneas con bytes no ASCII pueden no ser UTF-8 válido; los terminadores son ASCII,
+    // así que ninguna secuencia multibyte queda partida entre dos líneas
+    private static boolean isUtf8(byte[] content, LineIndex index) {
+        for (int i = 0; i < index.count(); i++) {
+            if (!index.isAscii(i) && !isUtf8(content, index.start(i), index.end(i), false)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // content[from, to) es UTF-8 estricto, con los mismos rechazos que el decodificador de Java
+    // (formas largas, suplentes y valores por encima de U+10FFFF)
+    static boolean isUtf8(byte[] content, int from, int to, boolean truncated) {
+        int i = from;
+        while (i < to) {
+            int b = content[i];
+            if (b >= 0) {
+                i++;
+                continue;
+            }
+            b &= 0xFF;
+            int continuation;
+            int min = 0x80;
+            int max = 0xBF;
+            if (b >= 0xC2 && b <= 0xDF) {
+                continuation = 1;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                continuation = 2;
+                if (b == 0xE0) {
+                    min = 0xA0;
+                } else if (b == 0xED) {
+                    max = 0x9F;
+                }
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                continuation = 3;
+                if (b == 0xF0) {
+                    min = 0x90;
+                } else if (b == 0xF4) {
+                    max = 0x8F;
+                }
+            } else {
+                return false;
+            }
+            for (int k = 1; k <= continuation; k++) {
+                if (i + k >= to) {
+                    return truncated;
+                }
+                int c = content[i + k] & 0xFF;
+                if (c < (k == 1 ? min : 0x80) || c > (k == 1 ? max : 0xBF)) {
+                    return false;
+                }
+            }
+            i += continuation + 1;
+        }
+        return true;
+    }
+
+    // Tabla byte -> carácter si la codificación es de un byte y coincide con ASCII por debajo de 0x80
+    private static char[] singleByteTable(Charset charset) {
+        if (!charset.canEncode() || charset.newEncoder().maxBytesPerChar() != 1.0f) {
+            return null;
+        }
+        byte[] bytes = new byte[256];
+        for (int b = 0; b < 256; b++) {
+            bytes[b] = (byte) b;
+        }
+        String chars = new String(bytes, charset);
+        if (chars.length() != 256) {
+            return null;
+        }
+        for (int b = 0; b < 0x80; b++) {
+            if (chars.charAt(b) != b) {
+                return null;
+            }
+        }
+        return chars.toCharArray();
+    }
+
+    // UTF-8 mal formado es un error; los bytes sin carácter asignado (Windows-1252) se sustituyen
+    private static CharsetDecoder decoder(Charset charset) {
+        return charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    public Charset charset() {
+        return charset;
+    }
+
+    // Contenido en bytes: UTF-8 si isUtf8(), o en la codificación de un byte en otro caso
+    public byte[] content() {
+        return content;
+    }
+
+    public LineIndex index() {
+        return index;
+    }
+
+    public int lineCount() {
+        return index.count();
+    }
+
+    // true si content está en UTF-8 (el del archivo o una conversión)
+    public boolean isUtf8() {
+        return table == null;
+    }
+
+    // true si content está en UTF-8 y sus posiciones son las del archivo, que puede copiarse tal cual
+    public boolean isUtf8File() {
+        return table == null && !transcoded;
+    }
+
+    /**
+     * line() - Línea i (desde 0) como CharSequence: una vista sobre los bytes si la línea es
+     * ASCII o la codificación es de un byte, o un String decodificado en otro caso.
+     */
+    public CharSequence line(int i) {
+        return line(i, new Chars());
+    }
+
+    // Igual que line(), pero reutiliza la vista indicada: las líneas UTF-8 no ASCII se
+    // decodifican en su buffer en lugar de en un String nuevo
+    CharSequence line(int i, Chars view) {
+        if (table == null && !index.isAscii(i)) {
+            return view.decode(index.start(i), index.end(i));
+        }
+        return view.set(index.start(i), index.end(i));
+    }
+
+    // Línea i decodificada como String
+    public String lineString(int i) {
+        int start = index.start(i);
+        int end = index.end(i);
+        if (table == null) {
+            return new String(content, start, end - start, StandardCharsets.UTF_8);
+        }
+        char[] chars = new char[end - start];
+        for (int k = 0; k < chars.length; k++) {
+            chars[k] = table[content[start + k] & 0xFF];
+        }
+        return new String(chars);
+    }
+
+    // Longitud de la línea i en unidades UTF-16, como String.length() de la línea decodificada
+    public int charLength(int i) {
+        int start = index.start(i);
+        int end = index.end(i);
+        if (table != null || index.isAscii(i)) {
+            return end - start;
+        }
+        return LineIndex.charLength(content, start, end);
+    }
+
+    // Líneas como CharSequence, decodificadas solo al pedirlas (ver line())
+    public List<CharSequence> lines() {
+        return new LineList();
+    }
+
+    // Todas las líneas decodificadas, como las devolvería Files.readAllLines()
+    public List<String> decodeLines() {
+        List<String> lines = new ArrayList<>(index.count());
+        for (int i = 0; i < index.count(); i++) {
+            lines.add(lineString(i));
+        }
+        return lines;
+    }
+
+    final class LineList extends AbstractList<CharSequence> implements RandomAccess {
+        @Override
+        public CharSequence get(int i) {
+            return line(i);
+        }
+
+        // Línea i sobre una vista reutilizada (ver TokenBuffer)
+        CharSequence get(int i, Chars view) {
+            return line(i, view);
+        }
+
+        Chars newView() {
+            return new Chars();
+        }
+
+        @Override
+        public int size() {
+            return index.count();
+        }
+    }
+
+    /**
+     * Vista de un tramo de content como secuencia de caracteres, sin copiarlo. Para recorrer
+     * una línea UTF-8 no ASCII, decode() la decodifica en un buffer propio que se reutiliza.
+     */
+    final class Chars implements CharSequence {
+        private int start;
+        private int end;
+        // Caracteres decodificados por decode(), o null si la vista apunta a content
+        private char[] decoded;
+        private char[] buffer;
+
+        Chars set(int start, int end) {
+            this.start = start;
+            this.end = end;
+            this.decoded = null;
+            return this;
+        }
+
+        // content[from, to) es UTF-8 ya validado
+        Chars decode(int from, int to) {
+            if (buffer == null || buffer.length < to - from) {
+                buffer = new char[Math.max(to - from, 128)];
+            }
+            int length = 0;
+            int i = from;
+            while (i < to) {
+                int b = content[i];
+                if (b >= 0) {
+                    buffer[length++] = (char) b;
+                    i++;
+                } else if ((b & 0xE0) == 0xC0) {
+                    buffer[length++] = (char) (((b & 0x1F) << 6) | (content[i + 1] & 0x3F));
+                    i += 2;
+                } else if ((b & 0xF0) == 0xE0) {
+                    buffer[length++] = (char) (((b & 0x0F) << 12) | ((content[i + 1] & 0x3F) << 6) | (content[i + 2] & 0x3F));
+                    i += 3;
+                } else {
+                    int cp = ((b & 0x07) << 18) | ((content[i + 1] & 0x3F) << 12) | ((content[i + 2] & 0x3F) << 6)
+                        | (content[i + 3] & 0x3F);
+                    buffer[length++] = Character.highSurrogate(cp);
+                    buffer[length++] = Character.lowSurrogate(cp);
+                    i += 4;
+                }
+            }
+            this.start = 0;
+            this.end = length;
+            this.decoded = buffer;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int i) {
+            if (decoded != null) {
+                return decoded[i];
+            }
+            int b = content[start + i];
+            return table == null ? (char) b : table[b & 0xFF];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return toString(start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return toString(start, end);
+        }
+
+        private String toString(int from, int to) {
+            if (decoded != null) {
+                return new String(decoded, from, to - from);
+            }
+            if (table == null) {
+                return new String(content, from, to - from, StandardCharsets.ISO_8859_1);
+            }
+            char[] chars = new char[to - from];
+            for (int k = 0; k < chars.length; k++) {
+                chars[k] = table[content[from + k] & 0xFF];
+            }
+            return new String(chars);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Validación en streaming con memoria acotada.
+ *
+ * Las líneas se leen de un canal con buffer, cada una se tokeniza con VBScriptScanner y su token
+ * se entrega directamente a VBScriptParser.accept(). El listado anotado se escribe a medida que
+ * avanza la lectura, así que la memoria no depende del número de líneas: solo de la profundidad
+ * de anidamiento de los bloques abiertos y, con la regla "symbols", del número de variables
+ * distintas declaradas con Dim en los ámbitos abiertos (las del módulo se conservan hasta el
+ * final). Con --disable-rules=symbols la memoria es constante.
+ *
+ * El informe final tiene el mismo formato que el modo normal: como la cabecera y el resumen
+ * necesitan las estadísticas completas, el listado se escribe primero en un archivo temporal
+ * y se copia al final del informe.
+ *
+ * Con una salida JSON Lines o SARIF (DiagnosticWriter), los errores de cada línea se escriben en
+ * ella en cuanto se leen y no se genera informe.
+ */
+public class StreamingValidator {
+    private static final String ERROR_LINE_PREFIX = "Error en línea ";
+
+    private final String vbFilePath;
+    private final String basePath;
+    private final RuleRegistry rules;
+    private final boolean errorsOnly;
+    private final DiagnosticWriter diagnosticWriter;
+    private final String encoding;
+    // Resultado de validate(): contadores, errores, tokens y profundidad de anidamiento máxima
+    private ParserStatistics stats;
+    private int errorCount;
+    private int tokenCount;
+    private int maxNestingDepth;
+
+    public StreamingValidator(String vbFilePath, String basePath) {
+        this(vbFilePath, basePath, RuleRegistry.defaults(), false, null, SourceText.AUTO);
+    }
+
+    /**
+     * Con errorsOnly, el informe no repite el código fuente (ver ReportWriter). Con
+     * diagnosticWriter distinto de null, los errores se escriben en esa salida. encoding es la
+     * codificación del archivo, o "auto" para detectarla (ver SourceText.newReader()).
+     */
+    public StreamingValidator(String vbFilePath, String basePath, RuleRegistry rules, boolean errorsOnly,
+                              DiagnosticWriter diagnosticWriter, String encoding) {
+        this.vbFilePath = vbFilePath;
+        this.basePath = basePath;
+        this.rules = rules;
+        this.errorsOnly = errorsOnly;
+        this.diagnosticWriter = diagnosticWriter;
+        this.encoding = encoding;
+    }
+
+    // Destino de cada línea leída con sus errores
+    private interface LineConsumer {
+        void accept(int lineNumber, String line, DiagnosticStore lineErrors) throws IOException;
+    }
+
+    /**
+     * validate() - Valida el archivo y escribe el informe. Devuelve true si se encontraron errores.
+     */
+    public boolean validate() throws IOException {
+        if (diagnosticWriter != null) {
+            return validateToWriter();
+        }
+        Path errorFile = Paths.get(basePath + "-Errores.txt");
+        Path parent = errorFile.toAbsolutePath().getParent();
+        Path body = Files.createTempFile(parent, errorFile.getFileName().toString(), ".tmp");
+
+        try {
+            LineErrorReporter errorReporter = new LineErrorReporter(basePath);
+            VBScriptParser parser;
+            try (BufferedWriter writer = Files.newBufferedWriter(body)) {
+                parser = readLines(errorReporter, (lineNumber, line, lineErrors) -> {
+                    if (errorsOnly) {
+                        writeLineErrors(writer, lineNumber, line, lineErrors);
+                    } else {
+                        ErrorReporter.writeAnnotatedLine(writer, lineNumber, line, lineErrors, 0);
+                    }
+                });
+            }
+
+            errorReporter.writeHeader(vbFilePath);
+            errorReporter.reportSummary(parser.stats);
+            appendBody(errorFile, body, errorReporter.lateErrors, errorsOnly);
+            return errorReporter.hasErrors();
+        } finally {
+            Files.deleteIfExists(body);
+        }
+    }
+
+    // Errores de cada línea a la salida JSON Lines o SARIF, sin informe ni archivo temporal
+    private boolean validateToWriter() throws IOException {
+        LineErrorReporter errorReporter = new LineErrorReporter(basePath);
+        int[] written = { 0 };
+        VBScriptParser parser = readLines(errorReporter, (lineNumber, line, lineErrors) ->
+            written[0] += diagnosticWriter.writeLine(vbFilePath, lineNumber, line, lineErrors));
+        errorReporter.lateErrors.sort();
+        diagnosticWriter.writeDiagnostics(vbFilePath, errorReporter.lateErrors);
+        diagnosticWriter.writeSummary(vbFilePath, parser.stats, written[0] + errorReporter.lateErrors.size());
+        return errorReporter.hasErrors();
+    }
+
+    // Lee el archivo línea a línea, entrega cada token al parser y cada línea con sus errores a
+    // consumer. Devuelve el parser ya terminado; los errores tardíos quedan en errorReporter.
+    private VBScriptParser readLines(LineErrorReporter errorReporter, LineConsumer consumer) throws IOException {
+        VBScriptParser parser = new VBScriptParser(errorReporter);
+        parser.setRules(rules);
+        try (BufferedReader reader = SourceText.newReader(ArchiveSources.resolve(vbFilePath), encoding)) {
+            String line;
+            int lineNumber = 0;
+            int depth = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                errorReporter.beginLine(lineNumber);
+                Token token = VBScriptScanner.scanLine(line, lineNumber);
+                if (token != null) {
+                    parser.accept(token);
+                    Metrics.countToken(token.getType());
+                    tokenCount++;
+                    depth = BlockStack.depthAfter(depth, token.getType());
+                    maxNestingDepth = Math.max(maxNestingDepth, depth);
+                }
+                consumer.accept(lineNumber, line, errorReporter.currentLine);
+            }
+            errorReporter.beginLine(-1);
+            parser.finish();
+            Metrics.add(Metrics.LINES, lineNumber);
+        }
+        stats = parser.stats;
+        errorCount = errorReporter.errorCount;
+        return parser;
+    }
+
+    // Contadores del archivo, tras validate()
+    public ParserStatistics getStats() {
+        return stats;
+    }
+
+    // Errores reportados, tras validate()
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    public int getTokenCount() {
+        return tokenCount;
+    }
+
+    // Profundidad de anidamiento máxima (ver BlockStack.depthAfter())
+    public int getMaxNestingDepth() {
+        return maxNestingDepth;
+    }
+
+    // Informe con --errors-only: una línea "Error en línea NNNN: mensaje" por error, como ReportWriter
+    private static void writeLineErrors(BufferedWriter writer, int lineNumber, String line, DiagnosticStore lineErrors) throws IOException {
+        if (line.length() > 90) {
+            writer.write(String.format("Error en línea %04d: la línea excede los 90 caracteres.", lineNumber));
+            writer.newLine();
+        }
+        for (int i = 0; i < lineErrors.size(); i++) {
+            writeErrorLine(writer, lineErrors, i);
+        }
+    }
+
+    private static void writeErrorLine(BufferedWriter writer, DiagnosticStore diagnostics, int i) throws IOException {
+        writer.write(String.format("Error en línea %04d: %s", diagnostics.line(i), diagnostics.message(i)));
+        writer.newLine();
+    }
+
+    // Copia el listado al informe. Los errores reportados al final (estructuras sin cerrar) se
+    // refieren a líneas ya escritas y se añaden tras los errores que ya tuviera esa línea.
+    private static void appendBody(Path errorFile, Path body, DiagnosticStore lateErrors, boolean errorsOnly) throws IOException {
+        if (lateErrors.isEmpty()) {
+            try (FileChannel in = FileChannel.open(body, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(errorFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                long position = 0;
+                long size = in.size();
+                while (position < size) {
+                    position += in.transferTo(position, size - position, out);
+                }
+            }
+            return;
+        }
+
+        lateErrors.sort();
+        try (BufferedReader reader = Files.newBufferedReader(body);
+             BufferedWriter writer = Files.newBufferedWriter(errorFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            String bodyLine;
+            int currentLine = 0;
+            int next = 0;
+            while ((bodyLine = reader.readLine()) != null) {
+                if (errorsOnly) {
+                    // Cada línea es un error "Error en línea NNNN: ...": antes van los tardíos de líneas anteriores
+                    int lineNumber = Integer.parseInt(bodyLine.substring(ERROR_LINE_PREFIX.length(), bodyLine.indexOf(':')));
+                    next = writeLateErrors(writer, lateErrors, next, lineNumber - 1, true);
+                } else if (!bodyLine.isEmpty() && Character.isDigit(bodyLine.charAt(0))) {
+                    // Nueva línea del código fuente: cerrar la anterior
+                    next = writeLateErrors(writer, lateErrors, next, currentLine, false);
+                    currentLine = Integer.parseInt(bodyLine.substring(0, bodyLine.indexOf(' ')));
+                }
+                writer.write(bodyLine);
+                writer.newLine();
+            }
+            writeLateErrors(writer, lateErrors, next, errorsOnly ? Integer.MAX_VALUE : currentLine, errorsOnly);
+        }
+    }
+
+    // Escribe los errores tardíos de la línea indicada y devuelve el índice del siguiente. Con
+    // errorsOnly se escriben todos los de esa línea o anteriores, en el formato de --errors-only
+    private static int writeLateErrors(BufferedWriter writer, DiagnosticStore lateErrors, int next, int lineNumber,
+                                       boolean errorsOnly) throws IOException {
+        while (next < lateErrors.size() && lateErrors.line(next) <= lineNumber) {
+            if (errorsOnly) {
+                writeErrorLine(writer, lateErrors, next);
+            } else if (lateErrors.line(next) == lineNumber) {
+                writer.write("Error: " + lateErrors.message(next));
+                writer.newLine();
+            }
+            next++;
+        }
+        return next;
+    }
+
+    /**
+     * ErrorReporter que solo conserva los errores de la línea en curso, más los errores
+     * reportados una vez terminada la lectura.
+     */
+    private static class LineErrorReporter extends ErrorReporter {
+        private final DiagnosticStore currentLine = new DiagnosticStore();
+        private final DiagnosticStore lateErrors = new DiagnosticStore();
+        private int currentLineNumber;
+        private boolean errorsFound;
+        private int errorCount;
+
+        LineErrorReporter(String basePath) {
+            super(basePath);
+        }
+
+        void beginLine(int lineNumber) {
+            currentLineNumber = lineNumber;
+            currentLine.clear();
+        }
+
+        @Override
+        public void report(int lineNumber, String errorMessage) {
+            errorsFound = true;
+            errorCount++;
+            storeFor(lineNumber).add(lineNumber, 0, errorMessage);
+        }
+
+        @Override
+        public void report(int lineNumber, int column, ErrorCode code, int argument) {
+            errorsFound = true;
+            errorCount++;
+            storeFor(lineNumber).add(lineNumber, column, code, argument);
+        }
+
+        private DiagnosticStore storeFor(int lineNumber) {
+            return lineNumber == currentLineNumber ? currentLine : lateErrors;
+        }
+
+        @Override
+        public boolean hasErrors() {
+            return errorsFound;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Resumen de la estructura de bloques de un tramo de tokens (ParallelParser).
+ *
+ * Para cada pila de bloques guarda los cierres que encontraron vacía la pila del tramo, cuyo
+ * resultado depende de los bloques que dejen abiertos los tramos anteriores, y los bloques que
+ * siguen abiertos al final del tramo. append() combina el resumen con el del tramo siguiente y
+ * es asociativa, así que los resúmenes pueden combinarse en cualquier agrupación. finish()
+ * reporta, para el resumen del archivo completo, los mismos errores que VBScriptParser con
+ * las pilas vacías al inicio.
+ */
+class StructureSummary {
+    final BlockStack subMainClosers = new BlockStack();
+    final BlockStack tryCatchClosers = new BlockStack();
+    final BlockStack whileClosers = new BlockStack();
+    BlockStack subMainOpen = new BlockStack();
+    BlockStack tryCatchOpen = new BlockStack();
+    BlockStack whileOpen = new BlockStack();
+    // Cierres sin apertura detectados al combinar tramos
+    final DiagnosticStore errors = new DiagnosticStore();
+
+    void addCloser(ErrorCode code, TokenCursor token) {
+        closersFor(code).push(token.getType(), token.getLineNumber(), token.getCharPosition());
+    }
+
+    void setOpen(BlockStack subMainOpen, BlockStack tryCatchOpen, BlockStack whileOpen) {
+        this.subMainOpen = subMainOpen;
+        this.tryCatchOpen = tryCatchOpen;
+        this.whileOpen = whileOpen;
+    }
+
+    private BlockStack closersFor(ErrorCode code) {
+        switch (code) {
+            case END_SUB_WITHOUT_SUB_MAIN:
+                return subMainClosers;
+            case END_WHILE_WITHOUT_WHILE:
+                return whileClosers;
+            default:
+                return tryCatchClosers;
+        }
+    }
+
+    /**
+     * append() - Añade a este resumen el del tramo inmediatamente posterior. Los cierres de next
+     * se aplican a los bloques que este tramo deja abiertos; los que no encuentran ninguno pasan
+     * a depender de los tramos anteriores a este.
+     */
+    void append(StructureSummary next) {
+        for (int i = 0; i < next.errors.size(); i++) {
+            errors.add(next.errors, i);
+        }
+        appendNested(subMainClosers, subMainOpen, next.subMainClosers, next.subMainOpen);
+        appendNested(whileClosers, whileOpen, next.whileClosers, next.whileOpen);
+        appendTryCatch(next);
+    }
+
+    // Sub Main y While: cada cierre cierra el bloque abierto más interno, si lo hay
+    private static void appendNested(BlockStack closers, BlockStack open, BlockStack nextClosers, BlockStack nextOpen) {
+        for (int i = 0; i < nextClosers.size(); i++) {
+            if (open.isEmpty()) {
+                closers.push(nextClosers.type(i), nextClosers.line(i), nextClosers.column(i));
+            } else {
+                open.pop();
+            }
+        }
+        // Los bloques abiertos de next se abrieron después de su último cierre pendiente
+        pushAll(open, nextOpen);
+    }
+
+    // Try/Catch: un Catch solo cierra un Try y un End Try solo cierra un Catch. Un Catch de next
+    // que cierra un Try de este tramo deja abierto su propio Catch por debajo de los bloques de
+    // next, hasta que el siguiente End Try pendiente de next lo cierra (en next, ese End Try
+    // había encontrado la pila vacía)
+    private void appendTryCatch(StructureSummary next) {
+        BlockStack nextClosers = next.tryCatchClosers;
+        boolean catchOpen = false;
+        int catchLine = 0;
+        int catchColumn = 0;
+        for (int i = 0; i < nextClosers.size(); i++) {
+            Token.Type type = nextClosers.type(i);
+            int line = nextClosers.line(i);
+            int column = nextClosers.column(i);
+            if (catchOpen) {
+                if (type == Token.Type.END_TRY) {
+                    catchOpen = false;
+                } else {
+                    errors.add(line, column, ErrorCode.CATCH_WITHOUT_TRY, 0);
+                }
+            } else if (tryCatchOpen.isEmpty()) {
+                tryCatchClosers.push(type, line, column);
+            } else if (type == Token.Type.CATCH_EXCEPTION && tryCatchOpen.peekType() == Token.Type.TRY) {
+                tryCatchOpen.pop();
+                catchOpen = true;
+                catchLine = line;
+                catchColumn = column;
+            } else if (type == Token.Type.END_TRY && tryCatchOpen.peekType() == Token.Type.CATCH_EXCEPTION) {
+                tryCatchOpen.pop();
+            } else {
+                errors.add(line, column, tryCatchError(type), 0);
+            }
+        }
+        if (catchOpen) {
+            tryCatchOpen.push(Token.Type.CATCH_EXCEPTION, catchLine, catchColumn);
+        }
+        pushAll(tryCatchOpen, next.tryCatchOpen);
+    }
+
+    /**
+     * finish() - Resumen del archivo completo: los cierres pendientes no tienen apertura y se
+     * reportan los bloques abiertos más internos, como en VBScriptParser.finish().
+     */
+    void finish(ErrorReporter errorReporter) {
+        DiagnosticStore diagnostics = errorReporter.getDiagnostics();
+        for (int i = 0; i < errors.size(); i++) {
+            diagnostics.add(errors, i);
+        }
+        for (int i = 0; i < subMainClosers.size(); i++) {
+            errorReporter.report(subMainClosers.line(i), subMainClosers.column(i), ErrorCode.END_SUB_WITHOUT_SUB_MAIN, 0);
+        }
+        for (int i = 0; i < tryCatchClosers.size(); i++) {
+            errorReporter.report(tryCatchClosers.line(i), tryCatchClosers.column(i), tryCatchError(tryCatchClosers.type(i)), 0);
+        }
+        for (int i = 0; i < whileClosers.size(); i++) {
+            errorReporter.report(whileClosers.line(i), whileClosers.column(i), ErrorCode.END_WHILE_WITHOUT_WHILE, 0);
+        }
+
+        if (!subMainOpen.isEmpty()) {
+            errorReporter.report(subMainOpen.peekLine(), subMainOpen.peekColumn(), ErrorCode.UNCLOSED_SUB_MAIN, 0);
+        }
+        if (!tryCatchOpen.isEmpty()) {
+            errorReporter.report(tryCatchOpen.peekLine(), tryCatchOpen.peekColumn(), ErrorCode.UNCLOSED_TRY_CATCH,
+                tryCatchOpen.peekType().ordinal());
+        }
+        if (!whileOpen.isEmpty()) {
+            errorReporter.report(whileOpen.peekLine(), whileOpen.peekColumn(), ErrorCode.UNCLOSED_WHILE,
+                whileOpen.peekType().ordinal());
+        }
+    }
+
+    private static ErrorCode tryCatchError(Token.Type type) {
+        return type == Token.Type.CATCH_EXCEPTION ? ErrorCode.CATCH_WITHOUT_TRY : ErrorCode.END_TRY_WITHOUT_TRY_CATCH;
+    }
+
+    private static void pushAll(BlockStack target, BlockStack source) {
+        for (int i = 0; i < source.size(); i++) {
+            target.push(source.type(i), source.line(i), source.column(i));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * Sub Main: sin contar los espacios en blanco, el texto empieza por "SubMain(" y los paréntesis
+ * están equilibrados (nunca se cierra uno que no se haya abierto).
+ */
+public class SubMainRule implements ValidationRule {
+    private static final String PREFIX = "SubMain(";
+
+    @Override
+    public String name() { return "sub-main"; }
+
+    @Override
+    public Token.Type tokenType() { return Token.Type.SUB_MAIN; }
+
+    @Override
+    public ErrorCode errorCode() { return ErrorCode.INVALID_SUB_MAIN; }
+
+    @Override
+    public boolean isValid(CharSequence source, int start, int end) {
+        int matched = 0;
+        int balance = 0;
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            if (isWhitespace(c)) {
+                continue;
+            }
+            if (matched < PREFIX.length()) {
+                if (c != PREFIX.charAt(matched)) {
+                    return false;
+                }
+                matched++;
+            }
+            if (c == '(') balance++;
+            else if (c == ')') balance--;
+            if (balance < 0) return false;
+        }
+        return matched == PREFIX.length() && balance == 0;
+    }
+
+    // Caracteres de \s en las expresiones regulares de Java
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
@@ -0,0 +1,337 @@
+import java.util.Arrays;
+
+/**
+ * Variables declaradas con Dim, por ámbitos: el del módulo y uno por cada Sub Main abierto.
+ *
+ * Detecta las declaraciones repetidas en un mismo ámbito y las asignaciones a variables que no
+ * están declaradas en el ámbito actual ni en los que lo contienen. Los nombres no distinguen
+ * mayúsculas. La búsqueda es una tabla hash de direccionamiento abierto (sondeo lineal) que
+ * compara el texto del token sin copiarlo, así que comprobar un nombre no reserva memoria; solo
+ * cada declaración nueva crea su símbolo.
+ *
+ * Los símbolos forman además una lista enlazada inmutable, de la declaración más reciente a la
+ * más antigua, que comparten los estados guardados del parser (VBScriptParser.State): guardar el
+ * estado no copia la tabla. Como los ámbitos se cierran en orden inverso al de apertura, los
+ * símbolos se eliminan de la tabla en orden inverso al de inserción y basta vaciar su posición.
+ */
+public final class SymbolTable {
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Declaración de una variable; inmutable
+    static final class Symbol {
+        // Nombre en minúsculas
+        final char[] name;
+        final int hash;
+        // Ámbito: 0 para el módulo, n para el n-ésimo Sub Main anidado
+        final int depth;
+        // Declaración anterior y número de declaraciones de la lista hasta esta incluida
+        final Symbol previous;
+        final int size;
+
+        Symbol(char[] name, int hash, int depth, Symbol previous) {
+            this.name = name;
+            this.hash = hash;
+            this.depth = depth;
+            this.previous = previous;
+            this.size = previous == null ? 1 : previous.size + 1;
+        }
+
+        boolean matches(CharSequence source, int start, int end) {
+            if (end - start != name.length) {
+                return false;
+            }
+            for (int i = start; i < end; i++) {
+                if (toLower(source.charAt(i)) != name[i - start]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // Tabla de direccionamiento abierto: en cada posición, el hash del nombre en los 32 bits altos
+    // y la posición del símbolo en declared más uno en los bajos (0 = libre). Se sondea sin leer
+    // los símbolos salvo cuando coincide el hash
+    private long[] slots = new long[INITIAL_CAPACITY];
+    // Símbolos de la lista en orden de declaración (declared[i].size == i + 1)
+    private Symbol[] declared = new Symbol[INITIAL_CAPACITY];
+    private Symbol last;
+    private int depth;
+    // Tras restore(), la tabla se reconstruye a partir de la lista en el primer uso
+    private boolean stale;
+    // Posición libre en la que terminó el último find() sin resultado: la de un símbolo nuevo con ese nombre
+    private int freeSlot;
+
+    /**
+     * accept() - Procesa un token: Sub Main abre un ámbito y End Sub lo cierra, Dim declara sus
+     * variables y una asignación comprueba que su variable está declarada.
+     */
+    public void accept(TokenCursor token, ErrorReporter errorReporter) {
+        switch (token.getType()) {
+            case SUB_MAIN:
+                depth++;
+                break;
+            case END_SUB:
+                if (depth > 0) {
+                    exitScope();
+                }
+                break;
+            case DIM_STATEMENT:
+                declare(token, errorReporter);
+                break;
+            case ASSIGNMENT:
+                checkAssignment(token, errorReporter);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Dim a, b As Integer, c As String = "x": el nombre de cada declarador separado por comas
+    private void declare(TokenCursor token, ErrorReporter errorReporter) {
+        CharSequence source = token.getSource();
+        int end = token.getTextEnd();
+        int i = skipSpaces(source, token.getTextStart(), end) + "Dim".length();
+        if (i >= end || !VBScriptScanner.isSpace(source.charAt(i))) {
+            // "Dimension = 1": la regla de formato de Dim ya lo reporta
+            return;
+        }
+        while (true) {
+            int nameStart = skipSpaces(source, i, end);
+            int nameEnd = identifierEnd(source, nameStart, end);
+            if (nameEnd == nameStart) {
+                return;
+            }
+            int hash = hash(source, nameStart, nameEnd);
+            if (find(source, nameStart, nameEnd, hash, depth) != null) {
+                errorReporter.report(token.getLineNumber(), nameStart, ErrorCode.DUPLICATE_DIM, 0);
+            } else {
+                insert(new Symbol(lowerCase(source, nameStart, nameEnd), hash, depth, last));
+            }
+            i = declaratorEnd(source, nameEnd, end);
+            if (i >= end) {
+                return;
+            }
+            i++;
+        }
+    }
+
+    private void checkAssignment(TokenCursor token, ErrorReporter errorReporter) {
+        CharSequence source = token.getSource();
+        int end = token.getTextEnd();
+        int nameStart = skipSpaces(source, token.getTextStart(), end);
+        int nameEnd = identifierEnd(source, nameStart, end);
+        if (find(source, nameStart, nameEnd, hash(source, nameStart, nameEnd), -1) == null) {
+            errorReporter.report(token.getLineNumber(), nameStart, ErrorCode.UNDECLARED_VARIABLE, 0);
+        }
+    }
+
+    // Cierra el ámbito más interno y elimina sus declaraciones, las más recientes de la lista
+    private void exitScope() {
+        rebuildIfStale();
+        Symbol kept = last;
+        while (kept != null && kept.depth == depth) {
+            kept = kept.previous;
+        }
+        int size = size(last);
+        int keptSize = size(kept);
+        if (size - keptSize > keptSize) {
+            // Se eliminan más símbolos de los que quedan: es más rápido volver a insertar estos
+            last = kept;
+            rebuild();
+        } else {
+            while (last != kept) {
+                remove(last);
+                last = last.previous;
+            }
+        }
+        Arrays.fill(declared, keptSize, size, null);
+        depth--;
+    }
+
+    // Símbolo con ese nombre en el ámbito scope, o en cualquiera visible si scope es -1
+    private Symbol find(CharSequence source, int start, int end, int hash, int scope) {
+        rebuildIfStale();
+        int mask = slots.length - 1;
+        long slot;
+        int i = hash & mask;
+        for (; (slot = slots[i]) != 0; i = (i + 1) & mask) {
+            if ((int) (slot >>> 32) == hash) {
+                Symbol symbol = declared[(int) slot - 1];
+                if ((scope < 0 || symbol.depth == scope) && symbol.matches(source, start, end)) {
+                    return symbol;
+                }
+            }
+        }
+        freeSlot = i;
+        return null;
+    }
+
+    // Inserta un símbolo justo después de que find() no lo encontrara
+    private void insert(Symbol symbol) {
+        last = symbol;
+        if (symbol.size > declared.length) {
+            declared = Arrays.copyOf(declared, declared.length * 2);
+        }
+        declared[symbol.size - 1] = symbol;
+        // Factor de carga máximo de 1/2
+        if (symbol.size * 2 > slots.length) {
+            slots = new long[slots.length * 2];
+            rebuild();
+        } else {
+            slots[freeSlot] = ((long) symbol.hash << 32) | symbol.size;
+        }
+    }
+
+    private void place(Symbol symbol) {
+        int mask = slots.length - 1;
+        int i = symbol.hash & mask;
+        while (slots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        slots[i] = ((long) symbol.hash << 32) | symbol.size;
+    }
+
+    // Solo se elimina el símbolo insertado más recientemente de los que quedan: ningún otro
+    // símbolo se colocó más allá de su posición por encontrarla ocupada
+    private void remove(Symbol symbol) {
+        int mask = slots.length - 1;
+        int i = symbol.hash & mask;
+        while ((int) slots[i] != symbol.size) {
+            i = (i + 1) & mask;
+        }
+        slots[i] = 0;
+    }
+
+    // Vuelve a insertar todos los símbolos de la lista, del más antiguo al más reciente
+    private void rebuild() {
+        Arrays.fill(slots, 0);
+        for (int i = 0, size = size(last); i < size; i++) {
+            place(declared[i]);
+        }
+    }
+
+    private void rebuildIfStale() {
+        if (stale) {
+            stale = false;
+            int size = size(last);
+            int capacity = INITIAL_CAPACITY;
+            while (size * 2 > capacity) {
+                capacity *= 2;
+            }
+            slots = new long[capacity];
+            declared = new Symbol[capacity];
+            for (Symbol symbol = last; symbol != null; symbol = symbol.previous) {
+                declared[symbol.size - 1] = symbol;
+            }
+            rebuild();
+        }
+    }
+
+    private static int size(Symbol last) {
+        return last == null ? 0 : last.size;
+    }
+
+    // Declaración más reciente, para guardar el estado
+    Symbol last() {
+        return last;
+    }
+
+    int depth() {
+        return depth;
+    }
+
+    // Restaura un estado guardado con last() y depth()
+    void restore(Symbol last, int depth) {
+        this.last = last;
+        this.depth = depth;
+        this.stale = true;
+    }
+
+    /**
+     * sameSymbols() - Mismas declaraciones y ámbitos en dos estados guardados. Las listas de dos
+     * ejecuciones comparten la parte anterior al punto desde el que se reanudó el análisis, así
+     * que solo se comparan las declaraciones posteriores.
+     */
+    static boolean sameSymbols(Symbol a, Symbol b) {
+        while (a != b) {
+            if (a == null || b == null || a.size != b.size || a.depth != b.depth || a.hash != b.hash || !Arrays.equals(a.name, b.name)) {
+                return false;
+            }
+            a = a.previous;
+            b = b.previous;
+        }
+        return true;
+    }
+
+    private static int skipSpaces(CharSequence source, int from, int end) {
+        int i = from;
+        while (i < end && VBScriptScanner.isSpace(source.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    // Fin del identificador que empieza en from (ver VBScriptScanner.isIdentifierStart()), o from
+    // si no hay ninguno
+    private static int identifierEnd(CharSequence source, int from, int end) {
+        if (from >= end || !VBScriptScanner.isIdentifierStart(source.charAt(from))) {
+            return from;
+        }
+        int i = from + 1;
+        while (i < end && VBScriptScanner.isIdentifierPart(source.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    // Coma que separa el declarador del siguiente (fuera de paréntesis y literales), o end si es
+    // el último; un comentario termina la sentencia
+    private static int declaratorEnd(CharSequence source, int from, int end) {
+        int parentheses = 0;
+        boolean inString = false;
+        for (int i = from; i < end; i++) {
+            char c = source.charAt(i);
+            if (inString) {
+                inString = c != '"';
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '(') {
+                parentheses++;
+            } else if (c == ')') {
+                parentheses--;
+            } else if (c == '\'') {
+                return end;
+            } else if (c == ',' && parentheses <= 0) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    // Los nombres suelen diferir solo en el último carácter (v1, v2...): el hash se mezcla para
+    // que no ocupen posiciones consecutivas y formen largas secuencias de sondeo
+    private static int hash(CharSequence source, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + toLower(source.charAt(i));
+        }
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static char toLower(char c) {
+        if (c < 0x80) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(c);
+    }
+
+    private static char[] lowerCase(CharSequence source, int start, int end) {
+        char[] name = new char[end - start];
+        for (int i = start; i < end; i++) {
+            name[i - start] = toLower(source.charAt(i));
+        }
+        return name;
+    }
+}
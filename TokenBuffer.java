@@ -0,0 +1,152 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Secuencia de tokens en arrays paralelos de tipos primitivos.
+ *
+ * En lugar de un objeto Token con una copia de su texto por cada token, guarda el ordinal de
+ * Token.Type, el número de línea y las posiciones inicial y final dentro de la línea. El texto
+ * se extrae de las líneas originales solo cuando alguna validación lo necesita.
+ */
+public class TokenBuffer {
+    private static final Token.Type[] TYPES = Token.Type.values();
+
+    private final List<? extends CharSequence> lines;
+    private byte[] types;
+    private int[] lineNumbers;
+    private int[] starts;
+    private int[] ends;
+    private int size = 0;
+
+    public TokenBuffer(List<? extends CharSequence> lines) {
+        this(lines, 16);
+    }
+
+    public TokenBuffer(List<? extends CharSequence> lines, int capacity) {
+        this.lines = lines;
+        capacity = Math.max(capacity, 16);
+        types = new byte[capacity];
+        lineNumbers = new int[capacity];
+        starts = new int[capacity];
+        ends = new int[capacity];
+    }
+
+    // Añade un token; start y end son posiciones dentro de la línea (end exclusiva)
+    public void add(Token.Type type, int lineNumber, int start, int end) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            lineNumbers = Arrays.copyOf(lineNumbers, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        types[size] = (byte) type.ordinal();
+        lineNumbers[size] = lineNumber;
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Token.Type type(int index) {
+        return TYPES[types[index]];
+    }
+
+    public int lineNumber(int index) {
+        return lineNumbers[index];
+    }
+
+    public int start(int index) {
+        return starts[index];
+    }
+
+    public int end(int index) {
+        return ends[index];
+    }
+
+    // Texto del token, extraído de su línea
+    public String text(int index) {
+        return lines.get(lineNumbers[index] - 1).subSequence(starts[index], ends[index]).toString();
+    }
+
+    // Número de tokens de cada tipo, indexado por ordinal de Token.Type
+    public long[] countByType() {
+        long[] counts = new long[TYPES.length];
+        for (int i = 0; i < size; i++) {
+            counts[types[i]]++;
+        }
+        return counts;
+    }
+
+    // Profundidad de anidamiento máxima (ver BlockStack.depthAfter())
+    public int maxNestingDepth() {
+        int depth = 0;
+        int max = 0;
+        for (int i = 0; i < size; i++) {
+            depth = BlockStack.depthAfter(depth, TYPES[types[i]]);
+            max = Math.max(max, depth);
+        }
+        return max;
+    }
+
+    public TokenCursor cursor() {
+        return new Cursor(0, size);
+    }
+
+    // Recorrido de los tokens from (incluido) a to (excluido)
+    public TokenCursor cursor(int from, int to) {
+        return new Cursor(from, to);
+    }
+
+    private final class Cursor implements TokenCursor {
+        private int index;
+        private final int end;
+        // Sobre las líneas de un SourceText, getSource() reutiliza una única vista por cursor en
+        // lugar de crear una por token; solo es válida hasta la siguiente llamada
+        private final SourceText.Chars view;
+
+        Cursor(int from, int to) {
+            index = from - 1;
+            end = to;
+            view = lines instanceof SourceText.LineList ? ((SourceText.LineList) lines).newView() : null;
+        }
+
+        @Override
+        public boolean next() {
+            if (index + 1 >= end) {
+                return false;
+            }
+            index++;
+            return true;
+        }
+
+        @Override
+        public Token.Type getType() { return TYPES[types[index]]; }
+
+        @Override
+        public int getLineNumber() { return lineNumbers[index]; }
+
+        @Override
+        public int getCharPosition() { return starts[index]; }
+
+        @Override
+        public String getText() { return text(index); }
+
+        @Override
+        public CharSequence getSource() {
+            if (view != null) {
+                return ((SourceText.LineList) lines).get(lineNumbers[index] - 1, view);
+            }
+            return lines.get(lineNumbers[index] - 1);
+        }
+
+        @Override
+        public int getTextStart() { return starts[index]; }
+
+        @Override
+        public int getTextEnd() { return ends[index]; }
+    }
+}
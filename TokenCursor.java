@@ -0,0 +1,30 @@
+/**
+ * Recorrido secuencial de tokens, común a una List<Token> y a un TokenBuffer.
+ * next() avanza al siguiente token y los getters describen el token actual; el texto solo
+ * se obtiene cuando se pide con getText().
+ */
+public interface TokenCursor {
+    boolean next();
+
+    Token.Type getType();
+
+    int getLineNumber();
+
+    int getCharPosition();
+
+    String getText();
+
+    // Texto del token sin copiarlo: la región [getTextStart(), getTextEnd()) de getSource().
+    // Por defecto, el propio getText()
+    default CharSequence getSource() {
+        return getText();
+    }
+
+    default int getTextStart() {
+        return 0;
+    }
+
+    default int getTextEnd() {
+        return getSource().length();
+    }
+}
@@ -0,0 +1,40 @@
+import java.util.List;
+
+/**
+ * TokenCursor sobre una lista de objetos Token.
+ */
+public class TokenListCursor implements TokenCursor {
+    private final List<Token> tokens;
+    private int index = -1;
+    private Token current;
+
+    public TokenListCursor(List<Token> tokens) {
+        this.tokens = tokens;
+    }
+
+    @Override
+    public boolean next() {
+        if (index + 1 >= tokens.size()) {
+            return false;
+        }
+        current = tokens.get(++index);
+        return true;
+    }
+
+    // Fija el token actual sin recorrer la lista (modo streaming, tokens entregados uno a uno)
+    void set(Token token) {
+        current = token;
+    }
+
+    @Override
+    public Token.Type getType() { return current.getType(); }
+
+    @Override
+    public int getLineNumber() { return current.getLineNumber(); }
+
+    @Override
+    public int getCharPosition() { return current.getCharPosition(); }
+
+    @Override
+    public String getText() { return current.getText(); }
+}
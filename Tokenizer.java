@@ -0,0 +1,9 @@
+import java.util.ArrayList;
+
+/**
+ * Interfaz común para los analizadores léxicos de VBScript.
+ * Permite seleccionar la implementación (escáner o referencia por expresiones regulares).
+ */
+public interface Tokenizer {
+    ArrayList<Token> tokenize();
+}
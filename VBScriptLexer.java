@@ -5,7 +5,7 @@ import java.util.regex.Pattern;
 import java.util.HashMap;
 import java.util.Map;
 
-public class VBScriptLexer {
+public class VBScriptLexer implements Tokenizer {
     private List<String> lines;
     private ArrayList<Token> tokens;
     private Map<Pattern, Token.Type> tokenPatterns;
@@ -37,6 +37,11 @@ public class VBScriptLexer {
         tokenPatterns.put(Pattern.compile("^\\s*Dim.*", Pattern.CASE_INSENSITIVE), Token.Type.DIM_STATEMENT);
         tokenPatterns.put(Pattern.compile("^\\s*Catch.*", Pattern.CASE_INSENSITIVE), Token.Type.CATCH_EXCEPTION);
         tokenPatterns.put(Pattern.compile("^\\s*End\\s+Try\\b", Pattern.CASE_INSENSITIVE), Token.Type.END_TRY);
+
+        // Asignación a una variable (identificador como en VBScriptScanner.isIdentifierStart()); se
+        // excluyen las sentencias Dim, Catch, While y Try para no solaparse con ellas
+        tokenPatterns.put(Pattern.compile("^\\s*(?!Dim|Catch|(?:While|Try)\\b)[\\p{L}_][\\p{L}\\p{Nd}_]*\\s*=.*", Pattern.CASE_INSENSITIVE),
+            Token.Type.ASSIGNMENT);
         
 
         // Reconocer otros patrones
@@ -45,6 +50,7 @@ public class VBScriptLexer {
     }
 
     // Tokeniza las líneas de entrada
+    @Override
     public ArrayList<Token> tokenize() {
         int lineNumber = 1;
         for (String line : lines) {
@@ -55,10 +61,7 @@ public class VBScriptLexer {
 
     // Procesa cada línea para extraer tokens
     private void processLine(String line, int lineNumber) {
-        System.out.println("Processing line " + lineNumber + ": " + line); //Temporal
-        
         boolean isCommentLine = false;
-        
 
         for (Map.Entry<Pattern, Token.Type> entry : tokenPatterns.entrySet()) {
             Matcher matcher = entry.getKey().matcher(line);
@@ -68,10 +71,6 @@ public class VBScriptLexer {
                 }
                 String matchedText = matcher.group();
 
-                //temporal para debug
-                System.out.println("Matched text: " + matchedText + ", Token type: " + entry.getValue());
-                
-                
                 // Verificar si el texto coincidente se solapa con algún token existente
                 boolean overlapping = tokens.stream()
                     .anyMatch(token ->
@@ -80,7 +79,6 @@ public class VBScriptLexer {
                         matcher.start() < token.getCharPosition() + token.getText().length());
                 // Si no hay overlapping, añadir el token a la lista
                 if (!overlapping) {
-                    System.out.println("Token found: " + matchedText + entry.getValue()); // temporal
                     tokens.add(new Token(entry.getValue(), matchedText, lineNumber, matcher.start()));
                 }
             }
@@ -1,211 +1,346 @@
+import java.util.Collections;
 import java.util.List;
-import java.util.Stack;
 
 /**
  * Clase VBScriptParser para analizar y reportar errores en VBScript.
  */
 
 public class VBScriptParser {
-    private List<Token> tokens;
+    // Versión de las reglas de validación. Incrementar al cambiar reglas o mensajes de error,
+    // ya que invalida los resultados guardados en la caché.
+    public static final int RULES_VERSION = 5;
+
+    private TokenCursor tokens;
     private ErrorReporter errorReporter;
+    // Reglas de formato por tipo de token
+    private RuleRegistry rules = RuleRegistry.defaults();
 
     public ParserStatistics stats = new ParserStatistics();
 
-    private Stack<Token> tryCatchStack = new Stack<>();
-    private Stack<Token> subMainStack = new Stack<>();
-    private Stack<Token> whileStack = new Stack<>();
+    private BlockStack tryCatchStack = new BlockStack();
+    private BlockStack subMainStack = new BlockStack();
+    private BlockStack whileStack = new BlockStack();
+    // Variables declaradas con Dim en cada ámbito
+    private final SymbolTable symbols = new SymbolTable();
+
+    // Cursor reutilizado por accept(Token) en modo streaming
+    private final TokenListCursor single = new TokenListCursor(Collections.emptyList());
+
+    // Estado de la estructura de módulo
+    private boolean moduleStartFound = false;
+    private boolean moduleEndFound = false;
+
+    // Resumen del tramo en el análisis por tramos (ParallelParser); null en el análisis normal
+    private StructureSummary chunk;
 
     
     public VBScriptParser(List<Token> tokens, ErrorReporter errorReporter) {
+        this(new TokenListCursor(tokens), errorReporter);
+    }
+
+    /**
+     * Constructor sobre cualquier recorrido de tokens, por ejemplo TokenBuffer.cursor().
+     */
+    public VBScriptParser(TokenCursor tokens, ErrorReporter errorReporter) {
         this.tokens = tokens;
         this.errorReporter = errorReporter;
     }
 
+    /**
+     * Constructor para el modo streaming: los tokens se entregan uno a uno con accept().
+     */
+    public VBScriptParser(ErrorReporter errorReporter) {
+        this(Collections.emptyList(), errorReporter);
+    }
+
+    /**
+     * setRules() - Reglas de formato que se aplican a los tokens (por defecto, todas las incluidas).
+     */
+    public void setRules(RuleRegistry rules) {
+        this.rules = rules;
+    }
+
     /**
      * parse() - Realiza el análisis del VBScript, identificando errores y llevando el conteo de ciertos elementos.
      */
     public void parse() {
+        while (tokens.next()) {
+            accept(tokens);
+        }
+        finish();
+    }
 
+    /**
+     * accept() - Procesa un único token. Combina las comprobaciones de estructura de módulo
+     * y el emparejamiento de bloques, de modo que basta una sola pasada sobre los tokens.
+     */
+    public void accept(Token token) {
+        single.set(token);
+        accept(single);
+    }
 
-        validateModuleStructure();
+    /**
+     * accept() - Procesa el token actual del cursor, sin avanzarlo.
+     */
+    public void accept(TokenCursor token) {
+        validateModuleStructure(token);
+        applyRules(token);
+        if (chunk == null && rules.checksSymbols()) {
+            // En un tramo aislado faltan las declaraciones anteriores: ParallelParser las comprueba aparte
+            symbols.accept(token, errorReporter);
+        }
 
-        for (Token token : tokens) {
-            switch (token.getType()) {
-                case COMMENT:
-                    stats.commentCount++;
-                    break;
-                case DIM_STATEMENT:
-                if (stats.moduleProgramCount < 1) {
-                    errorReporter.report(token.getLineNumber(), "Declaración DIM encontrada antes de 'Module Program'.");
+        switch (token.getType()) {
+            case COMMENT:
+                stats.commentCount++;
+                break;
+            case DIM_STATEMENT:
+                stats.dimStatementCount++;
+                break;
+            case MODULE_PROGRAM:
+                stats.moduleProgramCount++;
+                break;
+            case END_MODULE:
+                stats.endModuleCount++;
+                break;
+            case IMPORT:
+                stats.importCount++;
+                break;
+            case SUB_MAIN:
+                stats.subMainCount++;
+                subMainStack.push(token.getType(), token.getLineNumber(), token.getCharPosition());
+                break;
+            case END_SUB:
+                stats.endSubCount++;
+                if (subMainStack.isEmpty()) {
+                    unmatched(token, ErrorCode.END_SUB_WITHOUT_SUB_MAIN, subMainStack);
+                } else {
+                    subMainStack.pop();
+                }
+                break;
+            case TRY:
+                stats.tryCount++;
+                tryCatchStack.push(token.getType(), token.getLineNumber(), token.getCharPosition());
+                break;
+            case CATCH_EXCEPTION:
+                stats.catchCount++;
+                if (tryCatchStack.isEmpty() || tryCatchStack.peekType() != Token.Type.TRY) {
+                    unmatched(token, ErrorCode.CATCH_WITHOUT_TRY, tryCatchStack);
+                } else {
+                    // Correctamente encontramos un TRY para este CATCH
+                    tryCatchStack.pop(); // Eliminamos el TRY ya que encontramos su CATCH correspondiente
+                    tryCatchStack.push(token.getType(), token.getLineNumber(), token.getCharPosition()); // Ahora el CATCH está en la cima de la pila
                 }
-                    validateDimStatement(token);
-                    stats.dimStatementCount++;
-                    break;
-                case MODULE_PROGRAM:
-                    stats.moduleProgramCount++;
-                    break;
-                case END_MODULE:
-                    stats.endModuleCount++;
-                    break;
-                case IMPORT:
-                    stats.importCount++;
-                    if (stats.moduleProgramCount > 0) {
-                        errorReporter.report(token.getLineNumber(), "'Imports' debe ser declarado antes de Module Program.");
-                    }
-                    break;
-                case SUB_MAIN:
-                    stats.subMainCount++;
-                    validateSubMain(token);
-                    subMainStack.push(token);
-                    break;
-                case END_SUB:
-                    stats.endSubCount++;
-                    if (subMainStack.isEmpty()) {
-                        errorReporter.report(token.getLineNumber(), "END SUB sin un SUB MAIN correspondiente.");
-                    } else {
-                        subMainStack.pop();
-                    }
-                    break;
-                case TRY:
-                    stats.tryCount++;
-                    tryCatchStack.push(token);
-                    break;
-                case CATCH_EXCEPTION:
-                    stats.catchCount++;
-                    validateCatchStatement(token);
-                    if (tryCatchStack.isEmpty() || tryCatchStack.peek().getType() != Token.Type.TRY) {
-                        errorReporter.report(token.getLineNumber(), "CATCH sin un TRY previo.");
-                    } else {
-                        // Correctamente encontramos un TRY para este CATCH
-                        tryCatchStack.pop(); // Eliminamos el TRY ya que encontramos su CATCH correspondiente
-                        tryCatchStack.push(token); // Ahora el CATCH está en la cima de la pila
-                    }
-                    break;
-                case END_TRY:
-                    stats.endTryCount++;
-                    if (tryCatchStack.isEmpty() || tryCatchStack.peek().getType() != Token.Type.CATCH_EXCEPTION) {
-                        errorReporter.report(token.getLineNumber(), "END TRY sin TRY o CATCH.");
-                    } else {
-                        // Correctamente encontramos un CATCH para este END TRY
-                        tryCatchStack.pop(); // Eliminamos el CATCH ya que encontramos su END TRY correspondiente
-                    }
-                    break;
-                case WHILE:
-                    stats.whileCount++;
-                    whileStack.push(token);
-                    break;
-                case END_WHILE:
-                    stats.endWhileCount++;
-                    if (whileStack.isEmpty()) {
-                        errorReporter.report(token.getLineNumber(), "END WHILE sin un WHILE correspondiente.");
-                    } else {
-                        whileStack.pop();
-                    }
-                    break;
-                // Otros casos y validaciones específicas aquí
-                default:
-                    break;
+                break;
+            case END_TRY:
+                stats.endTryCount++;
+                if (tryCatchStack.isEmpty() || tryCatchStack.peekType() != Token.Type.CATCH_EXCEPTION) {
+                    unmatched(token, ErrorCode.END_TRY_WITHOUT_TRY_CATCH, tryCatchStack);
+                } else {
+                    // Correctamente encontramos un CATCH para este END TRY
+                    tryCatchStack.pop(); // Eliminamos el CATCH ya que encontramos su END TRY correspondiente
+                }
+                break;
+            case WHILE:
+                stats.whileCount++;
+                whileStack.push(token.getType(), token.getLineNumber(), token.getCharPosition());
+                break;
+            case END_WHILE:
+                stats.endWhileCount++;
+                if (whileStack.isEmpty()) {
+                    unmatched(token, ErrorCode.END_WHILE_WITHOUT_WHILE, whileStack);
+                } else {
+                    whileStack.pop();
+                }
+                break;
+            // Otros casos y validaciones específicas aquí
+            default:
+                break;
+        }
+    }
+
+    /**
+     * finish() - Se invoca tras el último token para reportar las estructuras sin cerrar.
+     */
+    public void finish() {
+        if (chunk != null) {
+            // Tramo aislado: los bloques abiertos pasan al resumen y se resuelven al combinar tramos
+            chunk.setOpen(subMainStack, tryCatchStack, whileStack);
+        } else {
+            openStructuresValidation();
+        }
+    }
+
+    /**
+     * beginChunk() - Prepara el parser para analizar un tramo aislado del archivo (ParallelParser).
+     * Los indicadores de módulo son los que dejan los tramos anteriores, y los cierres que
+     * encuentran vacía la pila del tramo se anotan en summary en lugar de reportarse.
+     */
+    void beginChunk(boolean moduleStartFound, boolean moduleEndFound, StructureSummary summary) {
+        this.moduleStartFound = moduleStartFound;
+        this.moduleEndFound = moduleEndFound;
+        this.chunk = summary;
+    }
+
+    // Cierre sin su apertura. En un tramo aislado, con la pila vacía el resultado depende de los
+    // bloques que dejen abiertos los tramos anteriores
+    private void unmatched(TokenCursor token, ErrorCode code, BlockStack stack) {
+        if (chunk != null && stack.isEmpty()) {
+            chunk.addCloser(code, token);
+        } else {
+            errorReporter.report(token, code);
+        }
+    }
+
+    /**
+     * Estado del parser entre dos tokens: indicadores de módulo, bloques abiertos, variables
+     * declaradas y contadores.
+     * Permite reanudar el análisis desde un punto intermedio (IncrementalValidator).
+     */
+    public static final class State {
+        private final boolean moduleStartFound;
+        private final boolean moduleEndFound;
+        private final BlockStack subMainStack;
+        private final BlockStack tryCatchStack;
+        private final BlockStack whileStack;
+        // Las declaraciones se comparten con el parser, no se copian
+        private final SymbolTable.Symbol lastSymbol;
+        private final int symbolDepth;
+        private final long[] stats;
+
+        private State(VBScriptParser parser) {
+            moduleStartFound = parser.moduleStartFound;
+            moduleEndFound = parser.moduleEndFound;
+            subMainStack = parser.subMainStack.copy();
+            tryCatchStack = parser.tryCatchStack.copy();
+            whileStack = parser.whileStack.copy();
+            lastSymbol = parser.symbols.last();
+            symbolDepth = parser.symbols.depth();
+            stats = parser.stats.toArray();
+        }
+
+        // Mismos indicadores, bloques abiertos y variables: a partir de aquí los diagnósticos coinciden.
+        // Los contadores no intervienen en ninguna regla.
+        public boolean sameStructure(State other) {
+            return moduleStartFound == other.moduleStartFound && moduleEndFound == other.moduleEndFound
+                && subMainStack.sameAs(other.subMainStack) && tryCatchStack.sameAs(other.tryCatchStack)
+                && whileStack.sameAs(other.whileStack) && symbolDepth == other.symbolDepth
+                && SymbolTable.sameSymbols(lastSymbol, other.lastSymbol);
+        }
+
+        public void shiftLines(int fromLine, int delta) {
+            subMainStack.shiftLines(fromLine, delta);
+            tryCatchStack.shiftLines(fromLine, delta);
+            whileStack.shiftLines(fromLine, delta);
+        }
+
+        // Diferencia de contadores respecto a otro estado (this - other)
+        public long[] statsMinus(State other) {
+            long[] delta = new long[stats.length];
+            for (int i = 0; i < stats.length; i++) {
+                delta[i] = stats[i] - other.stats[i];
+            }
+            return delta;
+        }
+
+        public void addStats(long[] delta) {
+            for (int i = 0; i < stats.length; i++) {
+                stats[i] += delta[i];
             }
-            
         }
 
-        openStructuresValidation();
+        public ParserStatistics stats() {
+            return ParserStatistics.fromArray(stats);
+        }
+    }
+
+    public State saveState() {
+        return new State(this);
+    }
+
+    public void restoreState(State state) {
+        moduleStartFound = state.moduleStartFound;
+        moduleEndFound = state.moduleEndFound;
+        subMainStack = state.subMainStack.copy();
+        tryCatchStack = state.tryCatchStack.copy();
+        whileStack = state.whileStack.copy();
+        symbols.restore(state.lastSymbol, state.symbolDepth);
+        stats = ParserStatistics.fromArray(state.stats);
     }
 
     private void openStructuresValidation() {
         // Verificar si hay estructuras Sub Main sin cerrar
         if (!subMainStack.isEmpty()) {
-            Token unclosedToken = subMainStack.peek();
-            errorReporter.report(unclosedToken.getLineNumber(), "SUB MAIN sin cerrar.");
+            errorReporter.report(subMainStack.peekLine(), subMainStack.peekColumn(), ErrorCode.UNCLOSED_SUB_MAIN, 0);
         }
 
         // Verificar si hay estructuras TRY-CATCH sin cerrar
         if (!tryCatchStack.isEmpty()) {
-            Token unclosedToken = tryCatchStack.peek();
-            errorReporter.report(unclosedToken.getLineNumber(), "Estructura " + unclosedToken.getType() + " sin cerrar. Revise si existe End Try y Catch correspondientes.");
+            errorReporter.report(tryCatchStack.peekLine(), tryCatchStack.peekColumn(), ErrorCode.UNCLOSED_TRY_CATCH,
+                tryCatchStack.peekType().ordinal());
         }
 
         // Verificar si hay estructuras WHILE sin cerrar
         if (!whileStack.isEmpty()) {
-            Token unclosedToken = whileStack.peek();
-            errorReporter.report(unclosedToken.getLineNumber(), "Estructura " + unclosedToken.getType() + " sin cerrar.");
+            errorReporter.report(whileStack.peekLine(), whileStack.peekColumn(), ErrorCode.UNCLOSED_WHILE,
+                whileStack.peekType().ordinal());
         }
         
     }
 
 
-    private void validateModuleStructure() {
+    private void validateModuleStructure(TokenCursor token) {
+        // Las asignaciones solo son tokens para la tabla de símbolos: no cuentan como sentencias
+        // fuera del módulo (ni se comprueban con --disable-rules=symbols)
+        if (token.getType() == Token.Type.ASSIGNMENT) {
+            return;
+        }
+        if (moduleEndFound && token.getType() != Token.Type.COMMENT) {
+            errorReporter.report(token, ErrorCode.TOKEN_AFTER_END_MODULE);
+        }
 
-        boolean moduleStartFound = false;
-        boolean moduleEndFound = false;
-        
-        for (Token token : tokens) {
-            System.out.println("Revisando token: " + token.getType() + " - " + token.getText());
-            if (moduleEndFound && token.getType() != Token.Type.COMMENT) {
-                errorReporter.report(token.getLineNumber(), "Token invalido encontrado despues de 'End Module'. Solo comentarios son permitidos");
+        if (token.getType() == Token.Type.MODULE_PROGRAM) {
+            if (moduleStartFound) {
+                errorReporter.report(token, ErrorCode.DUPLICATE_MODULE_PROGRAM);
+            } else {
+                moduleStartFound = true;
             }
-            
-            
-            if (token.getType() == Token.Type.MODULE_PROGRAM) {
-                if (moduleStartFound) {
-    
-                    errorReporter.report(token.getLineNumber(), "'Module Program' duplicado.");
-                } else {
-                    moduleStartFound = true;
-                }
-            } 
-            if (token.getType() == Token.Type.END_MODULE) {
-                if (moduleEndFound) {
-            
-                    errorReporter.report(token.getLineNumber(), "'End Module' duplicado.");
-                } else {
-                    moduleEndFound = true;
-                }
-            } 
-            
-            if (!moduleStartFound && (token.getType() != Token.Type.IMPORT && token.getType() != Token.Type.COMMENT)) {
-                if (token.getType() == Token.Type.END_MODULE){
-                    errorReporter.report(token.getLineNumber(), "Declaración 'End Module' encontrada antes de 'Module Program'.");
-                } else {
-                    errorReporter.report(token.getLineNumber(), "Token invalido encontrado antes de 'Module Program'. Solo 'Imports' y comentarios son permitidos.");
-                }
-            }            
         }
-    }
-    private void validateSubMain(Token token) {
-        String text = token.getText().replaceAll("\\s+", "");
-        int balance = 0;
-        for (int i = 0; i < text.length(); i++) {
-            char c = text.charAt(i);
-            if (c == '(') balance++;
-            else if (c == ')') balance--;
-            if (balance < 0) break;
+        if (token.getType() == Token.Type.END_MODULE) {
+            if (moduleEndFound) {
+                errorReporter.report(token, ErrorCode.DUPLICATE_END_MODULE);
+            } else {
+                moduleEndFound = true;
+            }
         }
-        if (!text.startsWith("SubMain(") || balance != 0) {
-            errorReporter.report(token.getLineNumber(), "Formato incorrecto en SUB MAIN.");
+
+        if (!moduleStartFound && (token.getType() != Token.Type.IMPORT && token.getType() != Token.Type.COMMENT)) {
+            if (token.getType() == Token.Type.END_MODULE){
+                errorReporter.report(token, ErrorCode.END_MODULE_BEFORE_MODULE);
+            } else {
+                errorReporter.report(token, ErrorCode.TOKEN_BEFORE_MODULE);
+            }
         }
-    }
 
-    private void validateCatchStatement(Token token) {
-        String text = token.getText().trim();
-        // La expresión regular verifica que después de 'Catch' haya un identificador alfanumerico seguido de 'As Exception'
-        String catchPattern = "Catch\\s+[a-zA-Z]\\w*\\s+As\\s+Exception";
-    
-        if (!text.matches(catchPattern)) {
-            errorReporter.report(token.getLineNumber(), "Formato incorrecto en CATCH.");
+        // Equivale a stats.moduleProgramCount < 1: así los diagnósticos solo dependen de
+        // los indicadores de módulo y de las pilas (ver State)
+        if (token.getType() == Token.Type.DIM_STATEMENT && !moduleStartFound) {
+            errorReporter.report(token, ErrorCode.DIM_BEFORE_MODULE);
+        }
+        if (token.getType() == Token.Type.IMPORT && moduleStartFound) {
+            errorReporter.report(token, ErrorCode.IMPORTS_AFTER_MODULE);
         }
     }
 
-    private void validateDimStatement(Token token) {
-        String text = token.getText().trim();
-        //Dim [variableName] As [Type]'
-        // [variableName] empieza con una letra y puede contener números y letras adicionales.
-        String dimPattern = "Dim\\s+[a-zA-Z]\\w*\\s+As\\s+.*";
-    
-        if (!text.matches(dimPattern)) {
-            errorReporter.report(token.getLineNumber(), "Formato incorrecto en DIM.");
+    // Reglas de formato registradas para el tipo del token; el texto se lee sin copiarlo
+    private void applyRules(TokenCursor token) {
+        int type = token.getType().ordinal();
+        ValidationRule[] typeRules = rules.rulesFor(type);
+        for (int i = 0; i < typeRules.length; i++) {
+            Metrics.increment(rules.metricName(type, i));
+            if (!typeRules[i].isValid(token.getSource(), token.getTextStart(), token.getTextEnd())) {
+                errorReporter.report(token, typeRules[i].errorCode());
+            }
         }
     }
-    
-    
-}
\ No newline at end of file
+}
@@ -0,0 +1,315 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Escáner de VBScript escrito a mano.
+ *
+ * Recorre cada línea una sola vez: salta los espacios iniciales y decide el token según la
+ * primera palabra clave (Module/End/Imports/Sub/While/Try/Dim/Catch, sin distinguir mayúsculas).
+ * Una línea que no empieza por ninguna y es "identificador = ..." es una asignación.
+ * Produce exactamente los mismos tokens que VBScriptLexer, que se mantiene como implementación
+ * de referencia basada en expresiones regulares.
+ */
+public class VBScriptScanner implements Tokenizer {
+    // Resultado de scan() cuando la línea no contiene ningún token reconocido
+    public static final long NO_TOKEN = -1L;
+
+    private static final Token.Type[] TYPES = Token.Type.values();
+
+    private final List<String> lines;
+
+    public VBScriptScanner(List<String> lines) {
+        this.lines = lines;
+    }
+
+    // Tokeniza las líneas de entrada en una sola pasada lineal
+    @Override
+    public ArrayList<Token> tokenize() {
+        ArrayList<Token> tokens = new ArrayList<>();
+        int lineNumber = 1;
+        for (String line : lines) {
+            Token token = scanLine(line, lineNumber++);
+            if (token != null) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * tokenizeToBuffer() - Igual que tokenize(), pero guarda los tokens en un TokenBuffer
+     * sin crear objetos Token ni copiar su texto.
+     */
+    public TokenBuffer tokenizeToBuffer() {
+        TokenBuffer buffer = new TokenBuffer(lines, lines.size());
+        int lineNumber = 1;
+        for (String line : lines) {
+            long scanned = scan(line);
+            if (scanned != NO_TOKEN) {
+                buffer.add(typeOf(scanned), lineNumber, 0, endOf(scanned));
+            }
+            lineNumber++;
+        }
+        return buffer;
+    }
+
+    /**
+     * tokenize() - Tokeniza el contenido en bytes de un archivo sin decodificarlo: cada línea ASCII
+     * (o cualquier línea, con una codificación de un byte) se recorre a través de una única vista
+     * reutilizada sobre el array, y solo las líneas UTF-8 con caracteres no ASCII se decodifican.
+     * Produce los mismos tokens que tokenizeToBuffer() sobre source.decodeLines().
+     */
+    public static TokenBuffer tokenize(SourceText source) {
+        int count = source.lineCount();
+        TokenBuffer buffer = new TokenBuffer(source.lines(), count);
+        SourceText.Chars view = source.new Chars();
+        for (int i = 0; i < count; i++) {
+            long scanned = scan(source.line(i, view));
+            if (scanned != NO_TOKEN) {
+                buffer.add(typeOf(scanned), i + 1, 0, endOf(scanned));
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * scanLine() - Devuelve el token de la línea, o null si la línea no contiene ninguno.
+     * Todos los patrones del lexer están anclados al inicio de línea, así que cada línea
+     * produce como mucho un token y siempre empieza en la posición 0.
+     */
+    public static Token scanLine(String line, int lineNumber) {
+        long scanned = scan(line);
+        if (scanned == NO_TOKEN) {
+            return null;
+        }
+        return new Token(typeOf(scanned), line.substring(0, endOf(scanned)), lineNumber, 0);
+    }
+
+    // Tipo de token codificado en el resultado de scan()
+    public static Token.Type typeOf(long scanned) {
+        return TYPES[(int) (scanned & 0xFF)];
+    }
+
+    // Posición final (exclusiva) del texto del token codificado en el resultado de scan()
+    public static int endOf(long scanned) {
+        return (int) (scanned >>> 8);
+    }
+
+    /**
+     * scan() - Clasifica una línea sin reservar memoria.
+     * Devuelve NO_TOKEN o el tipo y la posición final del token empaquetados en un long.
+     */
+    public static long scan(CharSequence line) {
+        int length = line.length();
+        int i = 0;
+        while (i < length && isSpace(line.charAt(i))) {
+            i++;
+        }
+        if (i == length) {
+            return NO_TOKEN;
+        }
+
+        char c = line.charAt(i);
+        if (c == '\'') {
+            return pack(Token.Type.COMMENT, lineEnd(line, i + 1));
+        }
+        if (c == '"') {
+            // El literal de string solo se reconoce sin espacios previos
+            return i == 0 ? scanStringLiteral(line) : NO_TOKEN;
+        }
+
+        long keyword = scanKeyword(line, i, c);
+        return keyword != NO_TOKEN ? keyword : scanAssignment(line, i, c);
+    }
+
+    // Sentencia que empieza por una palabra clave, o NO_TOKEN
+    private static long scanKeyword(CharSequence line, int i, char c) {
+        int length = line.length();
+        switch (toLower(c)) {
+            case 'm': {
+                int p = keyword(line, i, "module");
+                if (p < 0 || (p = spaces(line, p)) < 0 || (p = keyword(line, p, "program")) < 0) {
+                    return NO_TOKEN;
+                }
+                // 'Module\s+Program\s*\b': los espacios finales solo forman parte del token
+                // si les sigue un carácter de palabra
+                int k = p;
+                while (k < length && isSpace(line.charAt(k))) {
+                    k++;
+                }
+                if (k > p && k < length && isWordChar(line, k)) {
+                    return pack(Token.Type.MODULE_PROGRAM, k);
+                }
+                return atWordEnd(line, p) ? pack(Token.Type.MODULE_PROGRAM, p) : NO_TOKEN;
+            }
+            case 'e': {
+                int p = keyword(line, i, "end");
+                if (p < 0 || (p = spaces(line, p)) < 0) {
+                    return NO_TOKEN;
+                }
+                int end;
+                switch (toLower(line.charAt(p))) {
+                    case 'm':
+                        end = keyword(line, p, "module");
+                        return end >= 0 && atWordEnd(line, end) ? pack(Token.Type.END_MODULE, end) : NO_TOKEN;
+                    case 's':
+                        end = keyword(line, p, "sub");
+                        return end >= 0 && atWordEnd(line, end) ? pack(Token.Type.END_SUB, end) : NO_TOKEN;
+                    case 'w':
+                        end = keyword(line, p, "while");
+                        return end >= 0 && atWordEnd(line, end) ? pack(Token.Type.END_WHILE, end) : NO_TOKEN;
+                    case 't':
+                        end = keyword(line, p, "try");
+                        return end >= 0 && atWordEnd(line, end) ? pack(Token.Type.END_TRY, end) : NO_TOKEN;
+                    default:
+                        return NO_TOKEN;
+                }
+            }
+            case 'i': {
+                int p = keyword(line, i, "imports");
+                if (p < 0 || (p = spaces(line, p)) < 0 || !isAsciiWord(line.charAt(p))) {
+                    return NO_TOKEN;
+                }
+                return pack(Token.Type.IMPORT, lineEnd(line, p + 1));
+            }
+            case 's': {
+                int p = keyword(line, i, "sub");
+                if (p < 0 || (p = spaces(line, p)) < 0 || (p = keyword(line, p, "main")) < 0) {
+                    return NO_TOKEN;
+                }
+                return pack(Token.Type.SUB_MAIN, lineEnd(line, p));
+            }
+            case 'w': {
+                int p = keyword(line, i, "while");
+                return p >= 0 && atWordEnd(line, p) ? pack(Token.Type.WHILE, p) : NO_TOKEN;
+            }
+            case 't': {
+                int p = keyword(line, i, "try");
+                return p >= 0 && atWordEnd(line, p) ? pack(Token.Type.TRY, p) : NO_TOKEN;
+            }
+            case 'd': {
+                int p = keyword(line, i, "dim");
+                return p >= 0 ? pack(Token.Type.DIM_STATEMENT, lineEnd(line, p)) : NO_TOKEN;
+            }
+            case 'c': {
+                int p = keyword(line, i, "catch");
+                return p >= 0 ? pack(Token.Type.CATCH_EXCEPTION, lineEnd(line, p)) : NO_TOKEN;
+            }
+            default:
+                return NO_TOKEN;
+        }
+    }
+
+    // '[\p{L}_][\p{L}\p{Nd}_]*\s*=.*'; las líneas que empiezan por Dim, Catch, While o Try ya son de scanKeyword()
+    private static long scanAssignment(CharSequence line, int i, char c) {
+        if (!isIdentifierStart(c)) {
+            return NO_TOKEN;
+        }
+        int length = line.length();
+        int p = i + 1;
+        while (p < length && isIdentifierPart(line.charAt(p))) {
+            p++;
+        }
+        while (p < length && isSpace(line.charAt(p))) {
+            p++;
+        }
+        return p < length && line.charAt(p) == '=' ? pack(Token.Type.ASSIGNMENT, lineEnd(line, p + 1)) : NO_TOKEN;
+    }
+
+    private static long pack(Token.Type type, int end) {
+        return ((long) end << 8) | type.ordinal();
+    }
+
+    // '^"(?:[^"\\]|\\.)*"'
+    private static long scanStringLiteral(CharSequence line) {
+        int length = line.length();
+        int i = 1;
+        while (i < length) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                return pack(Token.Type.STRING_LITERAL, i + 1);
+            }
+            if (c == '\\') {
+                if (i + 1 >= length || isLineTerminator(line.charAt(i + 1))) {
+                    return NO_TOKEN;
+                }
+                i += 2;
+            } else {
+                i++;
+            }
+        }
+        return NO_TOKEN;
+    }
+
+    // Compara una palabra clave en minúsculas sin distinguir mayúsculas (solo ASCII, como CASE_INSENSITIVE)
+    private static int keyword(CharSequence line, int from, String keyword) {
+        int end = from + keyword.length();
+        if (end > line.length()) {
+            return -1;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            if (toLower(line.charAt(from + i)) != keyword.charAt(i)) {
+                return -1;
+            }
+        }
+        return end;
+    }
+
+    // '\s+': devuelve la posición tras los espacios, o -1 si no hay ninguno o se acaba la línea
+    private static int spaces(CharSequence line, int from) {
+        int i = from;
+        while (i < line.length() && isSpace(line.charAt(i))) {
+            i++;
+        }
+        return i > from && i < line.length() ? i : -1;
+    }
+
+    // '.*': avanza hasta el primer terminador de línea
+    private static int lineEnd(CharSequence line, int from) {
+        int i = from;
+        while (i < line.length() && !isLineTerminator(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    // '\b' tras una palabra clave: fin de línea o carácter que no es de palabra
+    private static boolean atWordEnd(CharSequence line, int pos) {
+        return pos >= line.length() || !isWordChar(line, pos);
+    }
+
+    // Misma definición de carácter de palabra que usa '\b' en java.util.regex
+    private static boolean isWordChar(CharSequence line, int pos) {
+        int cp = Character.codePointAt(line, pos);
+        return cp == '_' || Character.isLetterOrDigit(cp) || Character.getType(cp) == Character.NON_SPACING_MARK;
+    }
+
+    // Identificador: una letra o '_' seguida de letras, dígitos o '_' ('[\p{L}_][\p{L}\p{Nd}_]*').
+    // La misma definición para las asignaciones del escáner y del lexer de expresiones regulares
+    // y para los nombres de SymbolTable
+    static boolean isIdentifierStart(char c) {
+        return Character.isLetter(c) || c == '_';
+    }
+
+    static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    // '\w' sin UNICODE_CHARACTER_CLASS
+    private static boolean isAsciiWord(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    // '\s' sin UNICODE_CHARACTER_CLASS
+    static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static char toLower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+}
@@ -0,0 +1,289 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Demonio de validación residente.
+ *
+ * Escucha en la interfaz de loopback y valida lotes de archivos o de código enviado en línea
+ * con un mismo FileValidator y un ForkJoinPool que se mantienen entre peticiones, de modo que
+ * cada validación evita el arranque de la JVM y se ejecuta con el código ya compilado por el JIT.
+ *
+ * Cualquier usuario de la máquina puede conectarse a la interfaz de loopback, así que cada
+ * conexión empieza con AUTH y el testigo aleatorio que el demonio guarda al arrancar en
+ * ~/.errorhunter/daemon-<puerto>.token, en un directorio que solo puede leer su propietario.
+ * Sin él no se atiende ninguna orden: ni se leen ni se escriben archivos en nombre de otro usuario.
+ *
+ * Protocolo de texto UTF-8, una orden por línea:
+ *
+ *   AUTH <testigo>                primera orden de cada conexión; responde OK o cierra la conexión
+ *   FILE <ruta absoluta>          añade un archivo al lote (se escribe su informe, como en local)
+ *   SOURCE <líneas> <nombre>      añade código en línea; le siguen exactamente <líneas> líneas
+ *   RUN                           valida el lote y responde, en el orden de la petición:
+ *                                   RESULT <OK|ERRORS|FAILED> <bytes> <ruta o nombre>
+ *                                   DIAG <línea> <columna> <mensaje>     (uno por diagnóstico)
+ *                                   FAILURE <mensaje>                    (si no pudo validarse)
+ *                                 y termina con DONE <hilos del demonio>
+ *   PING                          responde PONG
+ *   SHUTDOWN                      responde BYE y detiene el demonio
+ *
+ * Una conexión puede enviar varios lotes seguidos.
+ */
+public class ValidationDaemon {
+    public static final int DEFAULT_PORT = 47190;
+    // Tiempo máximo para recibir AUTH en una conexión nueva
+    private static final int AUTH_TIMEOUT_MILLIS = 5000;
+
+    private final int port;
+    private final FileValidator fileValidator;
+    private final ResultCache cache;
+    private final ForkJoinPool pool;
+    private volatile boolean running = true;
+    private ServerSocket server;
+    private byte[] token;
+
+    public ValidationDaemon(Options options, FileValidator fileValidator, ResultCache cache) {
+        this.port = options.port;
+        this.fileValidator = fileValidator;
+        this.cache = cache;
+        this.pool = new ForkJoinPool(options.effectiveThreads());
+    }
+
+    /**
+     * run() - Atiende conexiones hasta recibir SHUTDOWN.
+     */
+    public void run() throws IOException {
+        ExecutorService connections = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "errorhunter-daemon-connection");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            server = serverSocket;
+            token = createToken(port);
+            System.out.println("Demonio de validación escuchando en " + InetAddress.getLoopbackAddress().getHostAddress() + ":" + port);
+            while (running) {
+                Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (SocketException e) {
+                    if (!running) {
+                        break;
+                    }
+                    throw e;
+                }
+                connections.execute(() -> serve(socket));
+            }
+        } finally {
+            connections.shutdown();
+            pool.shutdown();
+            if (token != null) {
+                Files.deleteIfExists(tokenFile(port));
+            }
+        }
+        System.out.println("Demonio de validación detenido.");
+    }
+
+    private void serve(Socket socket) {
+        try (Socket connection = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8))) {
+            if (!authenticate(connection, in)) {
+                System.err.println("Conexión rechazada: sin el testigo del demonio");
+                return;
+            }
+            writeLine(out, "OK");
+            out.flush();
+            List<Request> batch = new ArrayList<>();
+            String command;
+            while ((command = in.readLine()) != null) {
+                if (command.startsWith("FILE ")) {
+                    batch.add(new Request(command.substring("FILE ".length()), null));
+                } else if (command.startsWith("SOURCE ")) {
+                    String[] parts = command.split(" ", 3);
+                    int count = Integer.parseInt(parts[1]);
+                    List<String> lines = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        String line = in.readLine();
+                        if (line == null) {
+                            return;
+                        }
+                        lines.add(line);
+                    }
+                    batch.add(new Request(parts.length > 2 ? parts[2] : "-", lines));
+                } else if (command.equals("RUN")) {
+                    runBatch(batch, out);
+                    batch.clear();
+                } else if (command.equals("PING")) {
+                    writeLine(out, "PONG");
+                } else if (command.equals("SHUTDOWN")) {
+                    writeLine(out, "BYE");
+                    out.flush();
+                    shutdown();
+                    return;
+                } else {
+                    writeLine(out, "FAILURE Orden desconocida: " + command);
+                    writeLine(out, "DONE");
+                }
+                out.flush();
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error en la conexión con el cliente: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Primera línea de la conexión: AUTH con el testigo del demonio
+    private boolean authenticate(Socket connection, BufferedReader in) throws IOException {
+        connection.setSoTimeout(AUTH_TIMEOUT_MILLIS);
+        String command = in.readLine();
+        connection.setSoTimeout(0);
+        if (command == null || !command.startsWith("AUTH ")) {
+            return false;
+        }
+        // Comparación en tiempo constante
+        return MessageDigest.isEqual(token, command.substring("AUTH ".length()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * tokenFile() - Archivo con el testigo del demonio del puerto, solo legible por su propietario.
+     */
+    public static Path tokenFile(int port) {
+        return Paths.get(System.getProperty("user.home"), ".errorhunter", "daemon-" + port + ".token");
+    }
+
+    /**
+     * readToken() - Testigo del demonio del puerto, o null si este usuario no tiene ninguno en marcha.
+     */
+    public static String readToken(int port) throws IOException {
+        try {
+            return new String(Files.readAllBytes(tokenFile(port)), StandardCharsets.US_ASCII).trim();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    // Genera un testigo nuevo y lo publica en tokenFile() con un movimiento atómico
+    private static byte[] createToken(int port) throws IOException {
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        StringBuilder hex = new StringBuilder(random.length * 2);
+        for (byte b : random) {
+            hex.append(String.format("%02x", b));
+        }
+        byte[] token = hex.toString().getBytes(StandardCharsets.US_ASCII);
+
+        Path file = tokenFile(port);
+        Path directory = file.getParent();
+        boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        if (posix) {
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            // Un directorio que ya existía puede tener otros permisos
+            Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwx------"));
+        } else {
+            // Sin permisos POSIX (Windows) el directorio del usuario ya es privado
+            Files.createDirectories(directory);
+        }
+        FileAttribute<?>[] ownerOnly = posix
+            ? new FileAttribute<?>[] {PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"))}
+            : new FileAttribute<?>[0];
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp", ownerOnly);
+        try {
+            Files.write(temp, token);
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return token;
+    }
+
+    private void runBatch(List<Request> batch, BufferedWriter out) throws IOException, InterruptedException {
+        List<Callable<ValidationResult>> tasks = new ArrayList<>();
+        for (Request request : batch) {
+            if (request.lines == null) {
+                tasks.add(() -> fileValidator.validate(request.name));
+            } else {
+                tasks.add(() -> {
+                    DiagnosticStore diagnostics = fileValidator.validateSource(request.name, request.lines);
+                    return new ValidationResult(request.name, !diagnostics.isEmpty(), 0, diagnostics);
+                });
+            }
+        }
+
+        List<Future<ValidationResult>> futures = pool.invokeAll(tasks);
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                ValidationResult result = futures.get(i).get();
+                writeLine(out, "RESULT " + (result.hasErrors() ? "ERRORS" : "OK") + " " + result.getBytes() + " " + result.getPath());
+                DiagnosticStore diagnostics = result.getDiagnostics();
+                if (diagnostics != null) {
+                    for (int d = 0; d < diagnostics.size(); d++) {
+                        writeLine(out, "DIAG " + diagnostics.line(d) + " " + diagnostics.column(d) + " " + diagnostics.message(d));
+                    }
+                }
+            } catch (ExecutionException e) {
+                writeLine(out, "RESULT FAILED 0 " + batch.get(i).name);
+                writeLine(out, "FAILURE " + BatchValidator.failureMessage(e));
+            }
+        }
+        writeLine(out, "DONE " + pool.getParallelism());
+
+        if (cache != null) {
+            cache.evict();
+        }
+    }
+
+    private void shutdown() throws IOException {
+        running = false;
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    private static void writeLine(BufferedWriter out, String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+    }
+
+    // Elemento de un lote: un archivo (lines == null) o código en línea
+    private static class Request {
+        final String name;
+        final List<String> lines;
+
+        Request(String name, List<String> lines) {
+            this.name = name;
+            this.lines = lines;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * Resultado de validar un único archivo.
+ */
+public class ValidationResult {
+    private final String path;
+    private final boolean errorsFound;
+    private final long bytes;
+    // Diagnósticos por línea (null en modo streaming, que no los conserva)
+    private final DiagnosticStore diagnostics;
+    // Contadores, errores, tokens, profundidad de anidamiento máxima y duración de la validación
+    // (null y 0 en los resultados recibidos del demonio)
+    private final ParserStatistics stats;
+    private final int errorCount;
+    private final int tokens;
+    private final int maxNestingDepth;
+    private final long nanos;
+
+    public ValidationResult(String path, boolean errorsFound, long bytes, DiagnosticStore diagnostics) {
+        this(path, errorsFound, bytes, diagnostics, null, diagnostics != null ? diagnostics.size() : 0, 0, 0, 0);
+    }
+
+    public ValidationResult(String path, boolean errorsFound, long bytes, DiagnosticStore diagnostics,
+                            ParserStatistics stats, int errorCount, int tokens, int maxNestingDepth, long nanos) {
+        this.path = path;
+        this.errorsFound = errorsFound;
+        this.bytes = bytes;
+        this.diagnostics = diagnostics;
+        this.stats = stats;
+        this.errorCount = errorCount;
+        this.tokens = tokens;
+        this.maxNestingDepth = maxNestingDepth;
+        this.nanos = nanos;
+    }
+
+    // Getters
+    public String getPath() { return path; }
+    public boolean hasErrors() { return errorsFound; }
+    public long getBytes() { return bytes; }
+    public DiagnosticStore getDiagnostics() { return diagnostics; }
+    public ParserStatistics getStats() { return stats; }
+    public int getErrorCount() { return errorCount; }
+    public int getTokens() { return tokens; }
+    public int getMaxNestingDepth() { return maxNestingDepth; }
+    public long getNanos() { return nanos; }
+}
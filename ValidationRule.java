@@ -0,0 +1,19 @@
+/**
+ * Regla de formato que se aplica a cada token de un tipo (RuleRegistry).
+ *
+ * Las reglas se comparten entre hilos y no deben reservar memoria por token: reciben el texto
+ * como una región de su línea de origen, sin copiarlo.
+ */
+public interface ValidationRule {
+    // Nombre con el que se activa o desactiva la regla
+    String name();
+
+    // Tipo de token al que se aplica
+    Token.Type tokenType();
+
+    // Error que se reporta cuando el token no cumple la regla
+    ErrorCode errorCode();
+
+    // true si el texto del token, la región [start, end) de source, cumple la regla
+    boolean isValid(CharSequence source, int start, int end);
+}
@@ -0,0 +1,114 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+/**
+ * Cargas de trabajo de los benchmarks.
+ *
+ * JMH no admite benchmarks en el paquete por defecto y desde un paquete con nombre no se pueden
+ * referenciar las clases del validador, así que los benchmarks (paquete errorhunter.bench)
+ * obtienen aquí, por reflexión y una sola vez, la operación a medir.
+ */
+public class BenchmarkWorkloads {
+
+    public static Callable<Object> scannerTokenize(List<String> lines) {
+        return () -> new VBScriptScanner(lines).tokenize();
+    }
+
+    public static Callable<Object> scannerTokenizeToBuffer(List<String> lines) {
+        return () -> new VBScriptScanner(lines).tokenizeToBuffer();
+    }
+
+    // Lectura anterior: decodificar todo el contenido a una List<String> y tokenizar las líneas
+    public static Callable<Object> decodeAndTokenize(List<String> lines) {
+        byte[] content = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        return () -> {
+            List<String> decoded = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8.newDecoder()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    decoded.add(line);
+                }
+            }
+            return new VBScriptScanner(decoded).tokenizeToBuffer();
+        };
+    }
+
+    // Detección de codificación e índice de líneas sobre los bytes, y escáner sobre los bytes
+    public static Callable<Object> tokenizeBytes(List<String> lines) {
+        byte[] content = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        return () -> VBScriptScanner.tokenize(SourceText.decode(content, SourceText.AUTO));
+    }
+
+    public static Callable<Object> regexTokenize(List<String> lines) {
+        return () -> new VBScriptLexer(lines).tokenize();
+    }
+
+    public static Callable<Object> parse(List<String> lines) {
+        ArrayList<Token> tokens = new VBScriptScanner(lines).tokenize();
+        return () -> {
+            // parse() solo acumula errores en memoria, no escribe el informe
+            VBScriptParser parser = new VBScriptParser(tokens, new ErrorReporter("bench"));
+            parser.parse();
+            return parser.stats;
+        };
+    }
+
+    // parse() recorriendo un TokenBuffer en lugar de una List<Token>
+    public static Callable<Object> parseBuffer(List<String> lines) {
+        TokenBuffer tokens = new VBScriptScanner(lines).tokenizeToBuffer();
+        return () -> {
+            VBScriptParser parser = new VBScriptParser(tokens.cursor(), new ErrorReporter("bench"));
+            parser.parse();
+            return parser.stats;
+        };
+    }
+
+    // ParallelParser sobre el mismo TokenBuffer, en tramos de 4096 tokens
+    public static Callable<Object> parseParallel(List<String> lines) {
+        TokenBuffer tokens = new VBScriptScanner(lines).tokenizeToBuffer();
+        return () -> ParallelParser.parse(tokens, new ErrorReporter("bench"), 4096);
+    }
+
+    // Edición de una línea (se sustituye por sí misma con un espacio final) con IncrementalValidator
+    public static Callable<Object> incrementalEdit(List<String> lines) {
+        IncrementalValidator validator = new IncrementalValidator(lines);
+        Random random = new Random(42);
+        return () -> {
+            int line = 1 + random.nextInt(lines.size());
+            validator.edit(line, 1, List.of(lines.get(line - 1) + " "));
+            return validator.lastReparsedLines();
+        };
+    }
+
+    // Escribe el listado anotado en <directory>/bench-Errores.txt (el archivo se añade, no se trunca)
+    public static Callable<Object> writeErrorsToFile(List<String> lines, Path directory) {
+        ErrorReporter errorReporter = new ErrorReporter(directory.resolve("bench").toString());
+        new VBScriptParser(new VBScriptScanner(lines).tokenize(), errorReporter).parse();
+        return () -> {
+            errorReporter.writeErrorsToFile(lines);
+            return errorReporter;
+        };
+    }
+
+    // Informe completo con ReportWriter (una sola apertura) en <directory>/bench-Errores.txt
+    public static Callable<Object> writeReport(List<String> lines, Path directory) throws IOException {
+        Path source = directory.resolve("bench.vb");
+        Files.write(source, lines, StandardCharsets.UTF_8);
+        SourceText content = SourceText.decode(Files.readAllBytes(source), SourceText.AUTO);
+        ErrorReporter errorReporter = new ErrorReporter(directory.resolve("bench").toString());
+        VBScriptParser parser = new VBScriptParser(new VBScriptScanner(lines).tokenize(), errorReporter);
+        parser.parse();
+        ReportWriter writer = new ReportWriter(directory.resolve("bench").toString(), true);
+        return () -> writer.write(source.toString(), content, parser.stats, errorReporter.getDiagnostics());
+    }
+}
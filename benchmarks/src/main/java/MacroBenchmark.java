@@ -0,0 +1,349 @@
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark de extremo a extremo: valida un corpus completo con FileValidator (lectura, escáner,
+ * parser e informe -Errores.txt de cada archivo), en paralelo como BatchValidator.
+ *
+ * El corpus se genera con SyntheticCorpus en un directorio temporal (o se usa uno existente con
+ * --corpus=DIR). Tras las iteraciones de calentamiento, mide archivos/s, líneas/s y MB/s, la
+ * latencia por archivo (p50, p90, p99 y máximo, exactos), la memoria residente máxima del
+ * proceso (VmHWM de /proc/self/status, que se reinicia antes de medir; -1 fuera de Linux), el
+ * máximo del heap y las recolecciones de basura. El resultado se guarda en JSON con una clave por
+ * línea y siempre en el mismo orden, para comparar dos versiones con diff o con --compare, que
+ * muestra la variación de cada métrica. El número de diagnósticos forma parte del resultado: si
+ * cambia entre dos versiones, no validaron lo mismo.
+ * Las opciones que no son del benchmark ni del generador se pasan al validador (--lexer=regex,
+ * --no-line-numbers, --threads=N...).
+ * Uso: java MacroBenchmark [opciones de SyntheticCorpus] [--corpus=DIR] [--warmup=N]
+ *      [--iterations=N] [--result=archivo.json] [--compare=anterior.json] [--keep] [opciones del validador]
+ */
+public class MacroBenchmark {
+    // Métricas del resultado que se comparan con --compare, y si un valor mayor es mejor
+    private static final String[] METRICS = {
+        "filesPerSecond", "linesPerSecond", "megabytesPerSecond", "latencyP50Micros", "latencyP90Micros",
+        "latencyP99Micros", "latencyMaxMicros", "peakRssBytes", "peakHeapBytes", "gcCount", "gcMillis"
+    };
+    private static final boolean[] HIGHER_IS_BETTER = {
+        true, true, true, false, false, false, false, false, false, false, false
+    };
+
+    public static void main(String[] args) throws Exception {
+        SyntheticCorpus generator = new SyntheticCorpus();
+        Path corpusDir = null;
+        int warmup = 2;
+        int iterations = 5;
+        Path resultFile = Paths.get("target", "macro-result.json");
+        Path compareFile = null;
+        boolean keep = false;
+        List<String> validatorArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--corpus=")) {
+                corpusDir = Paths.get(arg.substring("--corpus=".length()));
+            } else if (arg.startsWith("--warmup=")) {
+                warmup = Integer.parseInt(arg.substring("--warmup=".length()));
+            } else if (arg.startsWith("--iterations=")) {
+                iterations = Integer.parseInt(arg.substring("--iterations=".length()));
+            } else if (arg.startsWith("--result=")) {
+                resultFile = Paths.get(arg.substring("--result=".length()));
+            } else if (arg.startsWith("--compare=")) {
+                compareFile = Paths.get(arg.substring("--compare=".length()));
+            } else if (arg.equals("--keep")) {
+                keep = true;
+            } else if (!generator.parseOption(arg)) {
+                validatorArgs.add(arg);
+            }
+        }
+        Options options = Options.parse(validatorArgs.toArray(new String[0]));
+        if (!options.inputs.isEmpty() || options.streaming || options.machineOutput() || options.daemon
+                || options.client || options.watch || options.lsp) {
+            System.err.println("Opciones del validador no admitidas en el benchmark: " + validatorArgs);
+            System.exit(2);
+        }
+
+        boolean generated = corpusDir == null;
+        Path directory = generated ? Files.createTempDirectory("errorhunter-macro") : corpusDir;
+        try {
+            List<String> files = new ArrayList<>();
+            if (generated) {
+                for (Path file : generator.write(directory)) {
+                    files.add(file.toString());
+                }
+                System.out.println(files.size() + " archivos generados en " + directory + " (semilla " + generator.seed + ")");
+            } else {
+                files = InputCollector.collect(List.of(directory.toString()));
+            }
+            Map<String, Object> result = run(options, files, warmup, iterations);
+
+            Map<String, Object> document = new LinkedHashMap<>();
+            document.put("benchmark", "macro");
+            document.put("rulesVersion", VBScriptParser.RULES_VERSION);
+            document.put("javaVersion", System.getProperty("java.version"));
+            document.put("osArch", System.getProperty("os.arch"));
+            document.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+            document.put("threads", options.effectiveThreads());
+            document.put("validatorArgs", String.join(" ", validatorArgs));
+            if (generated) {
+                document.put("seed", generator.seed);
+                document.put("corpusFiles", generator.files);
+                document.put("minLines", generator.minLines);
+                document.put("maxLines", generator.maxLines);
+                document.put("depth", generator.depth);
+                document.put("commentRatio", generator.commentRatio);
+                document.put("errorDensity", generator.errorDensity);
+                document.put("brokenRatio", generator.brokenRatio);
+            } else {
+                document.put("corpus", directory.toString());
+            }
+            document.put("warmupIterations", warmup);
+            document.put("iterations", iterations);
+            document.putAll(result);
+
+            String json = toJson(document);
+            Path parent = resultFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Files.write(resultFile, json.getBytes(StandardCharsets.UTF_8));
+            print(result);
+            System.out.println("Resultado guardado en " + resultFile);
+            if (compareFile != null) {
+                compare(compareFile, document);
+            }
+        } finally {
+            if (generated && !keep) {
+                delete(directory);
+            }
+        }
+    }
+
+    // Calentamiento y medida; devuelve las métricas en el orden en que se guardan
+    private static Map<String, Object> run(Options options, List<String> files, int warmup, int iterations) throws Exception {
+        long lines = 0;
+        long bytes = 0;
+        for (String file : files) {
+            byte[] content = Files.readAllBytes(ArchiveSources.resolve(file));
+            lines += LineIndex.of(content).count();
+            bytes += content.length;
+        }
+
+        ResultCache cache = options.cacheDir != null
+            ? new ResultCache(Paths.get(options.cacheDir), options.cacheMaxMb * 1024 * 1024) : null;
+        FileValidator validator = new FileValidator(options, cache);
+        ForkJoinPool pool = new ForkJoinPool(options.effectiveThreads());
+        try {
+            for (int i = 0; i < warmup; i++) {
+                validateAll(pool, validator, files);
+            }
+
+            resetPeakRss();
+            List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+            for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (memoryPool.getType() == MemoryType.HEAP) {
+                    memoryPool.resetPeakUsage();
+                    heapPools.add(memoryPool);
+                }
+            }
+            long gcCount = -gcCount();
+            long gcMillis = -gcMillis();
+
+            long[] latencies = new long[files.size() * iterations];
+            long wallNanos = 0;
+            List<ValidationResult> last = null;
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                last = validateAll(pool, validator, files);
+                wallNanos += System.nanoTime() - start;
+                for (int j = 0; j < last.size(); j++) {
+                    latencies[i * files.size() + j] = last.get(j).getNanos();
+                }
+            }
+            gcCount += gcCount();
+            gcMillis += gcMillis();
+            long peakHeap = 0;
+            for (MemoryPoolMXBean memoryPool : heapPools) {
+                peakHeap += memoryPool.getPeakUsage().getUsed();
+            }
+
+            long diagnostics = 0;
+            int filesWithErrors = 0;
+            for (ValidationResult result : last) {
+                diagnostics += result.getErrorCount();
+                if (result.hasErrors()) {
+                    filesWithErrors++;
+                }
+            }
+            Arrays.sort(latencies);
+            double seconds = wallNanos / 1e9;
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("files", files.size());
+            result.put("lines", lines);
+            result.put("bytes", bytes);
+            result.put("filesPerSecond", round((double) files.size() * iterations / seconds));
+            result.put("linesPerSecond", round((double) lines * iterations / seconds));
+            result.put("megabytesPerSecond", round(bytes * iterations / seconds / (1024 * 1024)));
+            result.put("latencyP50Micros", round(percentile(latencies, 0.50) / 1e3));
+            result.put("latencyP90Micros", round(percentile(latencies, 0.90) / 1e3));
+            result.put("latencyP99Micros", round(percentile(latencies, 0.99) / 1e3));
+            result.put("latencyMaxMicros", round(latencies[latencies.length - 1] / 1e3));
+            result.put("peakRssBytes", peakRss());
+            result.put("peakHeapBytes", peakHeap);
+            result.put("gcCount", gcCount);
+            result.put("gcMillis", gcMillis);
+            result.put("diagnostics", diagnostics);
+            result.put("filesWithErrors", filesWithErrors);
+            return result;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static List<ValidationResult> validateAll(ForkJoinPool pool, FileValidator validator, List<String> files)
+            throws InterruptedException, IOException {
+        List<Callable<ValidationResult>> tasks = new ArrayList<>();
+        for (String file : files) {
+            tasks.add(() -> validator.validate(file));
+        }
+        List<ValidationResult> results = new ArrayList<>(files.size());
+        for (Future<ValidationResult> future : pool.invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                throw new IOException("Fallo al validar el corpus: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+        return results;
+    }
+
+    // Percentil por rango más cercano sobre valores ordenados
+    static long percentile(long[] sorted, double q) {
+        int rank = (int) Math.ceil(q * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    // Reinicia VmHWM (Linux 4.0 o posterior); si no se puede, el máximo incluye el calentamiento
+    private static void resetPeakRss() {
+        try {
+            Files.write(Paths.get("/proc/self/clear_refs"), "5".getBytes(StandardCharsets.US_ASCII));
+        } catch (IOException | UnsupportedOperationException e) {
+            // Sin /proc o sin permiso
+        }
+    }
+
+    // Memoria residente máxima del proceso en bytes, o -1 si no está disponible
+    private static long peakRss() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.substring("VmHWM:".length()).replace("kB", "").trim()) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Fuera de Linux
+        }
+        return -1;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    // Un objeto JSON plano con una clave por línea, para que dos resultados se comparen con diff
+    static String toJson(Map<String, Object> document) {
+        StringBuilder json = new StringBuilder("{\n");
+        String separator = "";
+        for (Map.Entry<String, Object> entry : document.entrySet()) {
+            json.append(separator).append("  ").append(Metrics.quote(entry.getKey())).append(": ").append(Json.write(entry.getValue()));
+            separator = ",\n";
+        }
+        return json.append("\n}\n").toString();
+    }
+
+    private static void print(Map<String, Object> result) {
+        System.out.println(String.format("%s archivos, %s líneas: %s archivos/s | %s líneas/s | %s MB/s",
+            result.get("files"), result.get("lines"), result.get("filesPerSecond"), result.get("linesPerSecond"),
+            result.get("megabytesPerSecond")));
+        System.out.println(String.format("Latencia por archivo (µs): p50 %s | p90 %s | p99 %s | máx %s",
+            result.get("latencyP50Micros"), result.get("latencyP90Micros"), result.get("latencyP99Micros"),
+            result.get("latencyMaxMicros")));
+        System.out.println(String.format("Memoria: RSS máx %s bytes | heap máx %s bytes | GC %s (%s ms) | %s diagnósticos",
+            result.get("peakRssBytes"), result.get("peakHeapBytes"), result.get("gcCount"), result.get("gcMillis"),
+            result.get("diagnostics")));
+    }
+
+    // Variación de cada métrica respecto a un resultado anterior
+    private static void compare(Path previousFile, Map<String, Object> current) throws IOException {
+        Object previous = Json.parse(new String(Files.readAllBytes(previousFile), StandardCharsets.UTF_8));
+        for (String key : current.keySet()) {
+            Object before = Json.get(previous, key);
+            if (!isMetric(key) && before != null && !Json.write(before).equals(Json.write(current.get(key)))) {
+                System.out.println("Aviso: " + key + " distinto (" + Json.write(before) + " -> "
+                    + Json.write(current.get(key)) + "); los resultados pueden no ser comparables");
+            }
+        }
+        System.out.println("Comparación con " + previousFile + ":");
+        for (int i = 0; i < METRICS.length; i++) {
+            Object before = Json.get(previous, METRICS[i]);
+            Object after = current.get(METRICS[i]);
+            if (!(before instanceof Number) || !(after instanceof Number)) {
+                continue;
+            }
+            double old = ((Number) before).doubleValue();
+            double now = ((Number) after).doubleValue();
+            String change = old == 0 ? "" : String.format("%+.1f%%", (now - old) * 100 / old);
+            String verdict = old == now ? "" : (now > old) == HIGHER_IS_BETTER[i] ? " mejor" : " peor";
+            System.out.println(String.format("  %-20s %14s -> %14s %8s%s", METRICS[i], Json.write(before), Json.write(after),
+                change, verdict));
+        }
+    }
+
+    private static boolean isMetric(String key) {
+        for (String metric : METRICS) {
+            if (metric.equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> walk = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) walk.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
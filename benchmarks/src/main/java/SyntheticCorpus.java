@@ -0,0 +1,107 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Genera un corpus de archivos .vb sintéticos (SyntheticSource) para el benchmark de extremo a
+ * extremo: correctos y, en la proporción brokenRatio, con errores.
+ *
+ * El número de líneas de cada archivo se elige entre minLines y maxLines. Cada archivo se genera
+ * con su propia semilla, derivada de la del corpus y de su posición, así que el mismo corpus se
+ * obtiene con la misma semilla y parámetros en cualquier máquina. Los archivos se reparten en
+ * subdirectorios de FILES_PER_DIRECTORY.
+ * Uso: java SyntheticCorpus --out=DIR [--files=N] [--lines=A..B] [--depth=D] [--comment-ratio=R]
+ *      [--error-density=E] [--broken-ratio=B] [--seed=S]
+ */
+public class SyntheticCorpus {
+    static final int FILES_PER_DIRECTORY = 500;
+
+    public int files = 1000;
+    public int minLines = 50;
+    public int maxLines = 2000;
+    public int depth = 3;
+    public double commentRatio = SyntheticSource.DEFAULT_COMMENT_RATIO;
+    // Proporción de líneas erróneas en los archivos con errores
+    public double errorDensity = 0.05;
+    // Proporción de archivos con errores
+    public double brokenRatio = 0.2;
+    public long seed = 42;
+
+    /**
+     * parseOption() - Aplica una opción --clave=valor del generador; devuelve false si no lo es.
+     */
+    public boolean parseOption(String arg) {
+        if (arg.startsWith("--files=")) {
+            files = Integer.parseInt(arg.substring("--files=".length()));
+        } else if (arg.startsWith("--lines=")) {
+            String range = arg.substring("--lines=".length());
+            int dots = range.indexOf("..");
+            minLines = Integer.parseInt(dots < 0 ? range : range.substring(0, dots));
+            maxLines = dots < 0 ? minLines : Integer.parseInt(range.substring(dots + 2));
+            if (minLines > maxLines) {
+                throw new IllegalArgumentException("Rango de líneas vacío: " + range);
+            }
+        } else if (arg.startsWith("--depth=")) {
+            depth = Integer.parseInt(arg.substring("--depth=".length()));
+        } else if (arg.startsWith("--comment-ratio=")) {
+            commentRatio = Double.parseDouble(arg.substring("--comment-ratio=".length()));
+        } else if (arg.startsWith("--error-density=")) {
+            errorDensity = Double.parseDouble(arg.substring("--error-density=".length()));
+        } else if (arg.startsWith("--broken-ratio=")) {
+            brokenRatio = Double.parseDouble(arg.substring("--broken-ratio=".length()));
+        } else if (arg.startsWith("--seed=")) {
+            seed = Long.parseLong(arg.substring("--seed=".length()));
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * write() - Escribe el corpus en directory y devuelve las rutas de los archivos, en orden.
+     */
+    public List<Path> write(Path directory) throws IOException {
+        List<Path> paths = new ArrayList<>(files);
+        for (int i = 0; i < files; i++) {
+            Path file = directory.resolve(String.format("d%03d/f%05d.vb", i / FILES_PER_DIRECTORY, i));
+            Files.createDirectories(file.getParent());
+            Files.write(file, content(i));
+            paths.add(file);
+        }
+        return paths;
+    }
+
+    // Contenido del archivo i: solo depende de los parámetros, de la semilla y de i
+    byte[] content(int i) {
+        Random random = new Random(seed * 1_000_003L + i);
+        int lines = minLines + random.nextInt(maxLines - minLines + 1);
+        boolean broken = random.nextDouble() < brokenRatio;
+        List<String> source = SyntheticSource.generate(lines, depth, commentRatio, broken ? errorDensity : 0, random.nextLong());
+        return (String.join("\n", source) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static void main(String[] args) throws IOException {
+        SyntheticCorpus corpus = new SyntheticCorpus();
+        Path out = null;
+        for (String arg : args) {
+            if (arg.startsWith("--out=")) {
+                out = Paths.get(arg.substring("--out=".length()));
+            } else if (!corpus.parseOption(arg)) {
+                System.err.println("Opción desconocida: " + arg);
+                System.exit(2);
+            }
+        }
+        if (out == null) {
+            System.err.println("Uso: java SyntheticCorpus --out=DIR [--files=N] [--lines=A..B] [--depth=D] "
+                + "[--comment-ratio=R] [--error-density=E] [--broken-ratio=B] [--seed=S]");
+            System.exit(2);
+        }
+        List<Path> paths = corpus.write(out);
+        System.out.println(paths.size() + " archivos generados en " + out);
+    }
+}
@@ -0,0 +1,85 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Genera código VBScript sintético para los benchmarks.
+ *
+ * El cuerpo de Sub Main se llena con bloques While/Try anidados hasta la profundidad indicada.
+ * Con errorDensity > 0 se introduce esa proporción de líneas erróneas (DIM o CATCH mal
+ * formados, cierres sin apertura). commentRatio es la proporción de las líneas correctas que son
+ * comentarios. El resultado solo depende de los parámetros y de la semilla.
+ */
+public class SyntheticSource {
+    public static final double DEFAULT_COMMENT_RATIO = 0.25;
+
+    public static List<String> generate(int lineCount, int depth, double errorDensity, long seed) {
+        return generate(lineCount, depth, DEFAULT_COMMENT_RATIO, errorDensity, seed);
+    }
+
+    public static List<String> generate(int lineCount, int depth, double commentRatio, double errorDensity, long seed) {
+        Random random = new Random(seed);
+        List<String> lines = new ArrayList<>(lineCount + 16);
+        lines.add("' Archivo generado para benchmarks");
+        lines.add("Imports System");
+        lines.add("Imports System.IO");
+        lines.add("Module Program");
+        lines.add("    Sub Main()");
+        lines.add("        Dim total As Integer");
+
+        int variable = 0;
+        while (lines.size() < lineCount - 2) {
+            for (int level = 0; level < depth; level++) {
+                lines.add(indent(level) + (level % 2 == 0 ? "While x" + level + " < 10" : "Try"));
+            }
+            for (int i = 0; i < 4; i++) {
+                lines.add(statement(random, depth, variable++, commentRatio, errorDensity));
+            }
+            for (int level = depth - 1; level >= 0; level--) {
+                if (level % 2 == 0) {
+                    lines.add(indent(level) + "End While");
+                } else {
+                    lines.add(indent(level) + "Catch ex As Exception");
+                    lines.add(indent(level) + "End Try");
+                }
+            }
+        }
+
+        lines.add("    End Sub");
+        lines.add("End Module");
+        return lines;
+    }
+
+    private static String statement(Random random, int depth, int variable, double commentRatio, double errorDensity) {
+        String indent = indent(depth);
+        if (random.nextDouble() < errorDensity) {
+            switch (random.nextInt(3)) {
+                case 0:
+                    return indent + "Dim 1v" + variable + " Integer";
+                case 1:
+                    return indent + "Catch sinExcepcion";
+                default:
+                    return indent + "End While";
+            }
+        }
+        if (random.nextDouble() < commentRatio) {
+            return indent + "' comentario " + variable;
+        }
+        switch (random.nextInt(3)) {
+            case 0:
+                return indent + "Dim v" + variable + " As Integer";
+            case 1:
+                return indent + "total = total + " + variable;
+            default:
+                return indent + "Console.WriteLine(\"valor \" & v" + variable + ")";
+        }
+    }
+
+    private static String indent(int level) {
+        StringBuilder indent = new StringBuilder("        ");
+        for (int i = 0; i < level; i++) {
+            indent.append("    ");
+        }
+        return indent.toString();
+    }
+}
@@ -0,0 +1,50 @@
+package errorhunter.bench;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Edición de una línea con IncrementalValidator, según tamaño, anidamiento de While/Try y
+ * densidad de errores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IncrementalBenchmark {
+
+    @Param({"1000", "100000"})
+    public int lines;
+
+    @Param({"1", "32"})
+    public int depth;
+
+    @Param({"0.0", "0.05"})
+    public double errorDensity;
+
+    private Callable<Object> edit;
+
+    @Setup
+    public void setup() throws Exception {
+        edit = Workloads.get("incrementalEdit", Workloads.source(lines, depth, errorDensity));
+    }
+
+    @Benchmark
+    public Object editLine() throws Exception {
+        return edit.call();
+    }
+}
@@ -0,0 +1,73 @@
+package errorhunter.bench;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * tokenize() y tokenizeToBuffer() de VBScriptScanner según tamaño, anidamiento y densidad de errores,
+ * y lectura completa (decodificación y escáner) desde los bytes del archivo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LexerBenchmark {
+
+    @Param({"1000", "100000"})
+    public int lines;
+
+    @Param({"1", "32"})
+    public int depth;
+
+    @Param({"0.0", "0.05"})
+    public double errorDensity;
+
+    private Callable<Object> tokenize;
+    private Callable<Object> tokenizeToBuffer;
+    private Callable<Object> decodeAndTokenize;
+    private Callable<Object> tokenizeBytes;
+
+    @Setup
+    public void setup() throws Exception {
+        List<String> source = Workloads.source(lines, depth, errorDensity);
+        tokenize = Workloads.get("scannerTokenize", source);
+        tokenizeToBuffer = Workloads.get("scannerTokenizeToBuffer", source);
+        decodeAndTokenize = Workloads.get("decodeAndTokenize", source);
+        tokenizeBytes = Workloads.get("tokenizeBytes", source);
+    }
+
+    @Benchmark
+    public Object tokenize() throws Exception {
+        return tokenize.call();
+    }
+
+    @Benchmark
+    public Object tokenizeToBuffer() throws Exception {
+        return tokenizeToBuffer.call();
+    }
+
+    @Benchmark
+    public Object decodeAndTokenize() throws Exception {
+        return decodeAndTokenize.call();
+    }
+
+    @Benchmark
+    public Object tokenizeBytes() throws Exception {
+        return tokenizeBytes.call();
+    }
+}
@@ -0,0 +1,66 @@
+package errorhunter.bench;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * parse() de VBScriptParser sobre tokens ya generados (List<Token> o TokenBuffer) y ParallelParser, según
+ * tamaño, anidamiento de While/Try y densidad de errores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+    @Param({"1000", "100000"})
+    public int lines;
+
+    @Param({"1", "32"})
+    public int depth;
+
+    @Param({"0.0", "0.05"})
+    public double errorDensity;
+
+    private Callable<Object> parse;
+    private Callable<Object> parseBuffer;
+    private Callable<Object> parseParallel;
+
+    @Setup
+    public void setup() throws Exception {
+        List<String> source = Workloads.source(lines, depth, errorDensity);
+        parse = Workloads.get("parse", source);
+        parseBuffer = Workloads.get("parseBuffer", source);
+        parseParallel = Workloads.get("parseParallel", source);
+    }
+
+    @Benchmark
+    public Object parse() throws Exception {
+        return parse.call();
+    }
+
+    @Benchmark
+    public Object parseBuffer() throws Exception {
+        return parseBuffer.call();
+    }
+
+    @Benchmark
+    public Object parseParallel() throws Exception {
+        return parseParallel.call();
+    }
+}
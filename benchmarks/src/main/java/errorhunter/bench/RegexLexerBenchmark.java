@@ -0,0 +1,50 @@
+package errorhunter.bench;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * tokenize() del lexer de referencia (VBScriptLexer). Su coste crece de forma cuadrática con el
+ * número de tokens, por eso se mide con tamaños menores que LexerBenchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegexLexerBenchmark {
+
+    @Param({"100", "1000"})
+    public int lines;
+
+    @Param({"1", "32"})
+    public int depth;
+
+    @Param({"0.0", "0.05"})
+    public double errorDensity;
+
+    private Callable<Object> tokenize;
+
+    @Setup
+    public void setup() throws Exception {
+        tokenize = Workloads.get("regexTokenize", Workloads.source(lines, depth, errorDensity));
+    }
+
+    @Benchmark
+    public Object tokenize() throws Exception {
+        return tokenize.call();
+    }
+}
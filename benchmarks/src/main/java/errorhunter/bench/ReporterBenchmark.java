@@ -0,0 +1,76 @@
+package errorhunter.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rendimiento de ErrorReporter.writeErrorsToFile() (listado anotado) y de ReportWriter (informe
+ * completo en una sola apertura) según tamaño y densidad de errores. El informe se elimina antes
+ * de cada invocación porque writeErrorsToFile() añade al final.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReporterBenchmark {
+
+    @Param({"1000", "100000"})
+    public int lines;
+
+    @Param({"0.0", "0.05"})
+    public double errorDensity;
+
+    private Path directory;
+    private Path report;
+    private Callable<Object> writeErrorsToFile;
+    private Callable<Object> writeReport;
+
+    @Setup
+    public void setup() throws Exception {
+        directory = Files.createTempDirectory("errorhunter-bench");
+        report = directory.resolve("bench-Errores.txt");
+        writeErrorsToFile = Workloads.get("writeErrorsToFile", Workloads.source(lines, 4, errorDensity), directory);
+        writeReport = Workloads.get("writeReport", Workloads.source(lines, 4, errorDensity), directory);
+    }
+
+    @Setup(Level.Invocation)
+    public void deleteReport() throws IOException {
+        Files.deleteIfExists(report);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(report);
+        Files.deleteIfExists(directory.resolve("bench.vb"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public Object writeErrorsToFile() throws Exception {
+        return writeErrorsToFile.call();
+    }
+
+    @Benchmark
+    public Object reportWriter() throws Exception {
+        return writeReport.call();
+    }
+}
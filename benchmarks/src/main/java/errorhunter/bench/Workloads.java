@@ -0,0 +1,30 @@
+package errorhunter.bench;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Acceso a las clases del validador (paquete por defecto) desde los benchmarks.
+ */
+final class Workloads {
+
+    private Workloads() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static Callable<Object> get(String name, Object... args) throws Exception {
+        for (Method method : Class.forName("BenchmarkWorkloads").getMethods()) {
+            if (method.getName().equals(name) && method.getParameterCount() == args.length) {
+                return (Callable<Object>) method.invoke(null, args);
+            }
+        }
+        throw new IllegalArgumentException("Carga de trabajo desconocida: " + name);
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<String> source(int lines, int depth, double errorDensity) throws Exception {
+        Method generate = Class.forName("SyntheticSource").getMethod("generate", int.class, int.class, double.class, long.class);
+        return (List<String>) generate.invoke(null, lines, depth, errorDensity, 42L);
+    }
+}
@@ -0,0 +1,35 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Presupuestos de AllocationBudget sobre sus documentos generados, con y sin errores: el
+ * escáner, el parser y el informe no deben superar la memoria asignada por línea, token y
+ * diagnóstico.
+ */
+class AllocationBudgetTest {
+    private static final int LINES = 20000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void generatedDocumentsStayWithinBudget() throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "la JVM no mide la memoria asignada por hilo");
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        int failures = AllocationBudget.check(threads, "generado",
+            AllocationBudget.generate(AllocationBudget.LINES, LINES, 42).getBytes(StandardCharsets.UTF_8), directory);
+        failures += AllocationBudget.check(threads, "sin errores",
+            AllocationBudget.generate(AllocationBudget.VALID_LINES, LINES, 42).getBytes(StandardCharsets.UTF_8), directory);
+        assertEquals(0, failures, "fases por encima del presupuesto (detalle en la salida estándar)");
+    }
+}
@@ -0,0 +1,197 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Línea base: supresión por huella (con diagnósticos repetidos), identificación de los archivos
+ * por su ruta relativa al directorio de la línea base y lectura de archivos desordenados o
+ * incompletos.
+ */
+class BaselineTest {
+    private static final int MAGIC = 0x45485642;
+    private static final int FORMAT_VERSION = 2;
+
+    private static final List<String> LINES = Arrays.asList(
+        "Dim x", "    x = 1", "Dim x", "Sub Main(", "Dim x");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void suppressesRecordedDiagnosticsRegardlessOfLineNumberAndIndentation() throws IOException {
+        Path file = directory.resolve("baseline.bin");
+        Baseline.Recorder recorder = new Baseline.Recorder(file);
+        DiagnosticStore recorded = new DiagnosticStore();
+        recorded.add(2, 5, ErrorCode.TOKEN_BEFORE_MODULE, 0);
+        recorded.add(4, 1, "mensaje libre");
+        recorder.record(directory.resolve("a.vb").toString(), LINES, recorded);
+        recorder.write(file);
+
+        // Dos líneas nuevas por encima y otra indentación: mismas huellas
+        List<String> moved = Arrays.asList("' nuevo", "' nuevo", "Dim x", "x   =   1", "Dim x", "  Sub Main(", "Dim x");
+        DiagnosticStore diagnostics = new DiagnosticStore();
+        diagnostics.add(4, 1, ErrorCode.TOKEN_BEFORE_MODULE, 0);
+        diagnostics.add(6, 3, "mensaje libre");
+        diagnostics.add(6, 3, "otro mensaje");
+        diagnostics.add(3, 1, ErrorCode.TOKEN_BEFORE_MODULE, 0);
+
+        Baseline baseline = Baseline.load(file);
+        assertEquals(2, baseline.size());
+        assertEquals(2, baseline.filter(directory.resolve("a.vb").toString(), moved, diagnostics));
+        assertEquals(2, diagnostics.size());
+        assertEquals("otro mensaje", diagnostics.message(0));
+        assertEquals(3, diagnostics.line(1));
+        assertEquals(2, baseline.suppressed());
+    }
+
+    @Test
+    void reportsDiagnosticsBeyondTheRecordedCount() throws IOException {
+        Path file = directory.resolve("baseline.bin");
+        Baseline.Recorder recorder = new Baseline.Recorder(file);
+        DiagnosticStore recorded = new DiagnosticStore();
+        // "Dim x" aparece en las líneas 1, 3 y 5: tres veces la misma huella
+        recorded.add(1, 1, ErrorCode.TOKEN_BEFORE_MODULE, 0);
+        recorded.add(3, 1, ErrorCode.TOKEN_BEFORE_MODULE, 0);
+        recorder.record(directory.resolve("a.vb").toString(), LINES, recorded);
+        recorder.write(file);
+
+        DiagnosticStore diagnostics = new DiagnosticStore();
+        diagnostics.add(1, 1, ErrorCode.TOKEN_BEFORE_MODULE, 0);
+        diagnostics.add(3, 1, ErrorCode.TOKEN_BEFORE_MODULE, 0);
+        diagnostics.add(5, 1, ErrorCode.TOKEN_BEFORE_MODULE, 0);
+        assertEquals(2, Baseline.load(file).filter(directory.resolve("a.vb").toString(), LINES, diagnostics));
+        assertEquals(1, diagnostics.size());
+        assertEquals(5, diagnostics.line(0));
+    }
+
+    @Test
+    void otherFilesAreNotSuppressed() throws IOException {
+        Path file = directory.resolve("baseline.bin");
+        Baseline.Recorder recorder = new Baseline.Recorder(file);
+        DiagnosticStore recorded = new DiagnosticStore();
+        recorded.add(1, 1, ErrorCode.TOKEN_BEFORE_MODULE, 0);
+        recorder.record(directory.resolve("a.vb").toString(), LINES, recorded);
+        recorder.write(file);
+
+        DiagnosticStore diagnostics = new DiagnosticStore();
+        diagnostics.add(1, 1, ErrorCode.TOKEN_BEFORE_MODULE, 0);
+        assertEquals(0, Baseline.load(file).filter(directory.resolve("b.vb").toString(), LINES, diagnostics));
+        assertEquals(1, diagnostics.size());
+    }
+
+    @Test
+    void relativePathIgnoresHowThePathWasWritten() throws IOException {
+        Path cwd = Paths.get("").toAbsolutePath().toRealPath();
+        Path root = Baseline.root(cwd.resolve("baseline.bin"));
+        assertEquals("d/a.vb", Baseline.relativePath(root, "d/a.vb"));
+        assertEquals("d/a.vb", Baseline.relativePath(root, "./d/a.vb"));
+        assertEquals("d/a.vb", Baseline.relativePath(root, "x/../d/a.vb"));
+        assertEquals("d/a.vb", Baseline.relativePath(root, cwd.resolve("d").resolve("a.vb").toString()));
+        assertEquals("-", Baseline.relativePath(root, "-"));
+    }
+
+    @Test
+    void relativePathIsIndependentOfTheWorkingDirectory() throws IOException {
+        Path project = Files.createDirectories(directory.resolve("proyecto/d"));
+        Path root = Baseline.root(directory.resolve("proyecto/baseline.bin"));
+        assertEquals("d/a.vb", Baseline.relativePath(root, project.resolve("a.vb").toString()));
+        assertEquals("d/src.zip!/m/a.vb", Baseline.relativePath(root, project.resolve("src.zip") + "!/m/a.vb"));
+
+        // Fuera del directorio de la línea base la ruta queda absoluta
+        Path outside = directory.toRealPath().resolve("fuera.vb");
+        assertEquals(outside.toString().replace('\\', '/'), Baseline.relativePath(root, directory.resolve("fuera.vb").toString()));
+    }
+
+    @Test
+    void relativePathFollowsSymbolicLinks() throws IOException {
+        Path project = Files.createDirectories(directory.resolve("proyecto"));
+        Path link;
+        try {
+            link = Files.createSymbolicLink(directory.resolve("enlace"), project);
+        } catch (UnsupportedOperationException | IOException e) {
+            return;
+        }
+        Path root = Baseline.root(project.resolve("baseline.bin"));
+        assertEquals("a.vb", Baseline.relativePath(root, link.resolve("a.vb").toString()));
+        assertEquals(root, Baseline.root(link.resolve("baseline.bin")));
+    }
+
+    @Test
+    void loadSortsUnsortedFiles() throws IOException {
+        Path root = Baseline.root(directory.resolve("baseline.bin"));
+        long fileHash = Baseline.fileHash(Baseline.relativePath(root, directory.resolve("a.vb").toString()));
+        DiagnosticStore diagnostics = new DiagnosticStore();
+        for (int line = 1; line <= LINES.size(); line++) {
+            diagnostics.add(line, 1, ErrorCode.TOKEN_AFTER_END_MODULE, 0);
+        }
+        long[] keys = new long[diagnostics.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = Baseline.fingerprint(fileHash, LINES, diagnostics, i) ^ Long.MIN_VALUE;
+        }
+        Arrays.sort(keys);
+        long[] reversed = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            reversed[i] = keys[keys.length - 1 - i];
+        }
+        Path file = directory.resolve("baseline.bin");
+        write(file, MAGIC, FORMAT_VERSION, reversed.length, reversed);
+
+        Baseline baseline = Baseline.load(file);
+        for (int i = 0; i < diagnostics.size(); i++) {
+            // "Dim x" aparece tres veces, el resto una
+            int expected = LINES.get(diagnostics.line(i) - 1).equals("Dim x") ? 3 : 1;
+            assertEquals(expected, baseline.count(Baseline.fingerprint(fileHash, LINES, diagnostics, i)));
+        }
+    }
+
+    @Test
+    void loadRejectsTruncatedAndForeignFiles() throws IOException {
+        Path truncated = directory.resolve("incompleta.bin");
+        write(truncated, MAGIC, FORMAT_VERSION, 3, new long[] {1, 2});
+        assertThrows(IOException.class, () -> Baseline.load(truncated));
+
+        Path header = directory.resolve("cabecera.bin");
+        Files.write(header, new byte[] {0x45, 0x48});
+        assertThrows(IOException.class, () -> Baseline.load(header));
+
+        Path foreign = directory.resolve("otra.bin");
+        write(foreign, MAGIC, FORMAT_VERSION - 1, 0, new long[0]);
+        assertThrows(IOException.class, () -> Baseline.load(foreign));
+    }
+
+    @Test
+    void emptyBaselineSuppressesNothing() throws IOException {
+        Path file = directory.resolve("baseline.bin");
+        new Baseline.Recorder(file).write(file);
+        DiagnosticStore diagnostics = new DiagnosticStore();
+        diagnostics.add(1, 1, ErrorCode.TOKEN_BEFORE_MODULE, 0);
+        Baseline baseline = Baseline.load(file);
+        assertEquals(0, baseline.size());
+        assertEquals(0, baseline.filter("a.vb", LINES, diagnostics));
+        assertNotEquals(0, diagnostics.size());
+    }
+
+    private static void write(Path file, int magic, int version, int count, long[] keys) throws IOException {
+        try (OutputStream stream = Files.newOutputStream(file);
+             DataOutputStream out = new DataOutputStream(stream)) {
+            out.writeInt(magic);
+            out.writeInt(version);
+            out.writeInt(count);
+            for (long key : keys) {
+                out.writeLong(key);
+            }
+        }
+    }
+}
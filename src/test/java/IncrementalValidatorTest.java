@@ -0,0 +1,89 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compara IncrementalValidator con el análisis completo de VBScriptParser.parse() tras cada una
+ * de una serie de ediciones aleatorias: los diagnósticos y los contadores deben coincidir, y los
+ * puntos de control deben evitar volver a analizar el documento entero.
+ */
+class IncrementalValidatorTest {
+    // Líneas con las que se generan los documentos y las ediciones: abren y cierran bloques,
+    // declaran y asignan variables, y dejan estructuras sin cerrar o cierres sin apertura
+    private static final String[] LINES = {
+        "Module Program", "End Module", "Sub Main()", "End Sub", "Try", "Catch ex As Exception", "End Try",
+        "While x < 1", "End While", "Dim a As Integer", "Dim A, b As String",
+        "Dim c As Integer = f(1, 2), d As Long", "a = 1", "b = 2", "c = 3", "d = 4", "e = 5",
+        "Imports System", "' comentario", "",
+    };
+
+    @Test
+    void randomEditsMatchFullParse() {
+        check(RuleRegistry.defaults(), 7);
+    }
+
+    @Test
+    void randomEditsMatchFullParseWithoutSymbols() {
+        check(RuleRegistry.withoutRules(Arrays.asList(RuleRegistry.SYMBOLS)), 11);
+    }
+
+    private static void check(RuleRegistry rules, long seed) {
+        Random random = new Random(seed);
+        long reparsed = 0;
+        long total = 0;
+        for (int document = 0; document < 30; document++) {
+            List<String> lines = new ArrayList<>();
+            int count = 50 + random.nextInt(400);
+            for (int i = 0; i < count; i++) {
+                lines.add(LINES[random.nextInt(LINES.length)]);
+            }
+            IncrementalValidator validator = new IncrementalValidator(lines, rules);
+            assertEquals(fullParse(validator.lines(), rules), incremental(validator), "documento " + document);
+
+            for (int edit = 0; edit < 60; edit++) {
+                int size = validator.lines().size();
+                int start = 1 + random.nextInt(size + 1);
+                int removed = Math.min(random.nextInt(3), size - start + 1);
+                List<String> inserted = new ArrayList<>();
+                for (int i = random.nextInt(3); i > 0; i--) {
+                    inserted.add(LINES[random.nextInt(LINES.length)]);
+                }
+                validator.edit(start, removed, inserted);
+                reparsed += validator.lastReparsedLines();
+                total += validator.lines().size();
+                assertEquals(fullParse(validator.lines(), rules), incremental(validator),
+                    "documento " + document + ", edición " + edit + " (línea " + start + ", -" + removed + " +" + inserted.size() + ")");
+            }
+        }
+        // Los puntos de control y la convergencia limitan el análisis a una parte del documento
+        assertTrue(reparsed < total / 2, "líneas analizadas de nuevo: " + reparsed + " de " + total);
+    }
+
+    private static String fullParse(List<String> lines, RuleRegistry rules) {
+        ErrorReporter reporter = new ErrorReporter("");
+        VBScriptParser parser = new VBScriptParser(new VBScriptScanner(lines).tokenizeToBuffer().cursor(), reporter);
+        parser.setRules(rules);
+        parser.parse();
+        reporter.getDiagnostics().sort();
+        return describe(reporter.getDiagnostics()) + Arrays.toString(parser.stats.toArray());
+    }
+
+    private static String incremental(IncrementalValidator validator) {
+        return describe(validator.diagnostics()) + Arrays.toString(validator.stats().toArray());
+    }
+
+    private static String describe(DiagnosticStore diagnostics) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < diagnostics.size(); i++) {
+            text.append(diagnostics.line(i)).append(':').append(diagnostics.column(i)).append(' ')
+                .append(diagnostics.message(i)).append('\n');
+        }
+        return text.toString();
+    }
+}
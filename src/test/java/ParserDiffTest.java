@@ -0,0 +1,22 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Comprobación de ParserDiff --random: el análisis por tramos de ParallelParser produce los
+ * mismos diagnósticos y contadores que VBScriptParser.parse() para todos los tamaños de tramo.
+ */
+class ParserDiffTest {
+
+    @Test
+    void randomDocumentsMatchSequentialParse() {
+        Random random = new Random(42);
+        int differences = 0;
+        for (int d = 0; d < 1000; d++) {
+            differences += ParserDiff.compare("aleatorio-" + d, ParserDiff.randomDocument(random));
+        }
+        assertEquals(0, differences, "tamaños de tramo con diferencias (detalle en la salida estándar)");
+    }
+}
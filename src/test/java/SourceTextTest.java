@@ -0,0 +1,193 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compara SourceText.decode(...).decodeLines() con los decodificadores de Java y la división en
+ * líneas de BufferedReader: marcas BOM, UTF-16 sin BOM, la alternativa Windows-1252 y el UTF-8
+ * estricto de isUtf8().
+ */
+class SourceTextTest {
+    private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+    private static final String TEXT = "Module Program\r\n    Dim año = \"€ ñ\"\n\rEnd Module\r";
+
+    @Test
+    void utf8WithBom() throws IOException {
+        byte[] content = concat(new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF}, TEXT.getBytes(StandardCharsets.UTF_8));
+        SourceText text = SourceText.decode(content, SourceText.AUTO);
+        assertEquals(StandardCharsets.UTF_8, text.charset());
+        assertEquals(readAllLines(content, 3, StandardCharsets.UTF_8), text.decodeLines());
+        assertEquals(readAllLines(content, 3, StandardCharsets.UTF_8), SourceText.decode(content, "UTF-8").decodeLines());
+    }
+
+    @Test
+    void utf16WithBom() throws IOException {
+        byte[] little = concat(new byte[] {(byte) 0xFF, (byte) 0xFE}, TEXT.getBytes(StandardCharsets.UTF_16LE));
+        SourceText text = SourceText.decode(little, SourceText.AUTO);
+        assertEquals(StandardCharsets.UTF_16LE, text.charset());
+        assertEquals(readAllLines(little, 2, StandardCharsets.UTF_16LE), text.decodeLines());
+
+        byte[] big = concat(new byte[] {(byte) 0xFE, (byte) 0xFF}, TEXT.getBytes(StandardCharsets.UTF_16BE));
+        text = SourceText.decode(big, SourceText.AUTO);
+        assertEquals(StandardCharsets.UTF_16BE, text.charset());
+        assertEquals(readAllLines(big, 2, StandardCharsets.UTF_16BE), text.decodeLines());
+    }
+
+    @Test
+    void utf16WithoutBomDetectedByNulPosition() throws IOException {
+        for (Charset charset : Arrays.asList(StandardCharsets.UTF_16LE, StandardCharsets.UTF_16BE)) {
+            byte[] content = TEXT.getBytes(charset);
+            SourceText text = SourceText.decode(content, SourceText.AUTO);
+            assertEquals(charset, text.charset());
+            assertEquals(readAllLines(content, 0, charset), text.decodeLines());
+        }
+    }
+
+    @Test
+    void invalidUtf8FallsBackToWindows1252() throws IOException {
+        // 0x81 no tiene carácter en Windows-1252: se sustituye, como en el decodificador de Java
+        byte[] content = concat(TEXT.getBytes(WINDOWS_1252), new byte[] {'x', (byte) 0x81, (byte) 0xC0, (byte) 0x80});
+        SourceText text = SourceText.decode(content, SourceText.AUTO);
+        assertEquals(WINDOWS_1252, text.charset());
+        assertEquals(readAllLines(content, 0, WINDOWS_1252), text.decodeLines());
+
+        // Con UTF-8 indicado explícitamente es un error, como en Files.readAllLines()
+        assertThrows(CharacterCodingException.class, () -> SourceText.decode(content, "UTF-8"));
+    }
+
+    @Test
+    void validUtf8IsNotTreatedAsWindows1252() throws IOException {
+        byte[] content = TEXT.getBytes(StandardCharsets.UTF_8);
+        SourceText text = SourceText.decode(content, SourceText.AUTO);
+        assertEquals(StandardCharsets.UTF_8, text.charset());
+        assertEquals(readAllLines(content, 0, StandardCharsets.UTF_8), text.decodeLines());
+    }
+
+    @Test
+    void strictUtf8MatchesJavaDecoder() {
+        int[][] sequences = {
+            // Válidas: los extremos de cada longitud
+            {0xC2, 0x80}, {0xDF, 0xBF}, {0xE0, 0xA0, 0x80}, {0xED, 0x9F, 0xBF}, {0xEE, 0x80, 0x80},
+            {0xEF, 0xBF, 0xBF}, {0xF0, 0x90, 0x80, 0x80}, {0xF4, 0x8F, 0xBF, 0xBF},
+            // Formas largas
+            {0xC0, 0x80}, {0xC1, 0xBF}, {0xE0, 0x80, 0x80}, {0xE0, 0x9F, 0xBF}, {0xF0, 0x80, 0x80, 0x80},
+            {0xF0, 0x8F, 0xBF, 0xBF},
+            // Suplentes
+            {0xED, 0xA0, 0x80}, {0xED, 0xBF, 0xBF},
+            // Por encima de U+10FFFF
+            {0xF4, 0x90, 0x80, 0x80}, {0xF5, 0x80, 0x80, 0x80}, {0xF8, 0x88, 0x80, 0x80, 0x80},
+            // Continuaciones sueltas o que faltan
+            {0x80}, {0xBF}, {0xC2, 0x41}, {0xE2, 0x82, 0x41}, {0xE2, 0x82}, {0xF0, 0x90, 0x80}, {0xC2},
+        };
+        for (int[] sequence : sequences) {
+            byte[] content = concat(new byte[] {'a'}, bytes(sequence), new byte[] {'b'});
+            assertEquals(isUtf8ForJava(content), SourceText.isUtf8(content, 0, content.length, false),
+                Arrays.toString(sequence));
+        }
+
+        Random random = new Random(42);
+        for (int n = 0; n < 100000; n++) {
+            byte[] content = new byte[1 + random.nextInt(6)];
+            for (int i = 0; i < content.length; i++) {
+                content[i] = (byte) (0x80 + random.nextInt(0x80));
+            }
+            assertEquals(isUtf8ForJava(content), SourceText.isUtf8(content, 0, content.length, false),
+                Arrays.toString(content));
+        }
+    }
+
+    @Test
+    void truncatedSequencesAreAcceptedOnlyWhenTruncated() {
+        for (int[] sequence : new int[][] {{0xC2}, {0xE2, 0x82}, {0xF0, 0x90}, {0xF4, 0x8F, 0xBF}}) {
+            byte[] content = concat(new byte[] {'a'}, bytes(sequence));
+            assertFalse(SourceText.isUtf8(content, 0, content.length, false), Arrays.toString(sequence));
+            assertTrue(SourceText.isUtf8(content, 0, content.length, true), Arrays.toString(sequence));
+        }
+        // El final truncado no disculpa un error anterior ni una continuación no válida
+        assertFalse(SourceText.isUtf8(bytes(0xC0, 0x80, 0xE2, 0x82), 0, 4, true));
+        assertFalse(SourceText.isUtf8(bytes(0xED, 0xA0), 0, 2, true));
+        assertFalse(SourceText.isUtf8(bytes(0xF4, 0x90), 0, 2, true));
+        // Solo se comprueba content[from, to)
+        byte[] content = bytes(0xFF, 0xC3, 0xB1, 0xE2, 0x82, 0xAC, 0xFF);
+        assertTrue(SourceText.isUtf8(content, 1, 6, false));
+        assertFalse(SourceText.isUtf8(content, 1, 5, false));
+        assertTrue(SourceText.isUtf8(content, 1, 5, true));
+        // detect() con el principio de un archivo cortado a mitad de "€"
+        byte[] prefix = Arrays.copyOfRange(content, 1, 5);
+        assertEquals(StandardCharsets.UTF_8, SourceText.detect(prefix, prefix.length, true));
+        assertEquals(WINDOWS_1252, SourceText.detect(prefix, prefix.length, false));
+    }
+
+    @Test
+    void decodeLinesMatchesLineTerminators() throws IOException {
+        byte[] content = "a\r\n\r\nb\n\nc\r\rd".getBytes(StandardCharsets.UTF_8);
+        assertEquals(readAllLines(content, 0, StandardCharsets.UTF_8), SourceText.decode(content, SourceText.AUTO).decodeLines());
+        assertArrayEquals(new Object[0], SourceText.decode(new byte[0], SourceText.AUTO).decodeLines().toArray());
+    }
+
+    // Líneas de content[bom, ...) con el decodificador de Java, como las separa BufferedReader
+    private static List<String> readAllLines(byte[] content, int bom, Charset charset) throws IOException {
+        String text = charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE)
+            .decode(ByteBuffer.wrap(content, bom, content.length - bom)).toString();
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new StringReader(text))) {
+            for (String line; (line = reader.readLine()) != null; ) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private static boolean isUtf8ForJava(byte[] content) {
+        try {
+            StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT)
+                .decode(ByteBuffer.wrap(content));
+            return true;
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] result = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, result, offset, part.length);
+            offset += part.length;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,167 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * SymbolTable directamente sobre los tokens de VBScriptScanner: ámbitos del módulo y de Sub
+ * Main, declaraciones repetidas, nombres sin distinguir mayúsculas, división de los
+ * declaradores de Dim, y la tabla hash tras cerrar ámbitos y tras restore().
+ */
+class SymbolTableTest {
+
+    @Test
+    void duplicateDimOnlyWithinTheSameScope() {
+        assertEquals(Arrays.asList("2:4 DUPLICATE_DIM", "5:4 DUPLICATE_DIM"), check(
+            "Dim a",
+            "Dim a",
+            "Sub Main()",
+            "Dim a",
+            "Dim a",
+            "End Sub"));
+    }
+
+    @Test
+    void subMainSeesModuleVariables() {
+        assertEquals(Arrays.asList("6:0 UNDECLARED_VARIABLE"), check(
+            "Dim a",
+            "Sub Main()",
+            "a = 1",
+            "Dim b",
+            "b = a",
+            "c = 2",
+            "End Sub"));
+    }
+
+    @Test
+    void closingAScopeDropsItsVariables() {
+        assertEquals(Arrays.asList("5:0 UNDECLARED_VARIABLE", "7:4 DUPLICATE_DIM"), check(
+            "Dim a",
+            "Sub Main()",
+            "Dim b",
+            "End Sub",
+            "b = 1",
+            "a = 1",
+            "Dim a",
+            "Dim b"));
+    }
+
+    @Test
+    void namesAreCaseInsensitive() {
+        assertEquals(Arrays.asList("2:4 DUPLICATE_DIM", "5:0 UNDECLARED_VARIABLE"), check(
+            "Dim Contador",
+            "Dim CONTADOR",
+            "contador = 1",
+            "cOnTaDoR = 2",
+            "Contadores = 3"));
+    }
+
+    @Test
+    void splitsDeclaratorsOutsideParenthesesAndStrings() {
+        assertEquals(Arrays.asList("2:0 UNDECLARED_VARIABLE", "4:4 DUPLICATE_DIM", "4:7 DUPLICATE_DIM"), check(
+            "Dim a, b As X = f(1, 2), c As String = \"d, e\" ' f, g",
+            "d = 1",
+            "a = 1 : b = 2 : c = 3",
+            "Dim a, b, h"));
+        assertEquals(Arrays.asList("2:0 UNDECLARED_VARIABLE", "3:0 UNDECLARED_VARIABLE"), check(
+            "Dim a, b As X = f(1, 2)",
+            "f = 1",
+            "x = 2",
+            "b = 3"));
+    }
+
+    @Test
+    void removesScopesInReverseOrderOfInsertion() {
+        // Muchos nombres en una tabla pequeña: secuencias de sondeo largas que se cruzan. El Sub
+        // más pequeño que el módulo elimina sus símbolos uno a uno y el mayor reconstruye la tabla
+        for (int inner : new int[] {5, 200}) {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                lines.add("Dim m" + i);
+            }
+            lines.add("Sub Main()");
+            for (int i = 0; i < inner; i++) {
+                lines.add("Dim s" + i);
+                lines.add("m" + (i % 50) + " = s" + i);
+            }
+            lines.add("End Sub");
+            int closed = lines.size();
+            for (int i = 0; i < 50; i++) {
+                lines.add("m" + i + " = 1");
+            }
+            for (int i = 0; i < inner; i++) {
+                lines.add("s" + i + " = 1");
+            }
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < inner; i++) {
+                expected.add((closed + 51 + i) + ":0 UNDECLARED_VARIABLE");
+            }
+            assertEquals(expected, check(lines.toArray(new String[0])), "Sub con " + inner + " variables");
+        }
+    }
+
+    @Test
+    void rebuildsTheTableAfterRestore() {
+        List<String> lines = new ArrayList<>();
+        lines.add("Dim a");
+        lines.add("Sub Main()");
+        lines.add("Dim b");
+        for (int i = 0; i < 40; i++) {
+            lines.add("Dim c" + i);
+        }
+        lines.add("End Sub");
+        lines.add("a = 1");
+        lines.add("b = 1");
+        lines.add("c0 = 1");
+        TokenCursor cursor = new VBScriptScanner(lines).tokenizeToBuffer().cursor();
+        ErrorReporter reporter = new ErrorReporter("");
+        SymbolTable symbols = new SymbolTable();
+
+        // Estado guardado tras "Dim b", dentro del Sub
+        SymbolTable.Symbol saved = null;
+        int savedDepth = 0;
+        while (cursor.next()) {
+            symbols.accept(cursor, reporter);
+            if (cursor.getLineNumber() == 3) {
+                saved = symbols.last();
+                savedDepth = symbols.depth();
+            }
+        }
+        assertEquals(Arrays.asList("46:0 UNDECLARED_VARIABLE", "47:0 UNDECLARED_VARIABLE"), describe(reporter));
+        assertEquals(1, savedDepth);
+        assertEquals(0, symbols.depth());
+
+        // Al restaurarlo, "b" vuelve a estar declarada y las c* no; la tabla se reconstruye
+        symbols.restore(saved, savedDepth);
+        ErrorReporter restored = new ErrorReporter("");
+        cursor = new VBScriptScanner(Arrays.asList("b = 1", "a = 1", "c0 = 1", "Dim b", "Dim c0", "End Sub", "b = 1"))
+            .tokenizeToBuffer().cursor();
+        while (cursor.next()) {
+            symbols.accept(cursor, restored);
+        }
+        assertEquals(Arrays.asList("3:0 UNDECLARED_VARIABLE", "4:4 DUPLICATE_DIM", "7:0 UNDECLARED_VARIABLE"), describe(restored));
+        assertEquals(1, symbols.last().size);
+    }
+
+    private static List<String> check(String... lines) {
+        TokenCursor cursor = new VBScriptScanner(Arrays.asList(lines)).tokenizeToBuffer().cursor();
+        ErrorReporter reporter = new ErrorReporter("");
+        SymbolTable symbols = new SymbolTable();
+        while (cursor.next()) {
+            symbols.accept(cursor, reporter);
+        }
+        return describe(reporter);
+    }
+
+    private static List<String> describe(ErrorReporter reporter) {
+        DiagnosticStore diagnostics = reporter.getDiagnostics();
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < diagnostics.size(); i++) {
+            result.add(diagnostics.line(i) + ":" + diagnostics.column(i) + " " + diagnostics.code(i));
+        }
+        return result;
+    }
+}